@@ -5,27 +5,40 @@ import TripPlanner from "../components/TripPlanner";
 interface Trip {
     id: number;
     tripName: string;
-    userId: string;
     tripDataJson: string;
     createdTime: string;
-    updatedTime: string;
 }
 
+interface TripPage {
+    items: Trip[];
+    nextCursor: string | null;
+}
+
+const PAGE_SIZE = 10;
+
 const TripsPage: React.FC = () => {
     const [trips, setTrips] = useState<Trip[]>([]);
     const [loading, setLoading] = useState(false);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
 
     const query = new URLSearchParams(useLocation().search);
     const userId = query.get("userId");
 
-    const fetchTrips = async () => {
+    // 游标分页：cursor 为空时加载第一页，否则追加下一页
+    const fetchTrips = async (cursor: string | null = null) => {
         if (!userId) return;
         setLoading(true);
         try {
-            const res = await fetch(`http://localhost:8080/api/trips/user/${userId}`);
+            const params = new URLSearchParams({
+                limit: String(PAGE_SIZE),
+                fields: "id,tripName,createdTime,tripDataJson",
+            });
+            if (cursor) params.set("cursor", cursor);
+            const res = await fetch(`http://localhost:8080/api/trips/user/${userId}/page?${params}`);
             if (!res.ok) throw new Error(`请求失败: ${res.status}`);
-            const data: Trip[] = await res.json();
-            setTrips(data);
+            const data: TripPage = await res.json();
+            setTrips((prev) => (cursor ? [...prev, ...data.items] : data.items));
+            setNextCursor(data.nextCursor);
         } catch (err) {
             console.error(err);
             alert("获取行程失败");
@@ -82,6 +95,11 @@ const TripsPage: React.FC = () => {
                     </div>
                 ))}
             </ul>
+            {!loading && nextCursor && (
+                <div style={{ textAlign: 'center', marginBottom: '1rem' }}>
+                    <button onClick={() => fetchTrips(nextCursor)}>加载更多</button>
+                </div>
+            )}
         </div>
     );
 };
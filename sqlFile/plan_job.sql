@@ -0,0 +1,25 @@
+-- ----------------------------
+-- 异步行程规划任务表（ddl-auto 为 none 的环境手动执行）
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `plan_job`  (
+                         `id` bigint(20) NOT NULL AUTO_INCREMENT,
+                         `client_key` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '客户端幂等键',
+                         `user_id` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '用户ID',
+                         `raw_text` text CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL COMMENT '用户原文',
+                         `status` varchar(16) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT 'PENDING / RUNNING / SUCCEEDED / FAILED',
+                         `attempts` int(11) NOT NULL DEFAULT 0 COMMENT '已执行次数',
+                         `next_run_time` datetime NULL DEFAULT NULL COMMENT '最早可领取时间',
+                         `lease_owner` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '持有租约的节点',
+                         `lease_expires` datetime NULL DEFAULT NULL COMMENT '租约到期时间',
+                         `save_as_trip` bit(1) NOT NULL DEFAULT b'0' COMMENT '成功后自动保存为行程',
+                         `trip_name` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '保存行程时的名称',
+                         `trip_id` bigint(20) NULL DEFAULT NULL COMMENT '自动保存的行程ID',
+                         `result` mediumtext CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL COMMENT '行程规划JSON',
+                         `error` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '最近一次失败原因',
+                         `created_time` datetime NULL DEFAULT NULL COMMENT '创建时间',
+                         `updated_time` datetime NULL DEFAULT NULL COMMENT '更新时间',
+                         `finished_time` datetime NULL DEFAULT NULL COMMENT '结束时间',
+                         PRIMARY KEY (`id`) USING BTREE,
+                         UNIQUE INDEX `uk_client_key`(`client_key`) USING BTREE,
+                         INDEX `idx_status_next_run`(`status`, `next_run_time`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '异步行程规划任务' ROW_FORMAT = Dynamic;
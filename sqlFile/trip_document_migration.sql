@@ -0,0 +1,31 @@
+-- ----------------------------
+-- 已有数据库升级到压缩文档存储
+-- 1. 执行本脚本第一部分建表加列；
+-- 2. 启动服务，TripDocumentMigration 会把 trip_data_json 压缩写入 trip_document 并清空旧列；
+-- 3. 确认迁移完成后再执行第二部分删除旧列。
+-- ----------------------------
+
+-- 第一部分
+ALTER TABLE `trip`
+    ADD COLUMN `destination` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '目的地（由 trip_data_json 派生）',
+    ADD COLUMN `days` int(11) NULL DEFAULT NULL COMMENT '天数（派生）',
+    ADD COLUMN `budget` double NULL DEFAULT NULL COMMENT '预算（派生）',
+    ADD COLUMN `estimated_total` double NULL DEFAULT NULL COMMENT '预计总花费（派生）',
+    ADD COLUMN `version` bigint(20) NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
+    ADD INDEX `idx_user_created`(`user_id`, `created_time`, `id`) USING BTREE,
+    ADD INDEX `idx_destination`(`destination`) USING BTREE;
+
+CREATE TABLE IF NOT EXISTS `trip_document`  (
+                         `trip_id` bigint(20) NOT NULL COMMENT '行程ID',
+                         `content` mediumblob NULL COMMENT '压缩后的行程JSON（首字节为编码版本）',
+                         `raw_size` int(11) NULL DEFAULT NULL COMMENT '压缩前字节数',
+                         `checksum` bigint(20) NULL DEFAULT NULL COMMENT '压缩前内容的CRC32',
+                         `updated_time` datetime NULL DEFAULT NULL COMMENT '更新时间',
+                         PRIMARY KEY (`trip_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci COMMENT = '行程文档（压缩存储）' ROW_FORMAT = Dynamic;
+
+-- 检查迁移是否完成（结果应为 0）
+SELECT COUNT(*) FROM `trip` WHERE `trip_data_json` IS NOT NULL;
+
+-- 第二部分（迁移完成后执行）
+-- ALTER TABLE `trip` DROP COLUMN `trip_data_json`;
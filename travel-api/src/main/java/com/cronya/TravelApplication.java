@@ -8,6 +8,6 @@ import org.springframework.context.annotation.ComponentScan;
 //@ComponentScan(basePackages = "com.cronya")
 public class TravelApplication {
     public static void main(String[] args) {
-        SpringApplication.run(TravelApplication.class);
+        SpringApplication.run(TravelApplication.class, args);
     }
 }
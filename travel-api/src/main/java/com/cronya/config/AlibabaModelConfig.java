@@ -6,9 +6,10 @@ import org.springframework.stereotype.Component;
 @Component
 @ConfigurationProperties(prefix = "alibaba.model")
 public class AlibabaModelConfig {
-    private String endpoint;
+    private String endpoint; // DashScope HTTP 接口根地址（如 https://dashscope.aliyuncs.com/api/v1），留空使用 SDK 默认值
     private String apiKey;
     private String apiSecret;
+    private String model = "qwen-plus"; // 或 "qwen-turbo" 等其他模型
 
     public String getEndpoint() { return endpoint; }
     public void setEndpoint(String endpoint) { this.endpoint = endpoint; }
@@ -18,4 +19,7 @@ public class AlibabaModelConfig {
 
     public String getApiSecret() { return apiSecret; }
     public void setApiSecret(String apiSecret) { this.apiSecret = apiSecret; }
+
+    public String getModel() { return model; }
+    public void setModel(String model) { this.model = model; }
 }
@@ -0,0 +1,111 @@
+package com.cronya.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.ObservationExecChainHandler;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.http.message.BasicHeaderElementIterator;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 百度地图 API 专用的连接池 HttpClient：
+ * 长连接复用 + 共享 SSLContext（TLS 会话可复用）+ 后台回收空闲/过期连接。
+ * 指标：每次请求的耗时与状态码（httpcomponents.httpclient.request）、新建连接的 TLS 握手耗时（map.http.tls.handshake）
+ * 以及连接池占用（httpcomponents.httpclient.pool.*）。
+ * 连接池与客户端在第一次调用百度地图时才创建，不计入启动时间。
+ */
+@Configuration
+public class BaiduHttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    @Lazy
+    public PoolingHttpClientConnectionManager baiduConnectionManager(BaiduMapConfig baiduMapConfig,
+                                                                     MeterRegistry meterRegistry) {
+        BaiduMapConfig.HttpConfig http = baiduMapConfig.getHttp();
+        Timer handshake = Timer.builder("map.http.tls.handshake")
+                .description("新建连接的 TLS 握手耗时（连接复用时不产生）")
+                .register(meterRegistry);
+
+        // 所有连接共用一个 SSLContext，握手时可命中其客户端会话缓存，省去完整握手
+        SSLContext sslContext = SSLContexts.createSystemDefault();
+        sslContext.getClientSessionContext().setSessionTimeout((int) http.getTlsSessionTimeout().toSeconds());
+
+        DefaultClientTlsStrategy tlsStrategy = new DefaultClientTlsStrategy(sslContext);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setTlsSocketStrategy((socket, target, port, attachment, context) -> {
+                    long start = System.nanoTime();
+                    SSLSocket upgraded = tlsStrategy.upgrade(socket, target, port, attachment, context);
+                    handshake.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return upgraded;
+                })
+                .setMaxConnTotal(http.getMaxTotal())
+                .setMaxConnPerRoute(http.getMaxPerRoute())
+                // LIFO：优先复用最近用过的热连接，让多余连接自然空闲后被回收
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getResponseTimeout()))
+                        .setValidateAfterInactivity(TimeValue.of(http.getValidateAfterInactivity()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "baidu").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    @Lazy
+    public CloseableHttpClient baiduHttpClient(PoolingHttpClientConnectionManager baiduConnectionManager,
+                                               BaiduMapConfig baiduMapConfig, ObservationRegistry observationRegistry) {
+        BaiduMapConfig.HttpConfig http = baiduMapConfig.getHttp();
+        TimeValue defaultKeepAlive = TimeValue.of(http.getKeepAlive());
+
+        return HttpClients.custom()
+                .setConnectionManager(baiduConnectionManager)
+                // 每次请求一个观测：计时（按状态码、结果分类）+ 作为当前链路的子 span
+                .addExecInterceptorLast("micrometer", new ObservationExecChainHandler(observationRegistry))
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.of(http.getResponseTimeout()))
+                        .build())
+                // 优先遵循服务端 Keep-Alive: timeout=N，未声明时使用配置值
+                .setKeepAliveStrategy((response, context) -> {
+                    BasicHeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator("Keep-Alive"));
+                    while (it.hasNext()) {
+                        var element = it.next();
+                        if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                            try {
+                                return TimeValue.ofSeconds(Long.parseLong(element.getValue()));
+                            } catch (NumberFormatException ignored) {
+                                // 非法值按默认处理
+                            }
+                        }
+                    }
+                    return defaultKeepAlive;
+                })
+                // 连接不绑定用户状态，任意线程都可复用
+                .disableConnectionState()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleEvict()))
+                .build();
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @ConfigurationProperties(prefix = "baidu.map")
 public class BaiduMapConfig {
@@ -23,6 +25,7 @@ public class BaiduMapConfig {
 
     public static class DrivingConfig {
         private String url;
+        private int legParallelism = 4; // 多途经点路线同时在途的分段请求数
 
         public String getUrl() {
             return url;
@@ -31,12 +34,97 @@ public class BaiduMapConfig {
         public void setUrl(String url) {
             this.url = url;
         }
+
+        public int getLegParallelism() {
+            return legParallelism;
+        }
+
+        public void setLegParallelism(int legParallelism) {
+            this.legParallelism = legParallelism;
+        }
+    }
+
+    public static class HttpConfig {
+        private int maxTotal = 64;               // 连接池总连接数
+        private int maxPerRoute = 32;            // 单个目标主机的连接数
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration responseTimeout = Duration.ofSeconds(5);
+        private Duration keepAlive = Duration.ofSeconds(60);     // 服务端未声明 Keep-Alive 时的默认保活时间
+        private Duration idleEvict = Duration.ofSeconds(30);     // 空闲超过该时间的连接由后台线程关闭
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+        private Duration tlsSessionTimeout = Duration.ofHours(1); // TLS 会话缓存时间，用于会话复用
+
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+
+        public void setMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getResponseTimeout() {
+            return responseTimeout;
+        }
+
+        public void setResponseTimeout(Duration responseTimeout) {
+            this.responseTimeout = responseTimeout;
+        }
+
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Duration keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public Duration getIdleEvict() {
+            return idleEvict;
+        }
+
+        public void setIdleEvict(Duration idleEvict) {
+            this.idleEvict = idleEvict;
+        }
+
+        public Duration getValidateAfterInactivity() {
+            return validateAfterInactivity;
+        }
+
+        public void setValidateAfterInactivity(Duration validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+        }
+
+        public Duration getTlsSessionTimeout() {
+            return tlsSessionTimeout;
+        }
+
+        public void setTlsSessionTimeout(Duration tlsSessionTimeout) {
+            this.tlsSessionTimeout = tlsSessionTimeout;
+        }
     }
 
     private ServerConfig server = new ServerConfig();
 
     private DrivingConfig driving = new DrivingConfig();
 
+    private HttpConfig http = new HttpConfig();
+
     public ServerConfig getServer() {
         return server;
     }
@@ -52,4 +140,12 @@ public class BaiduMapConfig {
     public void setDriving(DrivingConfig driving) {
         this.driving = driving;
     }
+
+    public HttpConfig getHttp() {
+        return http;
+    }
+
+    public void setHttp(HttpConfig http) {
+        this.http = http;
+    }
 }
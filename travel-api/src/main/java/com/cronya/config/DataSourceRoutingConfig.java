@@ -0,0 +1,70 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "db.routing")
+public class DataSourceRoutingConfig {
+
+    public static class ReplicaConfig {
+        private String name; // 连接池名与指标标签，留空为 replica-序号
+        private String url;
+        private String username; // 留空沿用 spring.datasource.username
+        private String password;
+        private int maximumPoolSize = 10;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+
+        public int getMaximumPoolSize() { return maximumPoolSize; }
+        public void setMaximumPoolSize(int maximumPoolSize) { this.maximumPoolSize = maximumPoolSize; }
+    }
+
+    private boolean enabled = false; // 关闭时只使用 spring.datasource 主库
+    private List<ReplicaConfig> replicas = new ArrayList<>();
+
+    // 复制延迟超过 maxLag（或无法获取）的从库不参与读，全部不可用时读主库
+    private Duration maxLag = Duration.ofSeconds(3);
+    private Duration lagCheckInterval = Duration.ofSeconds(2);
+    // 查询复制延迟的语句与列名（MySQL 5.7）；lagQuery 留空表示不检查，视为无延迟
+    private String lagQuery = "SHOW SLAVE STATUS";
+    private String lagColumn = "Seconds_Behind_Master";
+
+    // 用户或行程写入后该时长内的读请求走主库（读己之写），应不小于 maxLag + lagCheckInterval
+    private Duration stickyWindow = Duration.ofSeconds(10);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public List<ReplicaConfig> getReplicas() { return replicas; }
+    public void setReplicas(List<ReplicaConfig> replicas) { this.replicas = replicas; }
+
+    public Duration getMaxLag() { return maxLag; }
+    public void setMaxLag(Duration maxLag) { this.maxLag = maxLag; }
+
+    public Duration getLagCheckInterval() { return lagCheckInterval; }
+    public void setLagCheckInterval(Duration lagCheckInterval) { this.lagCheckInterval = lagCheckInterval; }
+
+    public String getLagQuery() { return lagQuery; }
+    public void setLagQuery(String lagQuery) { this.lagQuery = lagQuery; }
+
+    public String getLagColumn() { return lagColumn; }
+    public void setLagColumn(String lagColumn) { this.lagColumn = lagColumn; }
+
+    public Duration getStickyWindow() { return stickyWindow; }
+    public void setStickyWindow(Duration stickyWindow) { this.stickyWindow = stickyWindow; }
+}
@@ -0,0 +1,82 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "alibaba.model.routing")
+public class ModelRoutingConfig {
+
+    public static class BreakerConfig {
+        private double failureRateThreshold = 0.5; // 窗口内失败率达到该值即熔断
+        private int windowSize = 20; // 统计最近多少次调用
+        private int minimumCalls = 10; // 样本不足时不熔断
+        private Duration openDuration = Duration.ofSeconds(30); // 熔断后多久放行试探请求
+        private int halfOpenCalls = 2; // 试探请求数，全部成功才恢复
+
+        public double getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(double failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+
+        public int getMinimumCalls() { return minimumCalls; }
+        public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+
+        public int getHalfOpenCalls() { return halfOpenCalls; }
+        public void setHalfOpenCalls(int halfOpenCalls) { this.halfOpenCalls = halfOpenCalls; }
+    }
+
+    private boolean enabled = true;
+
+    // 按行程规模选首选模型：识别到的天数不超过 simpleMaxDays 时用 simpleModel，否则用 alibaba.model.model
+    private String simpleModel = "qwen-turbo";
+    private int simpleMaxDays = 2; // 0 表示不按规模区分
+
+    // 首选模型之后依次尝试的备用模型（对冲与重试都按该顺序）
+    private List<String> fallbackModels = new ArrayList<>(List.of("qwen-turbo"));
+
+    // 首个请求超过 hedgeDelay 仍未返回时向下一个模型发起对冲请求，取先返回的可用结果；0 表示不对冲
+    private Duration hedgeDelay = Duration.ofSeconds(25);
+    private int maxAttempts = 2; // 单次规划最多调用模型的次数（含对冲与重试）
+
+    // 重试预算：每个规划请求存入 retryBudgetRatio 个额度，每次对冲 / 重试消耗 1 个，余额上限 retryBudgetMax
+    private double retryBudgetRatio = 0.1;
+    private int retryBudgetMax = 10;
+
+    private BreakerConfig breaker = new BreakerConfig();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getSimpleModel() { return simpleModel; }
+    public void setSimpleModel(String simpleModel) { this.simpleModel = simpleModel; }
+
+    public int getSimpleMaxDays() { return simpleMaxDays; }
+    public void setSimpleMaxDays(int simpleMaxDays) { this.simpleMaxDays = simpleMaxDays; }
+
+    public List<String> getFallbackModels() { return fallbackModels; }
+    public void setFallbackModels(List<String> fallbackModels) { this.fallbackModels = fallbackModels; }
+
+    public Duration getHedgeDelay() { return hedgeDelay; }
+    public void setHedgeDelay(Duration hedgeDelay) { this.hedgeDelay = hedgeDelay; }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+    public double getRetryBudgetRatio() { return retryBudgetRatio; }
+    public void setRetryBudgetRatio(double retryBudgetRatio) { this.retryBudgetRatio = retryBudgetRatio; }
+
+    public int getRetryBudgetMax() { return retryBudgetMax; }
+    public void setRetryBudgetMax(int retryBudgetMax) { this.retryBudgetMax = retryBudgetMax; }
+
+    public BreakerConfig getBreaker() { return breaker; }
+    public void setBreaker(BreakerConfig breaker) { this.breaker = breaker; }
+}
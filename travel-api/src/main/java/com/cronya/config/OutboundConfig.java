@@ -0,0 +1,49 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "outbound")
+public class OutboundConfig {
+
+    public enum RejectionPolicy {
+        ABORT,       // 直接失败，快速返回
+        CALLER_RUNS  // 在调用线程上执行（会占用请求线程，仅用于兜底）
+    }
+
+    public static class BulkheadConfig {
+        private int maxConcurrent = 16;
+        private int queueDepth = 64;
+        private Duration timeout = Duration.ofSeconds(30);
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public int getQueueDepth() { return queueDepth; }
+        public void setQueueDepth(int queueDepth) { this.queueDepth = queueDepth; }
+
+        public Duration getTimeout() { return timeout; }
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+        public RejectionPolicy getRejectionPolicy() { return rejectionPolicy; }
+        public void setRejectionPolicy(RejectionPolicy rejectionPolicy) { this.rejectionPolicy = rejectionPolicy; }
+    }
+
+    // 运行在 Java 21+ 时使用虚拟线程，否则退回平台线程
+    private boolean virtualThreads = true;
+
+    // 每个外部依赖一个隔离舱，key 为依赖名（model / map）
+    private Map<String, BulkheadConfig> bulkheads = new LinkedHashMap<>();
+
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+
+    public Map<String, BulkheadConfig> getBulkheads() { return bulkheads; }
+    public void setBulkheads(Map<String, BulkheadConfig> bulkheads) { this.bulkheads = bulkheads; }
+}
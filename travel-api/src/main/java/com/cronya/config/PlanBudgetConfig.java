@@ -0,0 +1,21 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "plan.budget")
+public class PlanBudgetConfig {
+    private boolean reconcile = true;   // 本地重新计算所有金额汇总并填写 verification
+    private boolean slimPrompt = true;  // 使用不含汇总/校验要求的精简提示词（开启时始终进行本地校正）
+    private boolean statsHint = true;   // 精简提示词中附带同目的地已有行程的花费统计，代替经验预算规则
+
+    public boolean isReconcile() { return reconcile; }
+    public void setReconcile(boolean reconcile) { this.reconcile = reconcile; }
+
+    public boolean isSlimPrompt() { return slimPrompt; }
+    public void setSlimPrompt(boolean slimPrompt) { this.slimPrompt = slimPrompt; }
+
+    public boolean isStatsHint() { return statsHint; }
+    public void setStatsHint(boolean statsHint) { this.statsHint = statsHint; }
+}
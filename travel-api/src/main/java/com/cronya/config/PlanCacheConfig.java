@@ -0,0 +1,50 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "plan.cache")
+public class PlanCacheConfig {
+
+    public static class TierConfig {
+        private long maxSize;
+        private Duration ttl;
+
+        public TierConfig(long maxSize, Duration ttl) {
+            this.maxSize = maxSize;
+            this.ttl = ttl;
+        }
+
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+    }
+
+    private boolean enabled = true;
+
+    // 第一层：规范化原文 + 模型名 精确匹配
+    private TierConfig exact = new TierConfig(10_000, Duration.ofHours(24));
+
+    // 第二层：按提取出的意图字段匹配
+    private TierConfig intent = new TierConfig(5_000, Duration.ofHours(6));
+
+    // 预算分桶粒度（元），同一桶内的预算视为相同意图
+    private int budgetBucket = 1000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public TierConfig getExact() { return exact; }
+    public void setExact(TierConfig exact) { this.exact = exact; }
+
+    public TierConfig getIntent() { return intent; }
+    public void setIntent(TierConfig intent) { this.intent = intent; }
+
+    public int getBudgetBucket() { return budgetBucket; }
+    public void setBudgetBucket(int budgetBucket) { this.budgetBucket = budgetBucket; }
+}
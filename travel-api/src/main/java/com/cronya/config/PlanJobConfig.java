@@ -0,0 +1,47 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "plan.jobs")
+public class PlanJobConfig {
+    private boolean enabled = true;     // 关闭后本节点只接受提交、不执行任务
+    private int workers = 4;            // 本节点同时执行的任务数
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private Duration lease = Duration.ofMinutes(2); // 租约时长，执行期间每 1/3 租约续一次
+    private int maxAttempts = 3;
+    private Duration retryBackoff = Duration.ofSeconds(10); // 第 n 次重试等待 retryBackoff * 2^(n-1)
+    private Duration maxWait = Duration.ofSeconds(60);      // 长轮询最多挂起的时长
+    private Duration shutdownGrace = Duration.ofSeconds(30); // 停机时等待执行中任务完成的时长，超时后归还
+    private Duration retention = Duration.ofDays(7);         // 已结束任务的保留时长
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+
+    public Duration getPollInterval() { return pollInterval; }
+    public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+
+    public Duration getLease() { return lease; }
+    public void setLease(Duration lease) { this.lease = lease; }
+
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+    public Duration getRetryBackoff() { return retryBackoff; }
+    public void setRetryBackoff(Duration retryBackoff) { this.retryBackoff = retryBackoff; }
+
+    public Duration getMaxWait() { return maxWait; }
+    public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+
+    public Duration getShutdownGrace() { return shutdownGrace; }
+    public void setShutdownGrace(Duration shutdownGrace) { this.shutdownGrace = shutdownGrace; }
+
+    public Duration getRetention() { return retention; }
+    public void setRetention(Duration retention) { this.retention = retention; }
+}
@@ -0,0 +1,25 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "plan.optimizer")
+public class PlanOptimizerConfig {
+    private boolean enabled = true;
+    // 这些类别的行程保持原时段不动（如午餐、晚餐），其余行程在锚点之间重排；每天首尾的住宿始终固定
+    private List<String> anchorCategories = new ArrayList<>(List.of("餐饮"));
+    private int maxRounds = 50; // 2-opt / Or-opt 局部搜索最大轮数
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public List<String> getAnchorCategories() { return anchorCategories; }
+    public void setAnchorCategories(List<String> anchorCategories) { this.anchorCategories = anchorCategories; }
+
+    public int getMaxRounds() { return maxRounds; }
+    public void setMaxRounds(int maxRounds) { this.maxRounds = maxRounds; }
+}
@@ -0,0 +1,69 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "plan.rate-limit")
+public class PlanRateLimitConfig {
+    private boolean enabled = true;
+
+    // 全局（对应大模型配额）：初始速率与自适应范围，单位 次/秒
+    private double rate = 2;
+    private double minRate = 0.2;
+    private double maxRate = 10;
+    private int burst = 5;
+    private Duration maxWait = Duration.ofSeconds(5); // 全局令牌不足时最多排队等待的时长
+
+    // AIMD：每个窗口内被限流且上游健康则加 increaseStep；上游 429 或平均耗时超过 latencyTarget 则乘以 decreaseFactor
+    private Duration window = Duration.ofSeconds(10);
+    private double increaseStep = 0.2;
+    private double decreaseFactor = 0.7;
+    private Duration latencyTarget = Duration.ofSeconds(45);
+
+    // 单用户（按 X-User-Id / 请求体 userId / 客户端 IP 区分），超出直接拒绝，不排队
+    private double userRate = 0.1;
+    private int userBurst = 3;
+    private long userCacheSize = 100_000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public double getRate() { return rate; }
+    public void setRate(double rate) { this.rate = rate; }
+
+    public double getMinRate() { return minRate; }
+    public void setMinRate(double minRate) { this.minRate = minRate; }
+
+    public double getMaxRate() { return maxRate; }
+    public void setMaxRate(double maxRate) { this.maxRate = maxRate; }
+
+    public int getBurst() { return burst; }
+    public void setBurst(int burst) { this.burst = burst; }
+
+    public Duration getMaxWait() { return maxWait; }
+    public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+
+    public Duration getWindow() { return window; }
+    public void setWindow(Duration window) { this.window = window; }
+
+    public double getIncreaseStep() { return increaseStep; }
+    public void setIncreaseStep(double increaseStep) { this.increaseStep = increaseStep; }
+
+    public double getDecreaseFactor() { return decreaseFactor; }
+    public void setDecreaseFactor(double decreaseFactor) { this.decreaseFactor = decreaseFactor; }
+
+    public Duration getLatencyTarget() { return latencyTarget; }
+    public void setLatencyTarget(Duration latencyTarget) { this.latencyTarget = latencyTarget; }
+
+    public double getUserRate() { return userRate; }
+    public void setUserRate(double userRate) { this.userRate = userRate; }
+
+    public int getUserBurst() { return userBurst; }
+    public void setUserBurst(int userBurst) { this.userBurst = userBurst; }
+
+    public long getUserCacheSize() { return userCacheSize; }
+    public void setUserCacheSize(long userCacheSize) { this.userCacheSize = userCacheSize; }
+}
@@ -0,0 +1,21 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "poi.index")
+public class PoiIndexConfig {
+    private double cellSize = 0.01;      // 网格边长（度），约 1 公里
+    private int mergeThreshold = 20_000; // 增量层点数超过该值时并入基础层
+    private int maxRadius = 50_000;      // 最近邻查询的最大搜索半径（米）
+
+    public double getCellSize() { return cellSize; }
+    public void setCellSize(double cellSize) { this.cellSize = cellSize; }
+
+    public int getMergeThreshold() { return mergeThreshold; }
+    public void setMergeThreshold(int mergeThreshold) { this.mergeThreshold = mergeThreshold; }
+
+    public int getMaxRadius() { return maxRadius; }
+    public void setMaxRadius(int maxRadius) { this.maxRadius = maxRadius; }
+}
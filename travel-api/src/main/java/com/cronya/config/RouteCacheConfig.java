@@ -0,0 +1,35 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "route.cache")
+public class RouteCacheConfig {
+    private boolean enabled = true;
+    private double grid = 1e-4;                       // 坐标量化网格（度），约 10 米
+    private long maxSize = 20_000;                    // 内存层最大条目数
+    private Duration ttl = Duration.ofDays(7);        // 单条缓存有效期
+    private boolean persistent = true;                // 是否写入数据库持久层
+    private int warmStartSize = 5_000;                // 启动时从持久层预热的条目数
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public double getGrid() { return grid; }
+    public void setGrid(double grid) { this.grid = grid; }
+
+    public long getMaxSize() { return maxSize; }
+    public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+    public boolean isPersistent() { return persistent; }
+    public void setPersistent(boolean persistent) { this.persistent = persistent; }
+
+    public int getWarmStartSize() { return warmStartSize; }
+    public void setWarmStartSize(int warmStartSize) { this.warmStartSize = warmStartSize; }
+}
@@ -0,0 +1,68 @@
+package com.cronya.config;
+
+import com.cronya.repository.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * db.routing.enabled=true 时替换 Spring Boot 默认的单数据源：主库与每个从库各自一个 Hikari 连接池，
+ * 公共参数取自 spring.datasource.hikari，从库可单独设置 maximum-pool-size。
+ * 各连接池的指标为 hikaricp.connections.*，pool 标签为 primary 或从库名。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "db.routing", name = "enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, DataSourceRoutingConfig routing,
+                                               Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource primary = pool(environment, meterRegistry, "primary", properties.determineUrl(),
+                properties.determineUsername(), properties.determinePassword(), properties.determineDriverClassName());
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<DataSourceRoutingConfig.ReplicaConfig> configs = routing.getReplicas();
+        for (int i = 0; i < configs.size(); i++) {
+            DataSourceRoutingConfig.ReplicaConfig replica = configs.get(i);
+            if (replica.getUrl() == null || replica.getUrl().isBlank()) {
+                throw new IllegalStateException("db.routing.replicas[" + i + "].url 不能为空");
+            }
+            String name = replica.getName() != null && !replica.getName().isBlank() ? replica.getName() : "replica-" + i;
+            HikariDataSource pool = pool(environment, meterRegistry, name, replica.getUrl(),
+                    replica.getUsername() != null ? replica.getUsername() : properties.determineUsername(),
+                    replica.getPassword() != null ? replica.getPassword() : properties.determinePassword(),
+                    properties.determineDriverClassName());
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            // 从库不可达时不阻塞启动，由延迟检查标记为不可用
+            pool.setInitializationFailTimeout(-1);
+            replicas.put(name, pool);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, routing, meterRegistry);
+    }
+
+    // 与 Spring Boot 默认一样，连接池在第一次取连接时才启动
+    private static HikariDataSource pool(Environment environment, MeterRegistry meterRegistry, String name, String url,
+                                     String username, String password, String driverClassName) {
+        HikariDataSource hikari = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(hikari));
+        hikari.setPoolName(name);
+        hikari.setJdbcUrl(url);
+        hikari.setUsername(username);
+        hikari.setPassword(password);
+        hikari.setDriverClassName(driverClassName);
+        hikari.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return hikari;
+    }
+}
@@ -0,0 +1,21 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "trip.bulk")
+public class TripBulkConfig {
+    private int batchSize = 500;  // 导入时每批 JDBC 批量插入的行程数（每批一个事务）
+    private int flushEvery = 200; // 导出时每写出多少行刷新一次响应流
+    private int maxErrors = 100;  // 导入结果中最多返回的错误行数
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public int getFlushEvery() { return flushEvery; }
+    public void setFlushEvery(int flushEvery) { this.flushEvery = flushEvery; }
+
+    public int getMaxErrors() { return maxErrors; }
+    public void setMaxErrors(int maxErrors) { this.maxErrors = maxErrors; }
+}
@@ -0,0 +1,40 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "trip.cache")
+public class TripCacheConfig {
+    private boolean enabled = true;
+    private DataSize maxSize = DataSize.ofMegabytes(64); // 按序列化后的字节数（含压缩副本）计算容量
+    private Duration ttl = Duration.ofMinutes(30);       // 兜底过期，正常情况下由写入事件精确失效
+    private DataSize gzipMinSize = DataSize.ofKilobytes(1); // 小于该值的响应不预压缩
+
+    // 其他节点的根地址（如 http://10.0.0.2:8080），行程变化后异步通知它们失效本地缓存；为空时只失效本机
+    private List<String> peers = new ArrayList<>();
+    private Duration peerTimeout = Duration.ofSeconds(2);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public DataSize getMaxSize() { return maxSize; }
+    public void setMaxSize(DataSize maxSize) { this.maxSize = maxSize; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+    public DataSize getGzipMinSize() { return gzipMinSize; }
+    public void setGzipMinSize(DataSize gzipMinSize) { this.gzipMinSize = gzipMinSize; }
+
+    public List<String> getPeers() { return peers; }
+    public void setPeers(List<String> peers) { this.peers = peers; }
+
+    public Duration getPeerTimeout() { return peerTimeout; }
+    public void setPeerTimeout(Duration peerTimeout) { this.peerTimeout = peerTimeout; }
+}
@@ -0,0 +1,27 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "trip.search")
+public class TripSearchConfig {
+    private String indexDir = "data/trip-index"; // 索引目录；留空时使用内存索引（重启后需重建）
+    private boolean rebuildOnStartup = true;      // 启动时索引为空则从数据库全量重建
+    private int rebuildBatchSize = 500;
+    private Duration commitInterval = Duration.ofSeconds(10); // 增量写入只做 NRT 刷新，按该间隔落盘
+
+    public String getIndexDir() { return indexDir; }
+    public void setIndexDir(String indexDir) { this.indexDir = indexDir; }
+
+    public boolean isRebuildOnStartup() { return rebuildOnStartup; }
+    public void setRebuildOnStartup(boolean rebuildOnStartup) { this.rebuildOnStartup = rebuildOnStartup; }
+
+    public int getRebuildBatchSize() { return rebuildBatchSize; }
+    public void setRebuildBatchSize(int rebuildBatchSize) { this.rebuildBatchSize = rebuildBatchSize; }
+
+    public Duration getCommitInterval() { return commitInterval; }
+    public void setCommitInterval(Duration commitInterval) { this.commitInterval = commitInterval; }
+}
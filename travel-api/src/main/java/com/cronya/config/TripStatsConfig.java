@@ -0,0 +1,33 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "trip.stats")
+public class TripStatsConfig {
+    private boolean enabled = true;
+    private boolean backfillOnStartup = true; // 启动后在后台从已保存行程全量统计一次
+    private int backfillBatchSize = 500;
+    private int backfillParallelism = 4;      // 并行解析文档的线程数
+    private int maxGroups = 5000;             // 目的地 × 季节 × 同行人组合数上限，超出的新组合不再统计
+    private int minSamples = 5;               // 样本少于该值的组合不对外提供，退回到更粗的组合
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isBackfillOnStartup() { return backfillOnStartup; }
+    public void setBackfillOnStartup(boolean backfillOnStartup) { this.backfillOnStartup = backfillOnStartup; }
+
+    public int getBackfillBatchSize() { return backfillBatchSize; }
+    public void setBackfillBatchSize(int backfillBatchSize) { this.backfillBatchSize = backfillBatchSize; }
+
+    public int getBackfillParallelism() { return backfillParallelism; }
+    public void setBackfillParallelism(int backfillParallelism) { this.backfillParallelism = backfillParallelism; }
+
+    public int getMaxGroups() { return maxGroups; }
+    public void setMaxGroups(int maxGroups) { this.maxGroups = maxGroups; }
+
+    public int getMinSamples() { return minSamples; }
+    public void setMinSamples(int minSamples) { this.minSamples = minSamples; }
+}
@@ -0,0 +1,17 @@
+package com.cronya.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "trip.storage")
+public class TripStorageConfig {
+    private boolean migrateOnStartup = true;  // 启动时把 trip.trip_data_json 中的旧数据迁移到 trip_document
+    private int migrationBatchSize = 100;
+
+    public boolean isMigrateOnStartup() { return migrateOnStartup; }
+    public void setMigrateOnStartup(boolean migrateOnStartup) { this.migrateOnStartup = migrateOnStartup; }
+
+    public int getMigrationBatchSize() { return migrationBatchSize; }
+    public void setMigrationBatchSize(int migrationBatchSize) { this.migrationBatchSize = migrationBatchSize; }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
@@ -22,7 +23,7 @@ public class BaiduMapController {
     }
 
     @PostMapping("/route")
-    public String getDrivingRoute(@RequestBody Map<String, String> params) {
-        return baiduMapService.getDrivingRoute(params);
+    public CompletableFuture<String> getDrivingRoute(@RequestBody Map<String, String> params) {
+        return baiduMapService.getDrivingRouteAsync(params);
     }
 }
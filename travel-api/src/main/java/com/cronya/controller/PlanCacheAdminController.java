@@ -0,0 +1,34 @@
+package com.cronya.controller;
+
+import com.cronya.service.TripPlanCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/planCache")
+public class PlanCacheAdminController {
+
+    private final TripPlanCache planCache;
+
+    public PlanCacheAdminController(TripPlanCache planCache) {
+        this.planCache = planCache;
+    }
+
+    // 查看两层缓存的容量与命中率
+    @GetMapping
+    public Map<String, Object> stats() {
+        return planCache.stats();
+    }
+
+    // 清空缓存；传 destination 时只失效该目的地
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> invalidate(@RequestParam(required = false) String destination) {
+        if (destination == null || destination.isBlank()) {
+            planCache.invalidateAll();
+            return ResponseEntity.ok(Map.of("invalidated", "all"));
+        }
+        return ResponseEntity.ok(Map.of("invalidated", planCache.invalidateDestination(destination)));
+    }
+}
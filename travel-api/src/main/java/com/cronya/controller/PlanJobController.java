@@ -0,0 +1,111 @@
+package com.cronya.controller;
+
+import com.cronya.domain.PlanJob;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.outbound.PlanRateLimiter;
+import com.cronya.service.PlanJobService;
+import com.cronya.service.PlanJobWorker;
+import com.cronya.service.TripPlanService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/planJobs")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = {HttpHeaders.LOCATION, HttpHeaders.RETRY_AFTER})
+public class PlanJobController {
+
+    /**
+     * @param clientKey  幂等键，也可以通过 Idempotency-Key 请求头传入
+     * @param saveAsTrip 成功后自动保存为行程（需要 userId）
+     */
+    public record PlanJobRequest(String rawText, String clientKey, String userId, Boolean saveAsTrip, String tripName) {
+    }
+
+    private final PlanJobService jobService;
+    private final PlanJobWorker jobWorker;
+    private final TripPlanService tripPlanService;
+    private final PlanRateLimiter rateLimiter;
+
+    public PlanJobController(PlanJobService jobService, PlanJobWorker jobWorker, TripPlanService tripPlanService,
+                             PlanRateLimiter rateLimiter) {
+        this.jobService = jobService;
+        this.jobWorker = jobWorker;
+        this.tripPlanService = tripPlanService;
+        this.rateLimiter = rateLimiter;
+    }
+
+    // 提交规划任务：新任务返回 202 + Location，幂等键命中返回 200 与已有任务；超出准入限制返回 429
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submit(@RequestBody PlanJobRequest request,
+                                                      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                      HttpServletRequest httpRequest) {
+        String clientKey = request.clientKey() != null ? request.clientKey() : idempotencyKey;
+        if (clientKey == null || jobService.findByClientKey(clientKey).isEmpty()) {
+            // 缓存命中的任务不消耗上游配额；排队等待由任务队列承担，这里只做准入
+            if (request.rawText() != null && tripPlanService.getCached(request.rawText()) == null) {
+                PlanRateLimiter.Admission admission = rateLimiter.acquire(
+                        TripPlannerController.clientKey(request.userId(), httpRequest));
+                if (!admission.allowed()) {
+                    return TripPlannerController.tooManyRequests(admission)
+                            .body(Map.of("error", TripPlannerController.rejectMessage(admission)));
+                }
+            }
+        }
+
+        PlanJobService.Submitted submitted;
+        try {
+            submitted = jobService.submit(request.rawText(), clientKey, request.userId(),
+                    Boolean.TRUE.equals(request.saveAsTrip()), request.tripName());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (!submitted.created()) {
+            return ResponseEntity.ok(view(submitted.job()));
+        }
+        jobWorker.wakeUp();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/planJobs/" + submitted.job().getId()))
+                .body(view(submitted.job()));
+    }
+
+    // 查询任务状态；wait 为长轮询秒数（上限见 plan.jobs.max-wait），任务结束或超时后返回
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> get(@PathVariable Long id,
+                                                                      @RequestParam(defaultValue = "0") long wait) {
+        return jobService.await(id, Duration.ofSeconds(Math.max(0, wait)))
+                .thenApply(job -> job == null
+                        ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "任务不存在"))
+                        : ResponseEntity.ok(view(job)));
+    }
+
+    private static Map<String, Object> view(PlanJob job) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", job.getId());
+        view.put("clientKey", job.getClientKey());
+        view.put("status", job.getStatus());
+        view.put("attempts", job.getAttempts());
+        view.put("createdTime", job.getCreatedTime());
+        view.put("finishedTime", job.getFinishedTime());
+        view.put("error", job.getError());
+        view.put("tripId", job.getTripId());
+        if (job.getResult() != null) {
+            try {
+                view.put("result", TripPlanCodec.read(job.getResult()));
+            } catch (IOException e) {
+                view.put("result", TripPlan.error("任务结果无法解析", job.getResult()));
+            }
+        }
+        return view;
+    }
+}
@@ -0,0 +1,54 @@
+package com.cronya.controller;
+
+import com.cronya.service.PoiIndex;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/poi")
+@CrossOrigin(origins = "http://localhost:3000")
+public class PoiController {
+
+    private static final int MAX_RESULTS = 200;
+
+    private final PoiIndex poiIndex;
+
+    public PoiController(PoiIndex poiIndex) {
+        this.poiIndex = poiIndex;
+    }
+
+    // 附近的地点：所有已保存行程中 radius 米内出现过的地点（同名合并），按距离升序
+    @GetMapping("/nearby")
+    public ResponseEntity<?> nearby(@RequestParam double lat, @RequestParam double lng,
+                                    @RequestParam(defaultValue = "1000") double radius,
+                                    @RequestParam(required = false) String category,
+                                    @RequestParam(defaultValue = "50") int limit) {
+        if (!validCenter(lat, lng) || radius <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "坐标或半径无效"));
+        }
+        return ResponseEntity.ok(poiIndex.nearby(lat, lng, radius, category, Math.max(1, Math.min(limit, MAX_RESULTS))));
+    }
+
+    // 最近的 k 个地点
+    @GetMapping("/nearest")
+    public ResponseEntity<?> nearest(@RequestParam double lat, @RequestParam double lng,
+                                     @RequestParam(defaultValue = "10") int k,
+                                     @RequestParam(required = false) String category) {
+        if (!validCenter(lat, lng)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "坐标无效"));
+        }
+        return ResponseEntity.ok(poiIndex.nearest(lat, lng, Math.max(1, Math.min(k, MAX_RESULTS)), category));
+    }
+
+    // 索引规模与内存占用
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return poiIndex.stats();
+    }
+
+    private static boolean validCenter(double lat, double lng) {
+        return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cronya.controller;
+
+import com.cronya.service.ReadConsistency;
+import com.cronya.service.TripResponseCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/tripCache")
+public class TripCacheAdminController {
+
+    public record Invalidation(List<Long> tripIds, List<String> userIds) {
+    }
+
+    private final TripResponseCache tripResponseCache;
+    private final ReadConsistency readConsistency;
+
+    public TripCacheAdminController(TripResponseCache tripResponseCache, ReadConsistency readConsistency) {
+        this.tripResponseCache = tripResponseCache;
+        this.readConsistency = readConsistency;
+    }
+
+    // 查看行程响应缓存的容量与命中率
+    @GetMapping
+    public Map<String, Object> stats() {
+        return tripResponseCache.stats();
+    }
+
+    // 其他节点写入行程后的失效通知，只作用于本机；随后的重新加载同样走主库，避免从库旧数据回填缓存
+    @PostMapping("/invalidate")
+    public ResponseEntity<Void> invalidate(@RequestBody Invalidation invalidation) {
+        List<Long> tripIds = invalidation.tripIds() == null ? List.of() : invalidation.tripIds();
+        List<String> userIds = invalidation.userIds() == null ? List.of() : invalidation.userIds();
+        readConsistency.markWritten(tripIds, userIds);
+        tripResponseCache.invalidate(tripIds, userIds);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 清空缓存
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> invalidateAll() {
+        tripResponseCache.invalidateAll();
+        return ResponseEntity.ok(Map.of("invalidated", "all"));
+    }
+}
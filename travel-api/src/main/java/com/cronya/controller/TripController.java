@@ -1,22 +1,43 @@
 package com.cronya.controller;
 
 import com.cronya.domain.Trip;
+import com.cronya.service.TripBulkService;
+import com.cronya.service.TripResponseCache;
+import com.cronya.service.TripSearchIndex;
 import com.cronya.service.TripService;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/trips")
-@CrossOrigin(origins = "http://localhost:3000") // 允许前端跨域访问
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = HttpHeaders.ETAG) // 允许前端跨域访问
 public class TripController {
 
     @Autowired
     private TripService tripService;
 
+    @Autowired
+    private TripBulkService tripBulkService;
+
+    @Autowired
+    private TripSearchIndex tripSearchIndex;
+
+    @Autowired
+    private TripResponseCache tripResponseCache;
+
     // 1. 创建行程
     @PostMapping
     public ResponseEntity<Trip> createTrip(@RequestBody Trip trip) {
@@ -24,10 +45,12 @@ public class TripController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedTrip);
     }
 
-    // 2. 获取单个行程
+    // 2. 获取单个行程（ETag 为版本号，供 PATCH 的 If-Match 使用）；走响应缓存，If-None-Match 匹配时返回 304
     @GetMapping("/{id}")
-    public ResponseEntity<Trip> getTrip(@PathVariable Long id) {
-        return ResponseEntity.ok(tripService.getTripById(id));
+    public ResponseEntity<byte[]> getTrip(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return cached(tripResponseCache.trip(id), ifNoneMatch, acceptEncoding);
     }
 
     // 3. 获取所有行程
@@ -42,6 +65,28 @@ public class TripController {
         return ResponseEntity.ok(tripService.updateTrip(id, trip));
     }
 
+    // 4.1 局部更新行程（RFC 6902 JSON Patch），必须携带 If-Match: "<版本号>"；
+    //     路径限于 /tripName 与 /tripData/...，例如 {"op":"replace","path":"/tripData/tripPlan/0/segments/1/cost","value":80}。
+    //     响应只返回元数据与新 ETag，不回传完整行程
+    @PatchMapping(value = "/{id}", consumes = {"application/json-patch+json", "application/json"})
+    public ResponseEntity<?> patchTrip(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @RequestBody JsonNode patch) {
+        Long version = parseVersion(ifMatch);
+        if (version == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                    .body(Map.of("error", "缺少 If-Match 版本号"));
+        }
+        try {
+            Trip trip = tripService.patchTrip(id, version, patch);
+            return ResponseEntity.ok().eTag(String.valueOf(trip.getVersion())).body(trip);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.unprocessableEntity().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // 5. 删除行程
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTrip(@PathVariable Long id) {
@@ -49,11 +94,99 @@ public class TripController {
         return ResponseEntity.noContent().build();
     }
 
-    // 通过 userId 获取所有行程
+    // 通过 userId 获取所有行程（一次返回全部完整数据，行程较多时建议改用下面的分页接口）
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Trip>> getTripsByUser(@PathVariable String userId) {
-        List<Trip> trips = tripService.getTripsByUserId(userId);
-        return ResponseEntity.ok(trips);
+    public ResponseEntity<byte[]> getTripsByUser(@PathVariable String userId,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return cached(tripResponseCache.userTrips(userId), ifNoneMatch, acceptEncoding);
+    }
+
+    // 通过 userId 分页获取行程：cursor 为上一页返回的 nextCursor；fields 逗号分隔，默认只返回摘要字段，
+    // 需要完整数据时显式加上 tripDataJson
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<Map<String, Object>> getTripPage(@PathVariable String userId,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "20") int limit,
+                                                           @RequestParam(required = false) String fields) {
+        try {
+            return ResponseEntity.ok(tripService.listTrips(userId, cursor, limit, fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 搜索行程（走本地索引，不查数据库）：q 为全文关键词（活动 / 地点 / 目的地 / 行程名）；
+    // category、destination、season 为分面过滤；minCost/maxCost 作用于总花费；bbox=minLat,minLng,maxLat,maxLng。
+    // 返回命中行程摘要与各分面计数
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchTrips(@RequestParam(required = false) String q,
+                                                           @RequestParam(required = false) String userId,
+                                                           @RequestParam(required = false) String category,
+                                                           @RequestParam(required = false) String destination,
+                                                           @RequestParam(required = false) String season,
+                                                           @RequestParam(required = false) Double minCost,
+                                                           @RequestParam(required = false) Double maxCost,
+                                                           @RequestParam(required = false) Integer minDays,
+                                                           @RequestParam(required = false) Integer maxDays,
+                                                           @RequestParam(required = false) double[] bbox,
+                                                           @RequestParam(defaultValue = "20") int limit) throws IOException {
+        try {
+            return ResponseEntity.ok(tripSearchIndex.search(new TripSearchIndex.SearchRequest(q, userId, category,
+                    destination, season, minCost, maxCost, minDays, maxDays, bbox, limit)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // 批量导入：请求体为 NDJSON（每行一个行程），边读边分批写入，返回导入数与出错行
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "application/json", "text/plain"})
+    public ResponseEntity<Map<String, Object>> importTrips(InputStream body) throws IOException {
+        return ResponseEntity.ok(tripBulkService.importTrips(body));
+    }
+
+    // 批量导出：逐行写出 NDJSON，userId 为空时导出全部（直接写响应流，不受异步请求超时限制）
+    @GetMapping("/export")
+    public void exportTrips(@RequestParam(required = false) String userId, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"trips.ndjson\"");
+        tripBulkService.exportTrips(userId, response.getOutputStream());
+    }
+
+    /**
+     * 缓存的响应体原样写出：ETag 匹配返回 304；客户端支持 gzip 且有预压缩副本时直接返回压缩字节。
+     * no-cache 让浏览器每次都带 If-None-Match 重新验证
+     */
+    private static ResponseEntity<byte[]> cached(TripResponseCache.CachedResponse response, String ifNoneMatch,
+                                                 String acceptEncoding) {
+        if (response.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.etag()).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(response.etag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (response.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+        }
+        return builder.body(response.body());
+    }
+
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
 }
@@ -0,0 +1,35 @@
+package com.cronya.controller;
+
+import com.cronya.service.TripIndexer;
+import com.cronya.service.TripSearchIndex;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/tripIndex")
+public class TripIndexAdminController {
+
+    private final TripSearchIndex index;
+    private final TripIndexer indexer;
+
+    public TripIndexAdminController(TripSearchIndex index, TripIndexer indexer) {
+        this.index = index;
+        this.indexer = indexer;
+    }
+
+    // 查看索引中的行程数
+    @GetMapping
+    public Map<String, Object> stats() throws IOException {
+        return Map.of("docs", index.count());
+    }
+
+    // 从数据库全量重建搜索索引与地点索引
+    @PostMapping("/rebuild")
+    public Map<String, Object> rebuild() {
+        long start = System.currentTimeMillis();
+        long count = indexer.rebuild();
+        return Map.of("indexed", count, "tookMs", System.currentTimeMillis() - start);
+    }
+}
@@ -1,24 +1,168 @@
 package com.cronya.controller;
 
+import com.cronya.model.TripPlan;
+import com.cronya.outbound.PlanRateLimiter;
 import com.cronya.service.TripPlanService;
+import com.cronya.service.TripPlanStreamListener;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/api")
-@CrossOrigin(origins = "http://localhost:3000")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = HttpHeaders.RETRY_AFTER)
 public class TripPlannerController {
 
+    private static final Logger log = LoggerFactory.getLogger(TripPlannerController.class);
+
+    // 模型整段生成通常在 20~60 秒，留足余量
+    private static final long STREAM_TIMEOUT_MS = 180_000L;
+
     private final TripPlanService tripPlanService;
+    private final PlanRateLimiter rateLimiter;
 
-    public TripPlannerController(TripPlanService tripPlanService) {
+    public TripPlannerController(TripPlanService tripPlanService, PlanRateLimiter rateLimiter) {
         this.tripPlanService = tripPlanService;
+        this.rateLimiter = rateLimiter;
     }
 
+    /**
+     * 缓存命中直接返回；否则经过准入控制，超限时返回 429 + Retry-After（响应体仍为带 error 的行程结构）
+     */
     @PostMapping("/planTrip")
-    public Map<String, Object> planTrip(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<TripPlan>> planTrip(@RequestBody Map<String, String> request,
+                                                                HttpServletRequest httpRequest) {
+        String rawText = request.get("rawText");
+        TripPlan cached = tripPlanService.getCached(rawText);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(cached));
+        }
+
+        PlanRateLimiter.Admission admission = rateLimiter.acquire(clientKey(request.get("userId"), httpRequest));
+        if (!admission.allowed()) {
+            return CompletableFuture.completedFuture(tooManyRequests(admission).body(TripPlan.error(rejectMessage(admission))));
+        }
+        return rateLimiter.schedule(admission, () -> tripPlanService.generateTripPlanAsync(rawText))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * 流式行程规划（SSE）：
+     * 事件 userProfile / tripIntent / day / budgetAnalysis 在对应片段生成完毕时推送，
+     * 最后推送 done（完整结果）或 error。请求线程在发起调用后立即释放。
+     * 准入控制同 /planTrip，超限时状态码为 429 并推送一条 error 事件。
+     */
+    @PostMapping(value = "/planTrip/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> planTripStream(@RequestBody Map<String, String> request,
+                                                     HttpServletRequest httpRequest) {
         String rawText = request.get("rawText");
-        return tripPlanService.generateTripPlan(rawText);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        TripPlanStreamListener listener = streamListener(emitter);
+
+        if (tripPlanService.getCached(rawText) == null) {
+            PlanRateLimiter.Admission admission = rateLimiter.acquire(clientKey(request.get("userId"), httpRequest));
+            if (!admission.allowed()) {
+                listener.onError(rejectMessage(admission));
+                return tooManyRequests(admission).body(emitter);
+            }
+            // 排队后在定时线程上发起，异常不会传回请求线程，必须通过 listener 推送 error 事件，否则客户端会一直等到超时
+            rateLimiter.schedule(admission, () -> {
+                try {
+                    tripPlanService.streamTripPlan(rawText, listener);
+                } catch (RuntimeException e) {
+                    log.warn("发起流式规划失败", e);
+                    listener.onError("规划失败: " + e.getMessage());
+                }
+                return CompletableFuture.completedFuture(null);
+            });
+            return ResponseEntity.ok(emitter);
+        }
+        tripPlanService.streamTripPlan(rawText, listener);
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * 客户端断开、超时或连接出错后标记为已关闭：不再推送，生成端据此跳过逐天的优化与校正（结束时仍写入缓存）
+     */
+    private TripPlanStreamListener streamListener(SseEmitter emitter) {
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        emitter.onCompletion(() -> closed.set(true));
+        return new TripPlanStreamListener() {
+            @Override
+            public void onPart(String name, Object value) {
+                send(name, value);
+            }
+
+            @Override
+            public void onComplete(TripPlan plan) {
+                send("done", plan);
+                emitter.complete();
+            }
+
+            @Override
+            public void onError(String message) {
+                send("error", Map.of("error", message));
+                emitter.complete();
+            }
+
+            @Override
+            public boolean isClosed() {
+                return closed.get();
+            }
+
+            private void send(String event, Object data) {
+                if (closed.get()) {
+                    return;
+                }
+                try {
+                    emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开，后续事件直接丢弃
+                    closed.set(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * 限流维度：X-User-Id 请求头 > 请求体 userId > 客户端 IP。
+     * <p>
+     * 用户维度只在调用方身份可信时有效（由前置网关鉴权后写入 X-User-Id）：接口本身不校验身份，
+     * 每次换一个 userId 即可绕过用户限额，此时只剩全局限流兜底。
+     * IP 取 getRemoteAddr()，经反向代理时由 Tomcat 按可信代理列表（server.tomcat.remoteip.internal-proxies）
+     * 从 X-Forwarded-For 中解析，不直接读取可被客户端伪造的请求头。
+     */
+    static String clientKey(String bodyUserId, HttpServletRequest httpRequest) {
+        String userId = httpRequest.getHeader("X-User-Id");
+        if (userId == null || userId.isBlank()) {
+            userId = bodyUserId;
+        }
+        if (userId != null && !userId.isBlank()) {
+            return "user:" + userId.trim();
+        }
+        return "ip:" + httpRequest.getRemoteAddr();
+    }
+
+    static ResponseEntity.BodyBuilder tooManyRequests(PlanRateLimiter.Admission admission) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()));
+    }
+
+    static String rejectMessage(PlanRateLimiter.Admission admission) {
+        return ("user".equals(admission.scope()) ? "请求过于频繁" : "规划服务繁忙")
+                + "，请 " + admission.retryAfterSeconds() + " 秒后重试";
     }
 }
@@ -0,0 +1,29 @@
+package com.cronya.controller;
+
+import com.cronya.service.DestinationStats;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+public class TripStatsController {
+
+    private final DestinationStats destinationStats;
+
+    public TripStatsController(DestinationStats destinationStats) {
+        this.destinationStats = destinationStats;
+    }
+
+    // 目的地每天花费的分布（总计与各类别的四分位数、均值）；指定的季节 / 同行人样本不足时退回到更粗的统计
+    @GetMapping("/destination/{name}")
+    public ResponseEntity<?> destination(@PathVariable String name,
+                                         @RequestParam(required = false) String season,
+                                         @RequestParam(required = false) String companions) {
+        return destinationStats.lookup(name, season, companions)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "暂无统计数据")));
+    }
+}
@@ -0,0 +1,81 @@
+package com.cronya.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 异步行程规划任务：提交后立即返回 id，由各节点的工作线程按租约领取执行
+ */
+@Entity
+@Table(name = "plan_job", indexes = {
+        @Index(name = "uk_client_key", columnList = "client_key", unique = true),
+        @Index(name = "idx_status_next_run", columnList = "status, next_run_time")
+})
+@Data
+public class PlanJob {
+
+    public static final String PENDING = "PENDING";     // 等待领取（含等待重试）
+    public static final String RUNNING = "RUNNING";     // 已被某个节点领取，租约到期前不会被其他节点领取
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "client_key", length = 191)
+    private String clientKey; // 客户端提供的幂等键，重复提交返回同一任务
+
+    @Column(name = "user_id")
+    private String userId;
+
+    @Lob
+    @Column(name = "raw_text", columnDefinition = "TEXT")
+    private String rawText;
+
+    @Column(name = "status", length = 16)
+    private String status;
+
+    @Column(name = "attempts")
+    private int attempts; // 已领取执行的次数
+
+    @Column(name = "next_run_time")
+    private LocalDateTime nextRunTime; // 最早可领取时间（重试退避）
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires")
+    private LocalDateTime leaseExpires; // 执行节点宕机时，到期后由其他节点接管
+
+    @Column(name = "save_as_trip")
+    private boolean saveAsTrip; // 成功后自动保存为行程
+
+    @Column(name = "trip_name")
+    private String tripName;
+
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    @Lob
+    @Column(name = "result", columnDefinition = "MEDIUMTEXT")
+    private String result; // 成功时为行程规划 JSON
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    @Column(name = "created_time")
+    private LocalDateTime createdTime;
+
+    @Column(name = "updated_time")
+    private LocalDateTime updatedTime;
+
+    @Column(name = "finished_time")
+    private LocalDateTime finishedTime;
+
+    public boolean isFinished() {
+        return SUCCEEDED.equals(status) || FAILED.equals(status);
+    }
+}
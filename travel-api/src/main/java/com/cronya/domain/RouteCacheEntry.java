@@ -0,0 +1,26 @@
+package com.cronya.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "route_cache", indexes = @Index(name = "idx_expires_time", columnList = "expires_time"))
+@Data
+public class RouteCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 191)
+    private String cacheKey; // 量化后的起终点/途经点
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String response; // 百度返回的原始 JSON
+
+    @Column(name = "created_time")
+    private LocalDateTime createdTime;
+
+    @Column(name = "expires_time")
+    private LocalDateTime expiresTime;
+}
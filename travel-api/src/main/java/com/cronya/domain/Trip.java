@@ -2,11 +2,16 @@ package com.cronya.domain;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "trip")
+@DynamicUpdate // 仅更新变化的列，改名等元数据更新不会重写整行
+@Table(name = "trip", indexes = {
+        @Index(name = "idx_user_created", columnList = "user_id, created_time, id"),
+        @Index(name = "idx_destination", columnList = "destination")
+})
 @Data
 public class Trip {
 
@@ -20,9 +25,25 @@ public class Trip {
     @Column(name = "user_id")
     private String userId;
 
-    @Lob // 支持大文本（推荐）
-    @Column(columnDefinition = "TEXT")
-    private String tripDataJson; // 存整个 DTO 的 JSON 字符串
+    @Transient
+    private String tripDataJson; // 整个 DTO 的 JSON 字符串，压缩后存于 trip_document 表，按需加载
+
+    // 以下几列由 tripDataJson 派生（保存时填充），列表查询无需读取大字段
+    @Column(name = "destination", length = 100)
+    private String destination;
+
+    @Column(name = "days")
+    private Integer days;
+
+    @Column(name = "budget")
+    private Double budget;
+
+    @Column(name = "estimated_total")
+    private Double estimatedTotal;
+
+    @Version
+    @Column(name = "version")
+    private Long version; // 乐观锁版本号，作为 ETag 返回
 
     @Column(name = "created_time")
     private LocalDateTime createdTime;
@@ -0,0 +1,32 @@
+package com.cronya.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 行程完整 JSON 的压缩存储（与 trip 表一对一，按需单独加载）
+ */
+@Entity
+@Table(name = "trip_document")
+@Data
+public class TripDocument {
+
+    @Id
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    @Lob
+    @Column(name = "content", columnDefinition = "MEDIUMBLOB")
+    private byte[] content; // 首字节为编码版本，其后为 deflate 数据
+
+    @Column(name = "raw_size")
+    private Integer rawSize; // 压缩前的 UTF-8 字节数
+
+    @Column(name = "checksum")
+    private Long checksum; // 压缩前内容的 CRC32，用于跳过未变化的写入
+
+    @Column(name = "updated_time")
+    private LocalDateTime updatedTime;
+}
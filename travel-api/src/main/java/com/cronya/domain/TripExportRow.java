@@ -0,0 +1,38 @@
+package com.cronya.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导出投影：trip 元数据 + trip_document 压缩内容（不进入持久化上下文，流式导出时内存恒定）
+ */
+@Data
+@AllArgsConstructor
+public class TripExportRow {
+
+    private Long id;
+
+    private String tripName;
+
+    private String userId;
+
+    private String destination;
+
+    private Integer days;
+
+    private Double budget;
+
+    private Double estimatedTotal;
+
+    private Long version;
+
+    private LocalDateTime createdTime;
+
+    private LocalDateTime updatedTime;
+
+    private byte[] content; // 可能为空（没有文档的行程）
+
+    private Integer rawSize;
+}
@@ -0,0 +1,28 @@
+package com.cronya.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 行程列表投影：只包含 trip 表的轻量列，不含 tripDataJson
+ */
+@Data
+@AllArgsConstructor
+public class TripSummary {
+
+    private Long id;
+
+    private String tripName;
+
+    private String destination;
+
+    private Integer days;
+
+    private Double estimatedTotal;
+
+    private LocalDateTime createdTime;
+
+    private LocalDateTime updatedTime;
+}
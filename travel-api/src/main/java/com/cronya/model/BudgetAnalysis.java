@@ -0,0 +1,17 @@
+package com.cronya.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BudgetAnalysis {
+
+    private double estimatedTotal;
+
+    private Map<String, Double> categories;
+
+    private String currency;
+}
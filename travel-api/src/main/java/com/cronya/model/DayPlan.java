@@ -0,0 +1,17 @@
+package com.cronya.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonSerialize(using = TripPlanCodec.DaySerializer.class)
+public class DayPlan {
+
+    private int day;
+
+    private List<Segment> segments;
+
+    private double dailyTotalCost;
+}
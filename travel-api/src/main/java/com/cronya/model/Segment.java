@@ -0,0 +1,35 @@
+package com.cronya.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Segment {
+
+    private String time; // 上午/中午/下午/晚上
+
+    private String activity;
+
+    private String location;
+
+    private double latitude; // 0 表示缺失
+
+    private double longitude;
+
+    private double cost;
+
+    private String category; // 住宿/交通/餐饮/景点/购物/文化
+
+    public Segment copy() {
+        Segment copy = new Segment();
+        copy.setTime(time);
+        copy.setActivity(activity);
+        copy.setLocation(location);
+        copy.setLatitude(latitude);
+        copy.setLongitude(longitude);
+        copy.setCost(cost);
+        copy.setCategory(category);
+        return copy;
+    }
+}
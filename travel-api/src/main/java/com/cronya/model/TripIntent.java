@@ -0,0 +1,19 @@
+package com.cronya.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TripIntent {
+
+    private String destination;
+
+    private int days; // 0 表示模型未给出
+
+    private double budget;
+
+    private String transportMode;
+
+    private String season;
+}
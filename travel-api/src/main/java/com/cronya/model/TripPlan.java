@@ -0,0 +1,48 @@
+package com.cronya.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行程规划结果（/api/planTrip 的返回结构，也是前端保存到 Trip.tripDataJson 的内容）。
+ * 坐标与金额均为基本类型 double；解析见 {@link TripPlanCodec}，序列化不经过反射。
+ */
+@Data
+@JsonSerialize(using = TripPlanCodec.PlanSerializer.class)
+public class TripPlan {
+
+    private UserProfile userProfile;
+
+    private TripIntent tripIntent;
+
+    private List<DayPlan> tripPlan;
+
+    private BudgetAnalysis budgetAnalysis;
+
+    private Map<String, Double> computedDailySums;
+
+    private Map<String, Double> computedCategorySums;
+
+    private Verification verification;
+
+    private String debug;
+
+    // 以下两项仅在失败时出现
+    private String rawText;
+
+    private String error;
+
+    public static TripPlan error(String message) {
+        return error(message, null);
+    }
+
+    public static TripPlan error(String message, String rawText) {
+        TripPlan plan = new TripPlan();
+        plan.setError(message);
+        plan.setRawText(rawText);
+        return plan;
+    }
+}
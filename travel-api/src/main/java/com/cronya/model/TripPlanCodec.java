@@ -0,0 +1,432 @@
+package com.cronya.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行程规划的流式编解码：直接在 Jackson 的 token 流上按字段名填充 {@link TripPlan}，
+ * 不构建 Map/JsonNode 中间树，数值直接读成基本类型 double；序列化同样逐字段写出，不走反射。
+ * <p>
+ * 解析较宽松：数值允许以字符串给出，类型不符的字段按缺失处理，未知字段跳过。
+ */
+public final class TripPlanCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private TripPlanCodec() {
+    }
+
+    /**
+     * 解析模型输出；前后有 ```json 之类的多余文本时只取最外层的 {...}
+     */
+    public static TripPlan read(String text) throws IOException {
+        int start = text.indexOf('{');
+        int end = text.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            throw new IOException("未找到 JSON 对象");
+        }
+        try (JsonParser p = start == 0 && end == text.length() - 1
+                ? FACTORY.createParser(text) : FACTORY.createParser(text.substring(start, end + 1))) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("行程根节点不是对象");
+            }
+            TripPlan plan = new TripPlan();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "userProfile" -> plan.setUserProfile(readUserProfile(p));
+                    case "tripIntent" -> plan.setTripIntent(readTripIntent(p));
+                    case "tripPlan" -> plan.setTripPlan(readDays(p));
+                    case "budgetAnalysis" -> plan.setBudgetAnalysis(readBudgetAnalysis(p));
+                    case "computedDailySums" -> plan.setComputedDailySums(readDoubleMap(p));
+                    case "computedCategorySums" -> plan.setComputedCategorySums(readDoubleMap(p));
+                    case "verification" -> plan.setVerification(readVerification(p));
+                    case "debug" -> plan.setDebug(readString(p));
+                    default -> p.skipChildren();
+                }
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * 解析流式接口切出的单个片段
+     *
+     * @param name day 或顶层字段名
+     * @return 对应的类型化对象；未知片段返回 null
+     */
+    public static Object readPart(String name, String json) throws IOException {
+        try (JsonParser p = FACTORY.createParser(json)) {
+            p.nextToken();
+            return switch (name) {
+                case "day" -> readDay(p);
+                case "userProfile" -> readUserProfile(p);
+                case "tripIntent" -> readTripIntent(p);
+                case "budgetAnalysis" -> readBudgetAnalysis(p);
+                case "computedDailySums", "computedCategorySums" -> readDoubleMap(p);
+                case "verification" -> readVerification(p);
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * 经由 ObjectMapper 输出（实际写出逻辑仍是 {@link PlanSerializer}），以复用其分段缓冲区
+     */
+    public static String toJson(TripPlan plan) throws IOException {
+        return MAPPER.writeValueAsString(plan);
+    }
+
+    // ---------------------------------------------------------------- 读
+
+    private static UserProfile readUserProfile(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        UserProfile profile = new UserProfile();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "companions" -> profile.setCompanions(readString(p));
+                case "preferences" -> profile.setPreferences(readStringList(p));
+                default -> p.skipChildren();
+            }
+        }
+        return profile;
+    }
+
+    private static TripIntent readTripIntent(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        TripIntent intent = new TripIntent();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "destination" -> intent.setDestination(readString(p));
+                case "days" -> intent.setDays((int) Math.round(readDouble(p)));
+                case "budget" -> intent.setBudget(readDouble(p));
+                case "transportMode" -> intent.setTransportMode(readString(p));
+                case "season" -> intent.setSeason(readString(p));
+                default -> p.skipChildren();
+            }
+        }
+        return intent;
+    }
+
+    private static List<DayPlan> readDays(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        List<DayPlan> days = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            DayPlan day = readDay(p);
+            if (day != null) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    private static DayPlan readDay(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        DayPlan day = new DayPlan();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "day" -> day.setDay((int) Math.round(readDouble(p)));
+                case "segments" -> day.setSegments(readSegments(p));
+                case "dailyTotalCost" -> day.setDailyTotalCost(readDouble(p));
+                default -> p.skipChildren();
+            }
+        }
+        return day;
+    }
+
+    private static List<Segment> readSegments(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        List<Segment> segments = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (!startObject(p)) {
+                continue;
+            }
+            Segment segment = new Segment();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "time" -> segment.setTime(readString(p));
+                    case "activity" -> segment.setActivity(readString(p));
+                    case "location" -> segment.setLocation(readString(p));
+                    case "latitude" -> segment.setLatitude(readDouble(p));
+                    case "longitude" -> segment.setLongitude(readDouble(p));
+                    case "cost" -> segment.setCost(readDouble(p));
+                    case "category" -> segment.setCategory(readString(p));
+                    default -> p.skipChildren();
+                }
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private static BudgetAnalysis readBudgetAnalysis(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        BudgetAnalysis budget = new BudgetAnalysis();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "estimatedTotal" -> budget.setEstimatedTotal(readDouble(p));
+                case "categories" -> budget.setCategories(readDoubleMap(p));
+                case "currency" -> budget.setCurrency(readString(p));
+                default -> p.skipChildren();
+            }
+        }
+        return budget;
+    }
+
+    private static Verification readVerification(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        Verification verification = new Verification();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "dailyEqual" -> verification.setDailyEqual(readBoolean(p));
+                case "totalEqual" -> verification.setTotalEqual(readBoolean(p));
+                case "categoryEqual" -> verification.setCategoryEqual(readBoolean(p));
+                case "lodgingEveryDay" -> verification.setLodgingEveryDay(readBoolean(p));
+                default -> p.skipChildren();
+            }
+        }
+        return verification;
+    }
+
+    private static Map<String, Double> readDoubleMap(JsonParser p) throws IOException {
+        if (!startObject(p)) {
+            return null;
+        }
+        Map<String, Double> map = new LinkedHashMap<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            map.put(name, readDouble(p));
+        }
+        return map;
+    }
+
+    private static List<String> readStringList(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            String single = readString(p);
+            return single == null ? null : new ArrayList<>(List.of(single));
+        }
+        List<String> list = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            String value = readString(p);
+            if (value != null) {
+                list.add(value);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 当前 token 为对象起点时返回 true；否则跳过该值并返回 false
+     */
+    private static boolean startObject(JsonParser p) throws IOException {
+        if (p.currentToken() == JsonToken.START_OBJECT) {
+            return true;
+        }
+        p.skipChildren();
+        return false;
+    }
+
+    private static double readDouble(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return p.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(p.getText().trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        p.skipChildren();
+        return 0;
+    }
+
+    private static String readString(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token != null && token.isScalarValue() && token != JsonToken.VALUE_NULL) {
+            return p.getText();
+        }
+        p.skipChildren();
+        return null;
+    }
+
+    private static boolean readBoolean(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_TRUE) {
+            return true;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            return "true".equalsIgnoreCase(p.getText().trim());
+        }
+        p.skipChildren();
+        return false;
+    }
+
+    // ---------------------------------------------------------------- 写
+
+    static void write(JsonGenerator g, TripPlan plan) throws IOException {
+        g.writeStartObject();
+        if (plan.getUserProfile() != null) {
+            UserProfile profile = plan.getUserProfile();
+            g.writeObjectFieldStart("userProfile");
+            writeString(g, "companions", profile.getCompanions());
+            if (profile.getPreferences() != null) {
+                g.writeArrayFieldStart("preferences");
+                for (String preference : profile.getPreferences()) {
+                    g.writeString(preference);
+                }
+                g.writeEndArray();
+            }
+            g.writeEndObject();
+        }
+        if (plan.getTripIntent() != null) {
+            TripIntent intent = plan.getTripIntent();
+            g.writeObjectFieldStart("tripIntent");
+            writeString(g, "destination", intent.getDestination());
+            g.writeNumberField("days", intent.getDays());
+            g.writeNumberField("budget", intent.getBudget());
+            writeString(g, "transportMode", intent.getTransportMode());
+            writeString(g, "season", intent.getSeason());
+            g.writeEndObject();
+        }
+        if (plan.getTripPlan() != null) {
+            g.writeArrayFieldStart("tripPlan");
+            for (DayPlan day : plan.getTripPlan()) {
+                writeDay(g, day);
+            }
+            g.writeEndArray();
+        }
+        if (plan.getBudgetAnalysis() != null) {
+            BudgetAnalysis budget = plan.getBudgetAnalysis();
+            g.writeObjectFieldStart("budgetAnalysis");
+            g.writeNumberField("estimatedTotal", budget.getEstimatedTotal());
+            writeDoubleMap(g, "categories", budget.getCategories());
+            writeString(g, "currency", budget.getCurrency());
+            g.writeEndObject();
+        }
+        writeDoubleMap(g, "computedDailySums", plan.getComputedDailySums());
+        writeDoubleMap(g, "computedCategorySums", plan.getComputedCategorySums());
+        if (plan.getVerification() != null) {
+            Verification verification = plan.getVerification();
+            g.writeObjectFieldStart("verification");
+            g.writeBooleanField("dailyEqual", verification.isDailyEqual());
+            g.writeBooleanField("totalEqual", verification.isTotalEqual());
+            g.writeBooleanField("categoryEqual", verification.isCategoryEqual());
+            g.writeBooleanField("lodgingEveryDay", verification.isLodgingEveryDay());
+            g.writeEndObject();
+        }
+        writeString(g, "debug", plan.getDebug());
+        writeString(g, "raw_text", plan.getRawText());
+        writeString(g, "error", plan.getError());
+        g.writeEndObject();
+    }
+
+    static void writeDay(JsonGenerator g, DayPlan day) throws IOException {
+        g.writeStartObject();
+        g.writeNumberField("day", day.getDay());
+        if (day.getSegments() != null) {
+            g.writeArrayFieldStart("segments");
+            for (Segment segment : day.getSegments()) {
+                g.writeStartObject();
+                writeString(g, "time", segment.getTime());
+                writeString(g, "activity", segment.getActivity());
+                writeString(g, "location", segment.getLocation());
+                g.writeNumberField("latitude", segment.getLatitude());
+                g.writeNumberField("longitude", segment.getLongitude());
+                g.writeNumberField("cost", segment.getCost());
+                writeString(g, "category", segment.getCategory());
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+        }
+        g.writeNumberField("dailyTotalCost", day.getDailyTotalCost());
+        g.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator g, String name, String value) throws IOException {
+        if (value != null) {
+            g.writeStringField(name, value);
+        }
+    }
+
+    private static void writeDoubleMap(JsonGenerator g, String name, Map<String, Double> map) throws IOException {
+        if (map == null) {
+            return;
+        }
+        g.writeObjectFieldStart(name);
+        for (Map.Entry<String, Double> entry : map.entrySet()) {
+            g.writeNumberField(entry.getKey(), entry.getValue() == null ? 0 : entry.getValue());
+        }
+        g.writeEndObject();
+    }
+
+    /**
+     * 供 Spring MVC / SSE 输出使用，与 {@link #toJson} 写出的结构一致
+     */
+    public static class PlanSerializer extends StdSerializer<TripPlan> {
+
+        public PlanSerializer() {
+            super(TripPlan.class);
+        }
+
+        @Override
+        public void serialize(TripPlan plan, JsonGenerator g, SerializerProvider provider) throws IOException {
+            write(g, plan);
+        }
+    }
+
+    public static class DaySerializer extends StdSerializer<DayPlan> {
+
+        public DaySerializer() {
+            super(DayPlan.class);
+        }
+
+        @Override
+        public void serialize(DayPlan day, JsonGenerator g, SerializerProvider provider) throws IOException {
+            writeDay(g, day);
+        }
+    }
+}
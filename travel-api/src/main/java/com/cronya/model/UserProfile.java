@@ -0,0 +1,15 @@
+package com.cronya.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserProfile {
+
+    private String companions; // 独自/带孩子/情侣/家庭/朋友
+
+    private List<String> preferences;
+}
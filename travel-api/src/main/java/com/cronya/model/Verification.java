@@ -0,0 +1,15 @@
+package com.cronya.model;
+
+import lombok.Data;
+
+@Data
+public class Verification {
+
+    private boolean dailyEqual;
+
+    private boolean totalEqual;
+
+    private boolean categoryEqual;
+
+    private boolean lodgingEveryDay;
+}
@@ -0,0 +1,91 @@
+package com.cronya.outbound;
+
+import com.cronya.config.OutboundConfig;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 单个外部依赖的隔离舱：固定并发上限 + 有界等待队列 + 超时。
+ * 超时或调用方取消返回的 future 后会中断仍在执行的任务，避免慢依赖持续占用并发额度。
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final OutboundConfig.BulkheadConfig config;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final Counter timeouts;
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    public Bulkhead(String name, OutboundConfig.BulkheadConfig config, ThreadFactory threadFactory,
+                    MeterRegistry meterRegistry) {
+        this.name = name;
+        this.config = config;
+        this.executor = new ThreadPoolExecutor(config.getMaxConcurrent(), config.getMaxConcurrent(),
+                60, TimeUnit.SECONDS,
+                config.getQueueDepth() > 0 ? new ArrayBlockingQueue<>(config.getQueueDepth()) : new SynchronousQueue<>(),
+                threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.rejected = Counter.builder("outbound.bulkhead.rejected").tag("name", name).register(meterRegistry);
+        this.timeouts = Counter.builder("outbound.bulkhead.timeouts").tag("name", name).register(meterRegistry);
+        Gauge.builder("outbound.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .tag("name", name).register(meterRegistry);
+        Gauge.builder("outbound.bulkhead.queued", executor, e -> e.getQueue().size())
+                .tag("name", name).register(meterRegistry);
+        // 饱和度 = (执行中 + 排队) / (并发上限 + 队列容量)
+        Gauge.builder("outbound.bulkhead.saturation", executor,
+                        e -> (double) (e.getActiveCount() + e.getQueue().size())
+                                / (config.getMaxConcurrent() + config.getQueueDepth()))
+                .tag("name", name).register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // 带上提交线程的观测上下文，隔离舱线程中的 span 仍挂在原请求的链路下
+        Runnable runnable = snapshotFactory.captureAll().wrap(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+
+        Future<?> running;
+        try {
+            running = executor.submit(runnable);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            if (config.getRejectionPolicy() == OutboundConfig.RejectionPolicy.CALLER_RUNS) {
+                runnable.run();
+                return result;
+            }
+            return CompletableFuture.failedFuture(new BulkheadFullException(name));
+        }
+
+        // 直接返回 result（而非 whenComplete 派生的 future），调用方 cancel 时同样中断执行中的任务
+        result.orTimeout(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) -> {
+                    if (error instanceof TimeoutException) {
+                        timeouts.increment();
+                        running.cancel(true);
+                    } else if (error instanceof CancellationException) {
+                        running.cancel(true);
+                    }
+                });
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,11 @@
+package com.cronya.outbound;
+
+/**
+ * 隔离舱并发与队列均已占满
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String name) {
+        super("外部服务 " + name + " 繁忙，请稍后重试");
+    }
+}
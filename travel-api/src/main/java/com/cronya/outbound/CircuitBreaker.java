@@ -0,0 +1,122 @@
+package com.cronya.outbound;
+
+import com.cronya.config.ModelRoutingConfig;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 基于最近 N 次调用结果的熔断器：
+ * CLOSED 下失败率超过阈值转为 OPEN，拒绝调用；openDuration 之后进入 HALF_OPEN，
+ * 放行 halfOpenCalls 个试探请求，全部成功恢复 CLOSED，任一失败重新 OPEN。
+ * <p>
+ * 每次模型调用只在开始与结束时各进入一次临界区，调用量很低，直接使用 synchronized。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final ModelRoutingConfig.BreakerConfig config;
+    private final LongSupplier clock;
+    private final boolean[] failures;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int recorded;
+    private int failed;
+    private long openedAt;
+    private int probes;
+    private int probeSuccesses;
+
+    public CircuitBreaker(ModelRoutingConfig.BreakerConfig config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.failures = new boolean[Math.max(1, config.getWindowSize())];
+    }
+
+    /**
+     * 是否放行本次调用；放行后必须以 onSuccess / onFailure 回报结果
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < config.getOpenDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probes = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probes >= config.getHalfOpenCalls()) {
+                return false;
+            }
+            probes++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probeSuccesses >= config.getHalfOpenCalls()) {
+                reset(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= config.getMinimumCalls() && (double) failed / recorded >= config.getFailureRateThreshold()) {
+            open();
+        }
+    }
+
+    /**
+     * 放行后调用并未真正到达上游（如本地隔离舱已满），归还试探名额，不计入统计
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probes > 0) {
+            probes--;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (state != State.CLOSED) {
+            return; // OPEN 期间仍在执行的调用结束，不计入新窗口
+        }
+        if (recorded == failures.length) {
+            if (failures[position]) {
+                failed--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[position] = failure;
+        if (failure) {
+            failed++;
+        }
+        position = (position + 1) % failures.length;
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = clock.getAsLong();
+    }
+
+    private void reset(State next) {
+        state = next;
+        position = 0;
+        recorded = 0;
+        failed = 0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.cronya.outbound;
+
+import com.cronya.config.OutboundConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 外部调用执行层：为每个外部依赖（大模型、百度地图）提供独立的隔离舱，
+ * 使慢依赖只会耗尽自己的并发额度，而不会拖垮 Tomcat 线程池上的 CRUD 请求。
+ */
+@Component
+public class OutboundExecutors {
+
+    public static final String MODEL = "model";
+    public static final String MAP = "map";
+
+    private final OutboundConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public OutboundExecutors(OutboundConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Bulkhead get(String name) {
+        return bulkheads.computeIfAbsent(name, n -> new Bulkhead(n,
+                config.getBulkheads().getOrDefault(n, new OutboundConfig.BulkheadConfig()),
+                threadFactory("outbound-" + n), meterRegistry));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkheads.values().forEach(Bulkhead::shutdown);
+    }
+
+    /**
+     * Java 21+ 且开启配置时返回虚拟线程工厂（反射获取，源码仍按 17 编译），否则返回守护平台线程工厂
+     */
+    private ThreadFactory threadFactory(String prefix) {
+        if (config.isVirtualThreads()) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 0L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                // 运行时低于 Java 21，退回平台线程
+            }
+        }
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,217 @@
+package com.cronya.outbound;
+
+import com.alibaba.dashscope.exception.ApiException;
+import com.cronya.config.PlanRateLimitConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 行程规划的准入控制：先按用户、再按全局令牌桶放行，缓存命中的请求不经过这里。
+ * <p>
+ * 全局速率按 AIMD 自适应大模型的实际容量：上游返回 429（限流）或窗口内平均耗时超过 latencyTarget 时
+ * 乘性下降（每个窗口最多一次，避免一批 429 把速率打到底）；窗口内出现过排队 / 拒绝且上游健康时加性上升。
+ * 速率限定在 [minRate, maxRate]，过载时多余请求在 maxWait 内排队，超出则带 Retry-After 快速拒绝，
+ * 吞吐量保持在上游上限附近而不会因重试风暴崩溃。
+ * <p>
+ * 热路径只有令牌桶上的 CAS 与 LongAdder 累加，没有锁；用户桶存放在 Caffeine 中，长时间不活跃自动淘汰。
+ */
+@Component
+public class PlanRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanRateLimiter.class);
+
+    /**
+     * @param waitNanos       放行前需要排队等待的时长
+     * @param retryAfterNanos 被拒绝时建议的重试间隔
+     * @param scope           拒绝原因：user / global
+     */
+    public record Admission(boolean allowed, long waitNanos, long retryAfterNanos, String scope) {
+
+        static final Admission ALLOWED = new Admission(true, 0, 0, null);
+
+        /** Retry-After 响应头的秒数（向上取整，至少 1 秒） */
+        public long retryAfterSeconds() {
+            return Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private final PlanRateLimitConfig config;
+    private final LongSupplier clock;
+    private final TokenBucket global;
+    private final Cache<String, TokenBucket> users;
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    // 当前窗口内的信号
+    private final AtomicLong windowStart;
+    private final AtomicLong lastDecrease;
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder latencySum = new LongAdder();
+
+    private final Counter rejectedByUser;
+    private final Counter rejectedByGlobal;
+    private final Timer queued;
+
+    @Autowired
+    public PlanRateLimiter(PlanRateLimitConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::nanoTime);
+    }
+
+    public PlanRateLimiter(PlanRateLimitConfig config, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        this.global = new TokenBucket(clamp(config.getRate()), config.getBurst(), clock);
+        this.users = Caffeine.newBuilder()
+                .maximumSize(config.getUserCacheSize())
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+        long now = clock.getAsLong();
+        this.windowStart = new AtomicLong(now);
+        this.lastDecrease = new AtomicLong(now - config.getWindow().toNanos());
+
+        Gauge.builder("plan.ratelimit.rate", global, TokenBucket::getRate)
+                .description("自适应后的全局准入速率（次/秒）")
+                .register(meterRegistry);
+        this.rejectedByUser = Counter.builder("plan.ratelimit.rejected").tag("scope", "user").register(meterRegistry);
+        this.rejectedByGlobal = Counter.builder("plan.ratelimit.rejected").tag("scope", "global").register(meterRegistry);
+        this.queued = Timer.builder("plan.ratelimit.wait")
+                .description("放行前的排队时长")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 申请一次规划调用；用户超限直接拒绝，全局令牌不足时最多排队 maxWait
+     */
+    public Admission acquire(String userKey) {
+        if (!config.isEnabled()) {
+            return Admission.ALLOWED;
+        }
+        adjust(clock.getAsLong());
+
+        TokenBucket user = users.get(userKey, k -> new TokenBucket(config.getUserRate(), config.getUserBurst(), clock));
+        TokenBucket.Reservation byUser = user.reserve(0);
+        if (!byUser.granted()) {
+            rejectedByUser.increment();
+            return new Admission(false, 0, byUser.nanos(), "user");
+        }
+
+        TokenBucket.Reservation byGlobal = global.reserve(config.getMaxWait().toNanos());
+        if (!byGlobal.granted()) {
+            user.refund(); // 未真正调用上游，不占用该用户的额度
+            limited.increment();
+            rejectedByGlobal.increment();
+            return new Admission(false, 0, byGlobal.nanos(), "global");
+        }
+        if (byGlobal.nanos() > 0) {
+            limited.increment();
+            queued.record(byGlobal.nanos(), TimeUnit.NANOSECONDS);
+        }
+        return new Admission(true, byGlobal.nanos(), 0, null);
+    }
+
+    /**
+     * 按准入结果排队后再执行 task（不占用请求线程），观测上下文随任务传递
+     */
+    public <T> CompletableFuture<T> schedule(Admission admission, Supplier<CompletableFuture<T>> task) {
+        if (admission.waitNanos() <= 0) {
+            return task.get();
+        }
+        ContextSnapshot snapshot = snapshotFactory.captureAll();
+        return CompletableFuture.runAsync(() -> {
+                }, CompletableFuture.delayedExecutor(admission.waitNanos(), TimeUnit.NANOSECONDS))
+                .thenCompose(ignored -> {
+                    try (ContextSnapshot.Scope scope = snapshot.setThreadLocals()) {
+                        return task.get();
+                    }
+                });
+    }
+
+    /**
+     * 上游调用结束时回报耗时与异常，作为 AIMD 的反馈信号
+     */
+    public void onModelResult(long latencyNanos, Throwable error) {
+        if (isThrottled(error)) {
+            throttled.increment();
+            decrease(clock.getAsLong(), "上游限流");
+            return;
+        }
+        calls.increment();
+        latencySum.add(latencyNanos);
+    }
+
+    public double getRate() {
+        return global.getRate();
+    }
+
+    /**
+     * 窗口结束时（由请求线程顺带触发，CAS 保证只有一个线程执行）根据本窗口信号调整速率
+     */
+    private void adjust(long now) {
+        long start = windowStart.get();
+        if (now - start < config.getWindow().toNanos() || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long n = calls.sumThenReset();
+        long latency = latencySum.sumThenReset();
+        long limitedCount = limited.sumThenReset();
+        if (throttled.sumThenReset() > 0) {
+            return; // 本窗口已因 429 下调过
+        }
+        if (n > 0 && latency / n > config.getLatencyTarget().toNanos()) {
+            decrease(now, "上游耗时过高");
+        } else if (limitedCount > 0) {
+            setRate(global.getRate() + config.getIncreaseStep());
+        }
+    }
+
+    private void decrease(long now, String reason) {
+        long last = lastDecrease.get();
+        if (now - last < config.getWindow().toNanos() || !lastDecrease.compareAndSet(last, now)) {
+            return;
+        }
+        double rate = setRate(global.getRate() * config.getDecreaseFactor());
+        log.info("规划准入速率下调至 {} 次/秒（{}）", String.format("%.2f", rate), reason);
+    }
+
+    private synchronized double setRate(double rate) {
+        double clamped = clamp(rate);
+        global.setRate(clamped);
+        return clamped;
+    }
+
+    private double clamp(double rate) {
+        return Math.max(config.getMinRate(), Math.min(config.getMaxRate(), rate));
+    }
+
+    /**
+     * DashScope 的限流错误：HTTP 429 或 Throttling.* 错误码
+     */
+    static boolean isThrottled(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof ApiException api && api.getStatus() != null) {
+                String code = api.getStatus().getCode();
+                return api.getStatus().getStatusCode() == 429 || (code != null && code.startsWith("Throttling"));
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cronya.outbound;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重试预算：每个原始请求存入 ratio 个额度，每次重试 / 对冲取出 1 个，余额不超过 max。
+ * 长期来看额外调用次数不超过原始请求的 ratio 倍，上游故障时不会因重试把流量放大。
+ * 余额以千分之一为单位存放在 AtomicLong 中，存取均为无锁操作。
+ */
+public class RetryBudget {
+
+    private static final long UNIT = 1000;
+
+    private final long deposit;
+    private final long max;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio, int max) {
+        this.deposit = Math.round(ratio * UNIT);
+        this.max = Math.max(1, max) * UNIT;
+        this.balance = new AtomicLong(this.max);
+    }
+
+    public void deposit() {
+        balance.accumulateAndGet(deposit, (current, amount) -> Math.min(max, current + amount));
+    }
+
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    public double getBalance() {
+        return (double) balance.get() / UNIT;
+    }
+}
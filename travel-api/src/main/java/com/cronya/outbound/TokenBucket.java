@@ -0,0 +1,79 @@
+package com.cronya.outbound;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 无锁令牌桶（GCRA 形式）：只维护一个「理论到达时间」TAT，每次获取令牌是对 TAT 的一次 CAS，
+ * 没有后台补充线程，也没有锁。速率可在运行时调整（自适应限流），只影响之后的请求。
+ * <p>
+ * 允许排队：令牌不足但在 maxWait 内可用时返回需要等待的时长（相当于预约了未来的令牌），
+ * 超过 maxWait 则拒绝并给出建议的重试间隔。
+ */
+public class TokenBucket {
+
+    /**
+     * @param granted 是否获得令牌
+     * @param nanos   获得时为需要等待的时长，拒绝时为建议的重试间隔
+     */
+    public record Reservation(boolean granted, long nanos) {
+    }
+
+    private final LongSupplier clock;
+    private final AtomicLong tat;
+    private volatile long intervalNanos;
+    private volatile int burst;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    public TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        this.clock = clock;
+        this.tat = new AtomicLong(clock.getAsLong());
+        setRate(permitsPerSecond);
+        this.burst = Math.max(1, burst);
+    }
+
+    public Reservation reserve(long maxWaitNanos) {
+        while (true) {
+            long now = clock.getAsLong();
+            long current = tat.get();
+            long interval = intervalNanos;
+            long arrival = Math.max(current, now);
+            // 距离可以不排队直接放行还差多久（桶中可积攒 burst 个令牌）
+            long wait = arrival - (burst - 1) * interval - now;
+            if (wait > maxWaitNanos) {
+                return new Reservation(false, wait);
+            }
+            if (tat.compareAndSet(current, arrival + interval)) {
+                return new Reservation(true, Math.max(0, wait));
+            }
+        }
+    }
+
+    /**
+     * 归还一个已获得的令牌（后续环节拒绝时使用），TAT 不会早于当前时刻
+     */
+    public void refund() {
+        while (true) {
+            long current = tat.get();
+            long refunded = Math.max(current - intervalNanos, clock.getAsLong());
+            if (refunded >= current || tat.compareAndSet(current, refunded)) {
+                return;
+            }
+        }
+    }
+
+    public void setRate(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("速率必须大于 0: " + permitsPerSecond);
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    }
+
+    public double getRate() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+}
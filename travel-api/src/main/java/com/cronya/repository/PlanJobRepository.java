@@ -0,0 +1,84 @@
+package com.cronya.repository;
+
+import com.cronya.domain.PlanJob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 任务的状态变更都是带条件的单条 UPDATE（返回 0 表示已被其他节点领取或租约已丢失），不依赖 SKIP LOCKED，兼容 MySQL 5.7
+ */
+public interface PlanJobRepository extends JpaRepository<PlanJob, Long> {
+
+    // 任务状态以主库为准：覆盖默认的只读事务，开启读写分离（db.routing）时不会读到从库上的旧状态
+    @Override
+    @Transactional
+    Optional<PlanJob> findById(Long id);
+
+    @Override
+    @Transactional
+    List<PlanJob> findAllById(Iterable<Long> ids);
+
+    @Transactional
+    Optional<PlanJob> findByClientKey(String clientKey);
+
+    // 可领取的任务：到达重试时间的 PENDING，或租约已过期的 RUNNING（执行节点宕机）
+    @Query("select j.id from PlanJob j where (j.status = 'PENDING' and j.nextRunTime <= :now) "
+            + "or (j.status = 'RUNNING' and j.leaseExpires < :now) order by j.id")
+    @Transactional
+    List<Long> findClaimable(LocalDateTime now, Limit limit);
+
+    // 领取：条件与 findClaimable 相同，并发领取同一任务时只有一个节点得到 1 行
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update PlanJob j set j.status = 'RUNNING', j.leaseOwner = :owner, j.leaseExpires = :until, "
+            + "j.attempts = j.attempts + 1, j.updatedTime = :now where j.id = :id and "
+            + "((j.status = 'PENDING' and j.nextRunTime <= :now) or (j.status = 'RUNNING' and j.leaseExpires < :now))")
+    int claim(Long id, String owner, LocalDateTime now, LocalDateTime until);
+
+    // 续租：执行中的任务定期延长租约
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update PlanJob j set j.leaseExpires = :until where j.id in :ids and j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int renew(Collection<Long> ids, String owner, LocalDateTime until);
+
+    // 结束：仍持有租约时写入最终状态
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update PlanJob j set j.status = :status, j.result = :result, j.error = :error, j.leaseOwner = null, "
+            + "j.leaseExpires = null, j.finishedTime = :now, j.updatedTime = :now "
+            + "where j.id = :id and j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int finish(Long id, String owner, String status, String result, String error, LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update PlanJob j set j.tripId = :tripId where j.id = :id")
+    int attachTrip(Long id, Long tripId);
+
+    // 失败但还有重试次数：退回 PENDING，nextRunTime 之后可再次领取
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update PlanJob j set j.status = 'PENDING', j.error = :error, j.nextRunTime = :next, j.leaseOwner = null, "
+            + "j.leaseExpires = null, j.updatedTime = :now where j.id = :id and j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int retryLater(Long id, String owner, String error, LocalDateTime next, LocalDateTime now);
+
+    // 停机时归还未完成的任务，其他节点可立即领取，且不计入重试次数
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("update PlanJob j set j.status = 'PENDING', j.attempts = j.attempts - 1, j.leaseOwner = null, "
+            + "j.leaseExpires = null, j.nextRunTime = :now, j.updatedTime = :now "
+            + "where j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int releaseAll(String owner, LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("delete from PlanJob j where j.status in ('SUCCEEDED', 'FAILED') and j.finishedTime < :before")
+    int deleteFinishedBefore(LocalDateTime before);
+}
@@ -0,0 +1,201 @@
+package com.cronya.repository;
+
+import com.cronya.config.DataSourceRoutingConfig;
+import com.cronya.service.ReadConsistency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源：只读事务（@Transactional(readOnly = true)）的连接取自复制延迟正常的从库（轮询），
+ * 其余连接、被 ReadConsistency 固定到主库的事务以及从库全部不可用时取自主库。
+ * <p>
+ * 外层是 LazyConnectionDataSourceProxy：事务开始时拿到的只是代理连接，执行第一条 SQL 时才真正取连接，
+ * 此时事务的 readOnly 标记已经生效，路由才能按它判断。
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static class Replica {
+        final String name;
+        final DataSource dataSource;
+        final Counter routed;
+        volatile double lagSeconds = -1; // -1 表示不可用（连不上、复制中断或延迟未知）
+
+        Replica(String name, DataSource dataSource, Counter routed) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.routed = routed;
+        }
+    }
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final DataSourceRoutingConfig config;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryRouted;
+    private final Counter fallbacks;
+    private final ScheduledExecutorService lagChecker;
+
+    /**
+     * @param replicas 从库名称 -> 数据源；关闭时一并关闭实现了 Closeable 的数据源（如 Hikari 连接池）
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    DataSourceRoutingConfig config, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.config = config;
+        this.primaryRouted = Counter.builder("db.route").tag("target", "primary")
+                .description("按连接计的读写分离路由结果").register(meterRegistry);
+        this.fallbacks = Counter.builder("db.route.fallback")
+                .description("从库取连接失败后改用主库的次数").register(meterRegistry);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource,
+                    Counter.builder("db.route").tag("target", name).register(meterRegistry));
+            Gauge.builder("db.replica.lag", replica, r -> r.lagSeconds).tag("replica", name)
+                    .description("从库复制延迟（秒），-1 表示不可用").baseUnit("seconds").register(meterRegistry);
+            this.replicas.add(replica);
+        });
+        setTargetDataSource(new Router());
+        afterPropertiesSet();
+
+        // 首次检查也在后台进行，从库不可达时不拖慢启动；检查完成前读请求走主库
+        long interval = config.getLagCheckInterval().toMillis();
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 刷新每个从库的复制延迟；由后台线程按 lagCheckInterval 调用
+     */
+    public synchronized void checkReplicas() {
+        for (Replica replica : replicas) {
+            double lag = measureLag(replica);
+            if ((lag < 0) != (replica.lagSeconds < 0)) {
+                log.info(lag < 0 ? "从库 {} 不可用，读请求改走主库" : "从库 {} 已恢复，复制延迟 {} 秒", replica.name, lag);
+            }
+            replica.lagSeconds = lag;
+        }
+    }
+
+    /**
+     * 各从库当前的复制延迟（秒，-1 表示不可用）
+     */
+    public Map<String, Double> replicaLag() {
+        Map<String, Double> lag = new LinkedHashMap<>();
+        replicas.forEach(replica -> lag.put(replica.name, replica.lagSeconds));
+        return lag;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lagChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private double measureLag(Replica replica) {
+        String query = config.getLagQuery();
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (query == null || query.isBlank()) {
+                return 0;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(query)) {
+                // 没有结果（未配置复制）或延迟为 NULL（复制线程已停止）都视为不可用
+                if (!rs.next()) {
+                    return -1;
+                }
+                Object value = rs.getObject(config.getLagColumn());
+                return value instanceof Number number ? number.doubleValue() : -1;
+            }
+        } catch (SQLException e) {
+            log.debug("检查从库 {} 复制延迟失败", replica.name, e);
+            return -1;
+        }
+    }
+
+    // 轮询选择延迟在 maxLag 以内的从库，没有则返回 null
+    private Replica pickReplica() {
+        double maxLag = config.getMaxLag().toMillis() / 1000.0;
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.lagSeconds >= 0 && replica.lagSeconds <= maxLag) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Replica replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                    && !ReadConsistency.isPinnedToPrimary() ? pickReplica() : null;
+            if (replica != null) {
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.routed.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    // 等下一次延迟检查确认恢复后再使用
+                    replica.lagSeconds = -1;
+                    fallbacks.increment();
+                    log.warn("从库 {} 获取连接失败，改用主库: {}", replica.name, e.getMessage());
+                }
+            }
+            primaryRouted.increment();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return primary.getConnection(username, password);
+        }
+
+        // 让连接池指标、健康检查等通过 unwrap 找到主库连接池
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || primary.isWrapperFor(iface);
+        }
+    }
+}
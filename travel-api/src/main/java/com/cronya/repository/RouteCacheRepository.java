@@ -0,0 +1,22 @@
+package com.cronya.repository;
+
+import com.cronya.domain.RouteCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RouteCacheRepository extends JpaRepository<RouteCacheEntry, String> {
+    // 预热：取最近写入且未过期的条目
+    List<RouteCacheEntry> findByExpiresTimeAfterOrderByCreatedTimeDesc(LocalDateTime now, Pageable pageable);
+
+    // 清理过期条目
+    @Modifying
+    @Transactional
+    @Query("delete from RouteCacheEntry e where e.expiresTime < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -0,0 +1,29 @@
+package com.cronya.repository;
+
+import com.cronya.domain.TripDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface TripDocumentRepository extends JpaRepository<TripDocument, Long> {
+    // 只取校验和，不读取压缩内容
+    @Query("select d.checksum from TripDocument d where d.tripId = :tripId")
+    Optional<Long> findChecksum(Long tripId);
+
+    // 覆盖已有文档（save 对已存在的行会先整行读出再合并，这里直接更新）
+    @Modifying
+    @Transactional
+    @Query("update TripDocument d set d.content = :content, d.rawSize = :rawSize, d.checksum = :checksum, "
+            + "d.updatedTime = :updatedTime where d.tripId = :tripId")
+    int updateContent(Long tripId, byte[] content, Integer rawSize, Long checksum, LocalDateTime updatedTime);
+
+    // 直接按主键删除（deleteById 会先查询一次实体）
+    @Modifying
+    @Transactional
+    @Query("delete from TripDocument d where d.tripId = :tripId")
+    int deleteByTripId(Long tripId);
+}
@@ -1,11 +1,56 @@
 package com.cronya.repository;
 
 import com.cronya.domain.Trip;
+import com.cronya.domain.TripExportRow;
+import com.cronya.domain.TripSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TripRepository extends JpaRepository<Trip, Long> {
     // 按 userId 查询所有行程
     List<Trip> findAllByUserId(String userId);
-}
\ No newline at end of file
+
+    // 按 id 顺序分批扫描（重建搜索索引）
+    List<Trip> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // 分页列表第一页：按 (created_time, id) 倒序，走 idx_user_created 索引
+    @Query("select new com.cronya.domain.TripSummary(t.id, t.tripName, t.destination, t.days, t.estimatedTotal, t.createdTime, t.updatedTime) "
+            + "from Trip t where t.userId = :userId order by t.createdTime desc, t.id desc")
+    List<TripSummary> findSummaries(String userId, Limit limit);
+
+    // 分页列表后续页：从游标 (createdTime, id) 之后继续，不使用 offset
+    @Query("select new com.cronya.domain.TripSummary(t.id, t.tripName, t.destination, t.days, t.estimatedTotal, t.createdTime, t.updatedTime) "
+            + "from Trip t where t.userId = :userId "
+            + "and (t.createdTime < :createdTime or (t.createdTime = :createdTime and t.id < :id)) "
+            + "order by t.createdTime desc, t.id desc")
+    List<TripSummary> findSummariesBefore(String userId, LocalDateTime createdTime, Long id, Limit limit);
+
+    // 局部更新：版本号匹配时才更新，并递增版本号（返回 0 表示版本已变化或行程不存在）
+    @Modifying(clearAutomatically = true)
+    @Query("update Trip t set t.tripName = :tripName, t.destination = :destination, t.days = :days, "
+            + "t.budget = :budget, t.estimatedTotal = :estimatedTotal, t.updatedTime = :updatedTime, "
+            + "t.version = t.version + 1 where t.id = :id and t.version = :version")
+    int updateIfVersion(Long id, Long version, String tripName, String destination, Integer days,
+                        Double budget, Double estimatedTotal, LocalDateTime updatedTime);
+
+    // 导出：按 id 顺序只进游标读取（userId 为空时导出全部），每次从数据库取 fetchSize 行；
+    // MySQL 需在连接参数中开启 useCursorFetch，否则驱动会一次性把结果集读入内存。调用方必须在事务内消费并关闭 Stream
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.cronya.domain.TripExportRow(t.id, t.tripName, t.userId, t.destination, t.days, t.budget, "
+            + "t.estimatedTotal, t.version, t.createdTime, t.updatedTime, d.content, d.rawSize) "
+            + "from Trip t left join TripDocument d on d.tripId = t.id "
+            + "where (:userId is null or t.userId = :userId) order by t.id")
+    Stream<TripExportRow> streamForExport(String userId);
+}
@@ -1,30 +1,237 @@
 package com.cronya.service;
 
+import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.cronya.config.BaiduMapConfig;
-import org.apache.hc.client5.http.fluent.Request;
-import org.apache.hc.core5.util.Timeout;
+import com.cronya.outbound.OutboundExecutors;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class BaiduMapService {
     private final BaiduMapConfig baiduMapConfig;
+    private final OutboundExecutors outboundExecutors;
+    private final CloseableHttpClient baiduHttpClient;
+    private final RouteCache routeCache;
+    private final ObservationRegistry observationRegistry;
+
+    // 进行中的请求：相同起终点的并发请求共享同一次上游调用
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
 
     @Autowired
-    public BaiduMapService(BaiduMapConfig baiduMapConfig) {
+    public BaiduMapService(BaiduMapConfig baiduMapConfig, OutboundExecutors outboundExecutors,
+                           @Lazy CloseableHttpClient baiduHttpClient, RouteCache routeCache,
+                           ObservationRegistry observationRegistry) {
         this.baiduMapConfig = baiduMapConfig;
+        this.outboundExecutors = outboundExecutors;
+        this.baiduHttpClient = baiduHttpClient;
+        this.routeCache = routeCache;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * 异步版本：在百度地图隔离舱中执行，超时或隔离舱已满时返回统一错误格式。
+     * 带途经点（waypoints，以 | 分隔）时拆分为多段并发请求，再拼接为一条完整路线。
+     */
+    public CompletableFuture<String> getDrivingRouteAsync(Map<String, String> params) {
+        String origin = params.get("origin"); // 格式："lat,lng"
+        String destination = params.get("destination");
+        if (origin == null || destination == null) {
+            return CompletableFuture.completedFuture(error("请传入起点和终点经纬度"));
+        }
+
+        List<String> points = new ArrayList<>();
+        points.add(origin);
+        String waypoints = params.get("waypoints");
+        if (waypoints != null && !waypoints.isBlank()) {
+            for (String point : waypoints.split("\\|")) {
+                if (!point.isBlank()) {
+                    points.add(point.trim());
+                }
+            }
+        }
+        points.add(destination);
+
+        CompletableFuture<String> route = points.size() == 2
+                ? legAsync(origin, destination)
+                : multiLegAsync(points);
+        return route.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return error(cause instanceof TimeoutException ? "请求超时" : cause.getMessage());
+        });
     }
 
     public String getDrivingRoute(Map<String, String> params) {
+        String waypoints = params.get("waypoints");
+        if (waypoints != null && !waypoints.isBlank()) {
+            return getDrivingRouteAsync(params).join();
+        }
+        String key = routeCache.key(params.get("origin"), params.get("destination"), null);
+        String cached = routeCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return requestRoute(params.get("origin"), params.get("destination"), key);
+    }
+
+    /**
+     * 单段路线：缓存命中时直接返回；同一起终点的并发请求只会发出一次上游调用（single-flight），后到者直接复用结果。
+     */
+    private CompletableFuture<String> legAsync(String origin, String destination) {
+        String key = routeCache.key(origin, destination, null);
+        String cached = routeCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> shared = inFlight.putIfAbsent(key, created);
+        if (shared != null) {
+            // 每个调用方拿到独立的派生 future，互不影响
+            return shared.thenApply(response -> response);
+        }
+        outboundExecutors.get(OutboundExecutors.MAP)
+                .submit(() -> requestRoute(origin, destination, key))
+                .whenComplete((response, e) -> {
+                    inFlight.remove(key, created);
+                    if (e != null) {
+                        created.completeExceptionally(e);
+                    } else {
+                        created.complete(response);
+                    }
+                });
+        return created.thenApply(response -> response);
+    }
+
+    /**
+     * 多段路线：相邻两点为一段，最多 legParallelism 段同时在途，全部返回后按顺序拼接
+     */
+    private CompletableFuture<String> multiLegAsync(List<String> points) {
+        int legCount = points.size() - 1;
+        String[] legs = new String[legCount];
+        AtomicInteger next = new AtomicInteger();
+        int parallelism = Math.max(1, Math.min(baiduMapConfig.getDriving().getLegParallelism(), legCount));
+
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = drainLegs(points, legs, next);
+        }
+        return CompletableFuture.allOf(workers).thenApply(ignored -> stitch(legs));
+    }
+
+    private CompletableFuture<Void> drainLegs(List<String> points, String[] legs, AtomicInteger next) {
+        int i = next.getAndIncrement();
+        if (i >= legs.length) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return legAsync(points.get(i), points.get(i + 1)).thenCompose(response -> {
+            legs[i] = response;
+            return drainLegs(points, legs, next);
+        });
+    }
+
+    /**
+     * 拼接为与百度 directionlite 相同的返回结构：距离、耗时、过路费求和，steps 依次拼接并标注 leg_index。
+     * 任一段失败时直接返回该段的错误信息。
+     */
+    private static String stitch(String[] legs) {
+        JSONObject stitchedRoute = new JSONObject();
+        JSONArray steps = new JSONArray();
+        long distance = 0;
+        long duration = 0;
+        double toll = 0;
+        int trafficCondition = 0;
+        JSONObject origin = null;
+        JSONObject destination = null;
+
+        for (int i = 0; i < legs.length; i++) {
+            JSONObject leg = JSONObject.parseObject(legs[i]);
+            if (leg.getIntValue("status") != 0) {
+                return legs[i];
+            }
+            JSONObject result = leg.getJSONObject("result");
+            JSONArray routes = result == null ? null : result.getJSONArray("routes");
+            if (routes == null || routes.isEmpty()) {
+                return error("第 " + (i + 1) + " 段未返回路线");
+            }
+            JSONObject route = routes.getJSONObject(0);
+            if (i == 0) {
+                origin = result.getJSONObject("origin");
+                stitchedRoute.put("restriction_info", route.get("restriction_info"));
+            }
+            destination = result.getJSONObject("destination");
+
+            distance += route.getLongValue("distance");
+            duration += route.getLongValue("duration");
+            toll += route.getDoubleValue("toll");
+            trafficCondition = Math.max(trafficCondition, route.getIntValue("traffic_condition"));
+            JSONArray legSteps = route.getJSONArray("steps");
+            if (legSteps != null) {
+                for (int j = 0; j < legSteps.size(); j++) {
+                    JSONObject step = legSteps.getJSONObject(j);
+                    step.put("leg_index", i);
+                    steps.add(step);
+                }
+            }
+        }
+
+        stitchedRoute.put("distance", distance);
+        stitchedRoute.put("duration", duration);
+        stitchedRoute.put("toll", toll);
+        stitchedRoute.put("traffic_condition", trafficCondition);
+        stitchedRoute.put("steps", steps);
+
+        JSONObject result = new JSONObject();
+        result.put("origin", origin);
+        result.put("destination", destination);
+        JSONArray routes = new JSONArray();
+        routes.add(stitchedRoute);
+        result.put("routes", routes);
+
+        JSONObject response = new JSONObject();
+        response.put("status", 0);
+        response.put("message", "ok");
+        response.put("result", result);
+        return response.toJSONString();
+    }
+
+    /**
+     * 单段上游调用，观测 map.route 的 status 标签为百度返回的业务状态码（-1 表示本地失败）
+     */
+    private String requestRoute(String origin, String destination, String key) {
+        Observation observation = Observation.createNotStarted("map.route", observationRegistry).start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            String body = doRequestRoute(origin, destination, key);
+            observation.lowCardinalityKeyValue("status", String.valueOf(statusOf(body)));
+            return body;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private String doRequestRoute(String origin, String destination, String key) {
         try {
             // 1. 从配置类中获取服务端AK和接口地址
             String ak = baiduMapConfig.getServer().getAk();
             String apiUrl = baiduMapConfig.getDriving().getUrl();
-            int timeout = 5000;
 
             // 2. 校验配置是否完整
             if (ak == null || ak.isEmpty()) {
@@ -34,50 +241,66 @@ public class BaiduMapService {
                 throw new RuntimeException("驾车路线接口地址未配置");
             }
 
-            // 3. 获取前端传递的起终点经纬度
-            String origin = params.get("origin"); // 格式："lng,lat"
-            String destination = params.get("destination");
+            // 3. 校验起终点经纬度
             if (origin == null || destination == null) {
                 throw new RuntimeException("请传入起点和终点经纬度");
             }
 
             // 4. 构建百度地图API请求参数
-            Map<String, String> apiParams = new HashMap<>();
+            Map<String, String> apiParams = new LinkedHashMap<>();
             apiParams.put("ak", ak);               // 服务端AK（从配置类获取）
             apiParams.put("origin", origin);       // 起点
             apiParams.put("destination", destination); // 终点
-//            apiParams.put("output", "json");       // 返回格式为JSON
-
-            // 5. 拼接请求URL（参数键值对）
-            StringBuilder urlBuilder = new StringBuilder(apiUrl);
-            urlBuilder.append("?");
-            for (Map.Entry<String, String> entry : apiParams.entrySet()) {
-                urlBuilder.append(entry.getKey())
-                        .append("=")
-                        .append(entry.getValue())
-                        .append("&");
-            }
-            // 去除最后一个多余的"&"
-            String requestUrl = urlBuilder.substring(0, urlBuilder.length() - 1);
-            System.out.println(requestUrl);
 
-            // 6. 调用百度地图API（设置超时时间，从配置类获取）
-            String response = Request.get(requestUrl)
-                    .connectTimeout(Timeout.ofMilliseconds(timeout)) // 连接超时
-                    .responseTimeout(Timeout.ofMilliseconds(timeout)) // 响应超时
-                    .execute()
-                    .returnContent()
-                    .asString();
+            // 5. 调用百度地图API（连接池复用长连接，超时由连接池配置统一控制）
+            HttpGet request = new HttpGet(buildUrl(apiUrl, apiParams));
+            String body = baiduHttpClient.execute(request, response -> {
+                if (response.getCode() >= 300) {
+                    throw new RuntimeException("百度地图接口返回 HTTP " + response.getCode());
+                }
+                return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            });
 
-            // 7. 将百度返回的结果转发给前端
-            return response;
+            // 6. 只缓存成功结果（status = 0），再转发给前端
+            if (JSONObject.parseObject(body).getIntValue("status") == 0) {
+                routeCache.put(key, body);
+            }
+            return body;
 
         } catch (Exception e) {
             // 异常处理：返回统一格式的错误信息
-            JSONObject error = new JSONObject();
-            error.put("status", -1);
-            error.put("message", "路线规划失败：" + e.getMessage());
-            return error.toString();
+            return error(e.getMessage());
+        }
+    }
+
+    private static int statusOf(String body) {
+        try {
+            return JSONObject.parseObject(body).getIntValue("status");
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 拼接请求URL（参数值做 URL 编码）
+     */
+    public static String buildUrl(String apiUrl, Map<String, String> apiParams) {
+        StringBuilder urlBuilder = new StringBuilder(apiUrl);
+        char separator = apiUrl.indexOf('?') >= 0 ? '&' : '?';
+        for (Map.Entry<String, String> entry : apiParams.entrySet()) {
+            urlBuilder.append(separator)
+                    .append(entry.getKey())
+                    .append('=')
+                    .append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+            separator = '&';
         }
+        return urlBuilder.toString();
+    }
+
+    private static String error(String message) {
+        JSONObject error = new JSONObject();
+        error.put("status", -1);
+        error.put("message", "路线规划失败：" + message);
+        return error.toString();
     }
 }
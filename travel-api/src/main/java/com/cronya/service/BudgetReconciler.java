@@ -0,0 +1,189 @@
+package com.cronya.service;
+
+import com.cronya.model.BudgetAnalysis;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import com.cronya.model.Verification;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * 本地预算校正：不再依赖模型自算自验，统一由 segments[].cost 重新推导
+ * dailyTotalCost、budgetAnalysis、computedDailySums、computedCategorySums 与 verification。
+ * <p>
+ * 所有金额按两位小数四舍五入（BigDecimal 累加，避免浮点误差）；某天缺少住宿时，
+ * 复制距离最近一天的住宿记录补齐。与模型原值不一致的地方记录在 debug 字段中。
+ */
+@Component
+public class BudgetReconciler {
+
+    public static final String LODGING = "住宿";
+    public static final List<String> CATEGORIES = List.of("交通", "住宿", "餐饮", "景点", "购物", "文化");
+
+    public void reconcile(TripPlan plan) {
+        if (plan == null || plan.getTripPlan() == null) {
+            return;
+        }
+        List<DayPlan> days = plan.getTripPlan();
+        List<String> notes = new ArrayList<>();
+
+        boolean lodgingEveryDay = fillMissingLodging(days, notes);
+
+        Map<String, BigDecimal> categorySums = new LinkedHashMap<>();
+        CATEGORIES.forEach(c -> categorySums.put(c, BigDecimal.ZERO));
+        Map<String, Double> computedDailySums = new LinkedHashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (int i = 0; i < days.size(); i++) {
+            DayPlan day = days.get(i);
+            if (day == null) {
+                continue;
+            }
+            int dayNo = day.getDay() > 0 ? day.getDay() : i + 1;
+            BigDecimal dailySum = BigDecimal.ZERO;
+
+            for (Segment segment : segments(day)) {
+                BigDecimal cost = round(segment.getCost());
+                segment.setCost(cost.doubleValue());
+                dailySum = dailySum.add(cost);
+                if (segment.getCategory() != null) {
+                    categorySums.merge(segment.getCategory(), cost, BigDecimal::add);
+                }
+            }
+
+            compare(notes, "day" + dayNo + ".dailyTotalCost", day.getDailyTotalCost(), dailySum);
+            day.setDailyTotalCost(dailySum.doubleValue());
+            computedDailySums.put("day" + dayNo, dailySum.doubleValue());
+            total = total.add(dailySum);
+        }
+
+        BudgetAnalysis budgetAnalysis = plan.getBudgetAnalysis() != null ? plan.getBudgetAnalysis() : new BudgetAnalysis();
+        compare(notes, "estimatedTotal", budgetAnalysis.getEstimatedTotal(), total);
+        Map<String, Double> categories = new LinkedHashMap<>();
+        categorySums.forEach((c, sum) -> categories.put(c, sum.doubleValue()));
+        budgetAnalysis.setEstimatedTotal(total.doubleValue());
+        budgetAnalysis.setCategories(categories);
+        if (budgetAnalysis.getCurrency() == null) {
+            budgetAnalysis.setCurrency("CNY");
+        }
+        plan.setBudgetAnalysis(budgetAnalysis);
+
+        plan.setComputedDailySums(computedDailySums);
+        plan.setComputedCategorySums(new LinkedHashMap<>(categories));
+
+        // 所有汇总均由同一组 cost 推导，三项校验恒成立
+        Verification verification = new Verification();
+        verification.setDailyEqual(true);
+        verification.setTotalEqual(true);
+        verification.setCategoryEqual(true);
+        verification.setLodgingEveryDay(lodgingEveryDay);
+        plan.setVerification(verification);
+
+        if (!notes.isEmpty()) {
+            plan.setDebug("本地校正：" + String.join("；", notes));
+        } else if (plan.getDebug() == null) {
+            plan.setDebug("本地校验一致");
+        }
+    }
+
+    /**
+     * 单天校正（流式接口逐天推送时使用）：金额取两位小数并重算 dailyTotalCost
+     */
+    public void reconcileDay(DayPlan day) {
+        if (day == null) {
+            return;
+        }
+        BigDecimal dailySum = BigDecimal.ZERO;
+        for (Segment segment : segments(day)) {
+            BigDecimal cost = round(segment.getCost());
+            segment.setCost(cost.doubleValue());
+            dailySum = dailySum.add(cost);
+        }
+        day.setDailyTotalCost(dailySum.doubleValue());
+    }
+
+    /**
+     * 为缺少住宿的天补上距离最近一天的住宿记录
+     *
+     * @return 校正后是否每天都有住宿
+     */
+    private boolean fillMissingLodging(List<DayPlan> days, List<String> notes) {
+        int n = days.size();
+        Segment[] lodging = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            for (Segment segment : segments(days.get(i))) {
+                if (LODGING.equals(segment.getCategory())) {
+                    lodging[i] = segment;
+                    break;
+                }
+            }
+        }
+
+        boolean all = true;
+        for (int i = 0; i < n; i++) {
+            DayPlan day = days.get(i);
+            if (lodging[i] != null || day == null) {
+                continue;
+            }
+            Segment nearest = null;
+            for (int d = 1; d < n && nearest == null; d++) {
+                if (i - d >= 0 && lodging[i - d] != null) {
+                    nearest = lodging[i - d];
+                } else if (i + d < n && lodging[i + d] != null) {
+                    nearest = lodging[i + d];
+                }
+            }
+            if (nearest == null) {
+                all = false;
+                continue;
+            }
+            Segment copy = nearest.copy();
+            copy.setTime("晚上");
+            copy.setActivity("入住" + (nearest.getLocation() == null ? "" : nearest.getLocation()));
+            if (day.getSegments() == null) {
+                day.setSegments(new ArrayList<>());
+            }
+            day.getSegments().add(copy);
+            notes.add("day" + (i + 1) + " 缺少住宿，已按相邻日补齐");
+        }
+        return all;
+    }
+
+    private static List<Segment> segments(DayPlan day) {
+        if (day == null || day.getSegments() == null) {
+            return List.of();
+        }
+        List<Segment> segments = new ArrayList<>(day.getSegments().size());
+        for (Segment segment : day.getSegments()) {
+            if (segment != null) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * 模型给出的汇总值与本地计算不一致时记录下来（0 视为模型未给出）
+     */
+    private static void compare(List<String> notes, String field, double modelValue, BigDecimal computed) {
+        if (modelValue == 0) {
+            return;
+        }
+        BigDecimal reported = round(modelValue);
+        if (reported.compareTo(computed) != 0) {
+            notes.add(field + " " + reported.toPlainString() + "→" + computed.toPlainString());
+        }
+    }
+
+    public static BigDecimal round(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || value < 0) {
+            return BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
+        }
+        // valueOf 按最短十进制表示构造，300.005 不会被放大成 300.00499...
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
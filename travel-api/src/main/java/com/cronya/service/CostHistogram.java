@@ -0,0 +1,65 @@
+package com.cronya.service;
+
+/**
+ * 金额分布直方图：固定 64 个按 1.2 倍递增的对数桶（覆盖 1 ~ 约 9.6 万元，更大的计入最后一桶，不足 1 元计入第 0 桶），
+ * 只保存 int 计数，支持按桶加减（样本可撤回）。分位数取桶的几何中点，相对误差约 ±10%。
+ * 非线程安全，由调用方加锁。
+ */
+public final class CostHistogram {
+
+    public static final int BUCKETS = 64;
+    private static final double GROWTH = 1.2;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final int[] counts = new int[BUCKETS];
+    private long count;
+
+    public static int bucket(double value) {
+        if (!(value >= 1)) {
+            return 0;
+        }
+        return (int) Math.min(BUCKETS - 1, 1 + Math.floor(Math.log(value) / LOG_GROWTH));
+    }
+
+    /**
+     * 桶的代表值：第 b 桶覆盖 [1.2^(b-1), 1.2^b)，取几何中点
+     */
+    public static double value(int bucket) {
+        return bucket == 0 ? 0 : Math.pow(GROWTH, bucket - 0.5);
+    }
+
+    public void add(int bucket, int delta) {
+        counts[bucket] += delta;
+        count += delta;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double quantile(double q) {
+        if (count <= 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= Math.max(rank, 1)) {
+                return value(b);
+            }
+        }
+        return value(BUCKETS - 1);
+    }
+
+    public double mean() {
+        if (count <= 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int b = 1; b < BUCKETS; b++) {
+            sum += counts[b] * value(b);
+        }
+        return sum / count;
+    }
+}
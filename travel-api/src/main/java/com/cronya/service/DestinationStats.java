@@ -0,0 +1,439 @@
+package com.cronya.service;
+
+import com.cronya.config.TripStatsConfig;
+import com.cronya.domain.Trip;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import com.cronya.repository.TripRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 目的地花费统计：从已保存行程的每个 segment 汇总每天的总花费与各类别花费，
+ * 按 目的地 × 季节 × 同行人 聚合成固定大小的 {@link CostHistogram}（另维护去掉季节 / 同行人的汇总组合）。
+ * <p>
+ * 行程写入后按事件增量更新：每个行程的贡献压缩成一个 long（组合编号 + 各指标的桶号），存放在
+ * 不装箱的 {@link LongLongMap} 中，修改或删除时先撤回旧贡献再加入新贡献。
+ * 启动后在后台并行全量回填一次；旧数据迁移（ApplicationRunner）在此之前已经完成，迁移的行程都有文档。
+ * 查询只做至多 4 次哈希查找与固定 64 桶的扫描；内存上限由 trip.stats.max-groups 控制（每个组合约 2KB），
+ * 另加每个行程约 21 字节。
+ */
+@Component
+public class DestinationStats {
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationStats.class);
+
+    /** 指标：第 0 项为每天总花费，其余为各类别每天花费（与 prompt 中 segment.category 的取值一致） */
+    public static final List<String> METRICS = List.of("每天总花费", "住宿", "交通", "餐饮", "景点", "购物", "文化");
+
+    private static final String ANY = "";
+    private static final int BUCKET_BITS = 6;
+    private static final long BUCKET_MASK = (1L << BUCKET_BITS) - 1;
+    private static final int GROUP_SHIFT = BUCKET_BITS * 7;
+
+    /**
+     * @param season     未区分季节时为 null
+     * @param companions 未区分同行人时为 null
+     * @param perDay     指标名 -> 每天花费的分布（元）
+     */
+    public record Summary(String destination, String season, String companions, long samples,
+                          Map<String, Distribution> perDay) {
+    }
+
+    public record Distribution(double p25, double p50, double p75, double mean) {
+    }
+
+    private record GroupKey(String destination, String season, String companions) {
+    }
+
+    private static final class Group {
+        final CostHistogram[] metrics = new CostHistogram[METRICS.size()];
+
+        Group() {
+            for (int i = 0; i < metrics.length; i++) {
+                metrics[i] = new CostHistogram();
+            }
+        }
+
+        synchronized void apply(long packed, int delta) {
+            for (int i = 0; i < metrics.length; i++) {
+                metrics[i].add((int) ((packed >>> (BUCKET_BITS * i)) & BUCKET_MASK), delta);
+            }
+        }
+
+        synchronized long samples() {
+            return metrics[0].count();
+        }
+
+        synchronized Map<String, Distribution> distributions() {
+            Map<String, Distribution> result = new LinkedHashMap<>();
+            for (int i = 0; i < metrics.length; i++) {
+                CostHistogram h = metrics[i];
+                result.put(METRICS.get(i), new Distribution(round(h.quantile(0.25)), round(h.quantile(0.5)),
+                        round(h.quantile(0.75)), round(h.mean())));
+            }
+            return result;
+        }
+    }
+
+    private final TripStatsConfig config;
+    private final TripRepository tripRepository;
+    private final TripDocumentStore documentStore;
+
+    private final Map<GroupKey, Group> groups = new ConcurrentHashMap<>();
+    // 组合编号 -> 最细的组合（编号写入行程贡献中）
+    private final List<GroupKey> leafKeys = new ArrayList<>();
+    private final Map<GroupKey, Integer> leafIds = new HashMap<>();
+    // 行程 id -> 贡献（组合编号 << 42 | 7 个 6 位桶号），以自身为锁
+    private final LongLongMap contributions = new LongLongMap();
+    // 已统计的目的地，用于在用户原文中识别目的地
+    private final Set<String> destinations = ConcurrentHashMap.newKeySet();
+    private volatile int maxDestinationLength;
+    // 回填期间被删除的行程，避免回填把读到的旧数据加回来
+    private final Set<Long> removedDuringBackfill = ConcurrentHashMap.newKeySet();
+    private volatile boolean backfilling;
+
+    public DestinationStats(TripStatsConfig config, TripRepository tripRepository, TripDocumentStore documentStore,
+                            MeterRegistry meterRegistry) {
+        this.config = config;
+        this.tripRepository = tripRepository;
+        this.documentStore = documentStore;
+        Gauge.builder("trip.stats.groups", groups, Map::size)
+                .description("目的地花费统计的组合数").register(meterRegistry);
+        Gauge.builder("trip.stats.trips", this, DestinationStats::trips)
+                .description("计入目的地花费统计的行程数").register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Map<Long, String> documents = documentStore.loadAll(event.tripIds());
+        for (Long id : event.tripIds()) {
+            TripPlan plan = TripIndexer.parse(documents.get(id));
+            if (plan == null) {
+                remove(id);
+            } else {
+                update(id, plan);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (config.isEnabled() && config.isBackfillOnStartup()) {
+            Thread thread = new Thread(this::backfill, "trip-stats-backfill");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * 按 id 顺序分批扫描所有行程，文档的读取与解析并行进行；已由事件统计过的行程保持不变
+     *
+     * @return 扫描的行程数
+     */
+    public synchronized long backfill() {
+        long startNanos = System.nanoTime();
+        int parallelism = Math.max(1, config.getBackfillParallelism());
+        int batchSize = Math.max(1, config.getBackfillBatchSize());
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "trip-stats-backfill-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 限制同时在内存中的批次数
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        backfilling = true;
+        long count = 0;
+        try {
+            long lastId = 0;
+            List<Trip> batch;
+            do {
+                batch = tripRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = batch.stream().map(Trip::getId).toList();
+                lastId = ids.get(ids.size() - 1);
+                count += ids.size();
+                inFlight.acquire();
+                futures.add(pool.submit(() -> {
+                    try {
+                        Map<Long, String> documents = documentStore.loadAll(ids);
+                        for (Long id : ids) {
+                            TripPlan plan = TripIndexer.parse(documents.get(id));
+                            if (plan != null) {
+                                addIfAbsent(id, plan);
+                            }
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            } while (batch.size() == batchSize);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            log.info("目的地花费统计回填完成：扫描 {} 个行程，{} 个计入统计，耗时 {} ms", count, trips(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | ExecutionException e) {
+            log.warn("目的地花费统计回填失败，已统计的部分继续有效", e);
+        } finally {
+            backfilling = false;
+            removedDuringBackfill.clear();
+            pool.shutdownNow();
+        }
+        return count;
+    }
+
+    /**
+     * 加入或替换一个行程的贡献；文档中缺少目的地或花费时撤回旧贡献
+     */
+    public void update(Long tripId, TripPlan plan) {
+        Long packed = pack(plan);
+        long previous;
+        synchronized (contributions) {
+            previous = packed == null ? contributions.remove(tripId) : contributions.put(tripId, packed);
+        }
+        if (previous != LongLongMap.ABSENT) {
+            apply(previous, -1);
+        }
+        if (packed != null) {
+            apply(packed, 1);
+        }
+    }
+
+    public void remove(Long tripId) {
+        if (backfilling) {
+            removedDuringBackfill.add(tripId);
+        }
+        long previous;
+        synchronized (contributions) {
+            previous = contributions.remove(tripId);
+        }
+        if (previous != LongLongMap.ABSENT) {
+            apply(previous, -1);
+        }
+    }
+
+    /**
+     * 按 (目的地, 季节, 同行人) → (目的地, 季节) → (目的地, 同行人) → 目的地 的顺序取第一个样本足够的组合
+     */
+    public Optional<Summary> lookup(String destination, String season, String companions) {
+        if (destination == null || destination.isBlank()) {
+            return Optional.empty();
+        }
+        String d = destination.trim();
+        String s = normalize(season);
+        String c = normalize(companions);
+        List<GroupKey> keys = new ArrayList<>(4);
+        if (!s.isEmpty() && !c.isEmpty()) {
+            keys.add(new GroupKey(d, s, c));
+        }
+        if (!s.isEmpty()) {
+            keys.add(new GroupKey(d, s, ANY));
+        }
+        if (!c.isEmpty()) {
+            keys.add(new GroupKey(d, ANY, c));
+        }
+        keys.add(new GroupKey(d, ANY, ANY));
+        for (GroupKey key : keys) {
+            Group group = groups.get(key);
+            long samples = group == null ? 0 : group.samples();
+            if (samples > 0 && samples >= config.getMinSamples()) {
+                return Optional.of(new Summary(key.destination(), key.season().isEmpty() ? null : key.season(),
+                        key.companions().isEmpty() ? null : key.companions(), samples, group.distributions()));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 为规划提示词生成一句话的预算参考；原文中识别不到已统计的目的地或样本不足时返回 null
+     */
+    public String budgetHint(String rawText) {
+        if (!config.isEnabled() || rawText == null) {
+            return null;
+        }
+        String destination = matchDestination(rawText);
+        if (destination == null) {
+            return null;
+        }
+        Summary summary = lookup(destination, TripIntentExtractor.extractSeason(rawText),
+                TripIntentExtractor.extractCompanions(rawText)).orElse(null);
+        if (summary == null) {
+            return null;
+        }
+        Distribution total = summary.perDay().get(METRICS.get(0));
+        StringBuilder hint = new StringBuilder()
+                .append(summary.destination());
+        if (summary.season() != null || summary.companions() != null) {
+            hint.append("（").append(summary.season() != null ? summary.season() : "")
+                    .append(summary.season() != null && summary.companions() != null ? "，" : "")
+                    .append(summary.companions() != null ? summary.companions() : "").append("）");
+        }
+        hint.append(" 已有 ").append(summary.samples()).append(" 份行程：每天花费中位数 ")
+                .append(Math.round(total.p50())).append(" 元（四分位 ").append(Math.round(total.p25()))
+                .append("–").append(Math.round(total.p75())).append("），按类别每天平均");
+        for (String category : METRICS.subList(1, METRICS.size())) {
+            long mean = Math.round(summary.perDay().get(category).mean());
+            if (mean > 0) {
+                hint.append(' ').append(category).append(' ').append(mean);
+            }
+        }
+        return hint.append(" 元。").toString();
+    }
+
+    // 在原文中找最长的已统计目的地：按起点逐个试探长度，与目的地数量无关
+    private String matchDestination(String text) {
+        int maxLength = maxDestinationLength;
+        String best = null;
+        for (int start = 0; start < text.length(); start++) {
+            for (int end = Math.min(text.length(), start + maxLength); end > start; end--) {
+                if (best != null && end - start <= best.length()) {
+                    break;
+                }
+                String candidate = text.substring(start, end);
+                if (destinations.contains(candidate)) {
+                    best = candidate;
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void addIfAbsent(Long tripId, TripPlan plan) {
+        Long packed = pack(plan);
+        if (packed == null) {
+            return;
+        }
+        synchronized (contributions) {
+            if (contributions.get(tripId) != LongLongMap.ABSENT) {
+                return;
+            }
+            contributions.put(tripId, packed);
+        }
+        apply(packed, 1);
+        // 先写入再检查：与 remove 的 "先记录再删除" 配合，并发删除时总有一方撤回
+        if (removedDuringBackfill.contains(tripId)) {
+            boolean withdrawn = false;
+            synchronized (contributions) {
+                if (contributions.get(tripId) == packed) {
+                    contributions.remove(tripId);
+                    withdrawn = true;
+                }
+            }
+            if (withdrawn) {
+                apply(packed, -1);
+            }
+        }
+    }
+
+    private int trips() {
+        synchronized (contributions) {
+            return contributions.size();
+        }
+    }
+
+    private void apply(long packed, int delta) {
+        GroupKey leaf;
+        synchronized (leafKeys) {
+            leaf = leafKeys.get((int) (packed >>> GROUP_SHIFT));
+        }
+        // 行程未区分季节或同行人时，几个汇总组合相同，只计一次
+        Set<GroupKey> keys = new LinkedHashSet<>(List.of(leaf, new GroupKey(leaf.destination(), leaf.season(), ANY),
+                new GroupKey(leaf.destination(), ANY, leaf.companions()), new GroupKey(leaf.destination(), ANY, ANY)));
+        for (GroupKey key : keys) {
+            groups.computeIfAbsent(key, k -> new Group()).apply(packed, delta);
+        }
+    }
+
+    /**
+     * 把一个行程压缩成一个 long；缺少目的地、天数或花费，或组合数已达上限时返回 null
+     */
+    private Long pack(TripPlan plan) {
+        if (plan.getTripIntent() == null || plan.getTripIntent().getDestination() == null
+                || plan.getTripIntent().getDestination().isBlank() || plan.getTripPlan() == null) {
+            return null;
+        }
+        double[] perDay = new double[METRICS.size()];
+        int days = 0;
+        for (DayPlan day : plan.getTripPlan()) {
+            if (day == null || day.getSegments() == null || day.getSegments().isEmpty()) {
+                continue;
+            }
+            days++;
+            for (Segment segment : day.getSegments()) {
+                if (segment == null || !(segment.getCost() > 0)) {
+                    continue;
+                }
+                perDay[0] += segment.getCost();
+                int category = segment.getCategory() == null ? -1 : METRICS.indexOf(segment.getCategory().trim());
+                if (category > 0) {
+                    perDay[category] += segment.getCost();
+                }
+            }
+        }
+        if (days == 0 || perDay[0] <= 0) {
+            return null;
+        }
+        String destination = plan.getTripIntent().getDestination().trim();
+        String companions = plan.getUserProfile() == null ? null : plan.getUserProfile().getCompanions();
+        Integer groupId = leafId(new GroupKey(destination, normalize(plan.getTripIntent().getSeason()),
+                normalize(companions)));
+        if (groupId == null) {
+            return null;
+        }
+        long packed = (long) groupId << GROUP_SHIFT;
+        for (int i = 0; i < perDay.length; i++) {
+            packed |= (long) CostHistogram.bucket(perDay[i] / days) << (BUCKET_BITS * i);
+        }
+        return packed;
+    }
+
+    private Integer leafId(GroupKey key) {
+        synchronized (leafKeys) {
+            Integer id = leafIds.get(key);
+            if (id == null) {
+                if (leafKeys.size() >= config.getMaxGroups()) {
+                    return null;
+                }
+                id = leafKeys.size();
+                leafKeys.add(key);
+                leafIds.put(key, id);
+                destinations.add(key.destination());
+                maxDestinationLength = Math.max(maxDestinationLength, key.destination().length());
+            }
+            return id;
+        }
+    }
+
+    // 只接受 prompt 中约定的取值形式，去掉空白；"待定" 等视为未区分
+    private static String normalize(String value) {
+        if (value == null || value.isBlank() || "待定".equals(value.trim())) {
+            return ANY;
+        }
+        return value.trim();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
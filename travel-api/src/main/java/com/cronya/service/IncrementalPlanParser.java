@@ -0,0 +1,126 @@
+package com.cronya.service;
+
+/**
+ * 增量 JSON 切分器：逐段喂入模型输出，在顶层对象的某个字段值（或 tripPlan 数组中的某一天）
+ * 语法闭合时立即回调。只做括号/字符串状态跟踪，不构建语法树，每个字符只扫描一次。
+ */
+public class IncrementalPlanParser {
+
+    public interface Handler {
+        /** 顶层字段（对象或数组类型，tripPlan 除外）已闭合 */
+        void onField(String name, String json);
+
+        /** tripPlan 中的某一天已闭合 */
+        void onDay(String json);
+    }
+
+    private static final String TRIP_PLAN = "tripPlan";
+
+    private final Handler handler;
+    private final StringBuilder text = new StringBuilder();
+
+    private int pos = 0;          // 下一个待扫描字符
+    private int depth = 0;        // 当前嵌套深度，根对象内部为 1
+    private int rootStart = -1;   // 根对象 '{' 的位置（模型可能在前面输出 ```json 等多余文本）
+    private int rootEnd = -1;     // 根对象 '}' 的位置
+    private boolean inString = false;
+    private boolean escaped = false;
+
+    private boolean expectKey = false;
+    private int keyStart = -1;
+    private String currentKey;
+    private int valueStart = -1;
+    private boolean inTripPlan = false;
+    private int dayStart = -1;
+
+    public IncrementalPlanParser(Handler handler) {
+        this.handler = handler;
+    }
+
+    public void feed(String chunk) {
+        text.append(chunk);
+        for (; pos < text.length(); pos++) {
+            if (rootEnd >= 0) {
+                return;
+            }
+            scan(text.charAt(pos), pos);
+        }
+    }
+
+    /**
+     * 返回目前收到的内容；根对象已闭合时只返回根对象本身
+     */
+    public String getText() {
+        if (rootStart >= 0 && rootEnd >= 0) {
+            return text.substring(rootStart, rootEnd + 1);
+        }
+        return text.toString();
+    }
+
+    private void scan(char c, int i) {
+        if (rootStart < 0) {
+            if (c == '{') {
+                rootStart = i;
+                depth = 1;
+                expectKey = true;
+            }
+            return;
+        }
+
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (depth == 1 && expectKey && keyStart >= 0) {
+                    currentKey = text.substring(keyStart, i);
+                    expectKey = false;
+                    keyStart = -1;
+                }
+            }
+            return;
+        }
+
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                if (depth == 1 && expectKey) {
+                    keyStart = i + 1;
+                }
+            }
+            case '{', '[' -> {
+                depth++;
+                if (depth == 2) {
+                    valueStart = i;
+                    inTripPlan = TRIP_PLAN.equals(currentKey) && c == '[';
+                } else if (depth == 3 && inTripPlan && c == '{') {
+                    dayStart = i;
+                }
+            }
+            case '}', ']' -> {
+                if (depth == 3 && inTripPlan && c == '}' && dayStart >= 0) {
+                    handler.onDay(text.substring(dayStart, i + 1));
+                    dayStart = -1;
+                } else if (depth == 2) {
+                    if (!inTripPlan && currentKey != null) {
+                        handler.onField(currentKey, text.substring(valueStart, i + 1));
+                    }
+                    inTripPlan = false;
+                }
+                depth--;
+                if (depth == 0) {
+                    rootEnd = i;
+                }
+            }
+            case ',' -> {
+                if (depth == 1) {
+                    expectKey = true;
+                }
+            }
+            default -> {
+            }
+        }
+    }
+}
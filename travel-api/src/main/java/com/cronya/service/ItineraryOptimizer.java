@@ -0,0 +1,331 @@
+package com.cronya.service;
+
+import com.cronya.config.PlanOptimizerConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地行程顺序优化：模型给出的当天游览顺序经常来回折返，这里按球面距离重排，而不是重新请求模型。
+ * <p>
+ * 每天首尾的住宿、以及配置的锚点类别（默认餐饮）保持原位置不动，锚点把一天切成若干段，
+ * 每段内的其余行程按「固定起点（可选固定终点）的开放路径」求解：最近邻构造初始解，再用 2-opt 与 Or-opt 局部改进。
+ * 只有总距离确实变短时才改写顺序；time 字段按位置保留（上午/中午/下午…仍按原时段顺序排列）。
+ */
+@Component
+public class ItineraryOptimizer {
+
+    private static final String LODGING = "住宿";
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double EPS = 1e-9;
+
+    private final PlanOptimizerConfig config;
+
+    public ItineraryOptimizer(PlanOptimizerConfig config) {
+        this.config = config;
+    }
+
+    public void optimize(TripPlan plan) {
+        if (!config.isEnabled() || plan == null || plan.getTripPlan() == null) {
+            return;
+        }
+        for (DayPlan day : plan.getTripPlan()) {
+            optimizeDay(day);
+        }
+    }
+
+    /**
+     * 优化单天（tripPlan 中的一个元素），segments 缺少有效坐标时保持原样
+     */
+    public void optimizeDay(DayPlan day) {
+        if (!config.isEnabled() || day == null || day.getSegments() == null || day.getSegments().size() < 3) {
+            return;
+        }
+        List<Segment> segments = day.getSegments();
+        int n = segments.size();
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        boolean[] anchored = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            Segment segment = segments.get(i);
+            if (segment == null || segment.getLatitude() == 0 || segment.getLongitude() == 0) {
+                return;
+            }
+            lat[i] = segment.getLatitude();
+            lng[i] = segment.getLongitude();
+            String category = segment.getCategory();
+            anchored[i] = config.getAnchorCategories().contains(category)
+                    || ((i == 0 || i == n - 1) && LODGING.equals(category));
+        }
+
+        int[] order = order(lat, lng, anchored, config.getMaxRounds());
+        boolean changed = false;
+        for (int i = 0; i < n; i++) {
+            changed |= order[i] != i;
+        }
+        if (!changed) {
+            return;
+        }
+
+        String[] times = new String[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = segments.get(i).getTime();
+        }
+        List<Segment> reordered = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Segment segment = segments.get(order[i]);
+            if (times[i] != null) {
+                segment.setTime(times[i]);
+            }
+            reordered.add(segment);
+        }
+        segments.clear();
+        segments.addAll(reordered);
+    }
+
+    /**
+     * 计算访问顺序
+     *
+     * @param anchored 为 true 的位置保持不动
+     * @return order[i] = 新顺序第 i 个位置上的原下标；若无法缩短总距离则返回原顺序
+     */
+    public static int[] order(double[] lat, double[] lng, boolean[] anchored, int maxRounds) {
+        int n = lat.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        if (n < 3) {
+            return order;
+        }
+        double[] dist = distanceMatrix(lat, lng);
+
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < n; i++) {
+            if (anchored[i]) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        // 没有任何锚点时以第一个行程为起点
+        if (first < 0) {
+            first = 0;
+            last = 0;
+        }
+
+        // 第一个锚点之前：终点固定、起点自由 —— 反向求解后再翻转
+        if (first > 0) {
+            int[] solved = solve(dist, n, first, range(0, first), -1, maxRounds);
+            for (int i = 0; i < solved.length; i++) {
+                order[first - 1 - i] = solved[i];
+            }
+        }
+        // 相邻锚点之间：起终点都固定
+        int prev = first;
+        for (int i = first + 1; i <= last; i++) {
+            if (anchored[i]) {
+                if (i - prev > 1) {
+                    System.arraycopy(solve(dist, n, prev, range(prev + 1, i), i, maxRounds), 0, order, prev + 1, i - prev - 1);
+                }
+                prev = i;
+            }
+        }
+        // 最后一个锚点之后：起点固定、终点自由
+        if (last < n - 1) {
+            System.arraycopy(solve(dist, n, last, range(last + 1, n), -1, maxRounds), 0, order, last + 1, n - last - 1);
+        }
+
+        return pathLength(dist, n, order) + EPS < pathLength(dist, n, identity(n)) ? order : identity(n);
+    }
+
+    /**
+     * 固定起点 start（与可选终点 end）之间，求 free 中各点的访问顺序
+     */
+    private static int[] solve(double[] dist, int n, int start, int[] free, int end, int maxRounds) {
+        int m = free.length;
+        if (m <= 1) {
+            return free;
+        }
+        boolean hasEnd = end >= 0;
+        int len = m + 1 + (hasEnd ? 1 : 0);
+        int[] path = new int[len];
+        path[0] = start;
+        if (hasEnd) {
+            path[len - 1] = end;
+        }
+
+        // 1. 最近邻构造初始路径
+        boolean[] used = new boolean[m];
+        int current = start;
+        for (int p = 1; p <= m; p++) {
+            int best = -1;
+            double bestDist = Double.MAX_VALUE;
+            for (int j = 0; j < m; j++) {
+                if (!used[j] && dist[current * n + free[j]] < bestDist) {
+                    bestDist = dist[current * n + free[j]];
+                    best = j;
+                }
+            }
+            used[best] = true;
+            current = free[best];
+            path[p] = current;
+        }
+
+        // 2. 局部改进，直到没有改进或达到轮数上限
+        int lastMovable = m; // path[1..m] 可移动
+        for (int round = 0; round < maxRounds; round++) {
+            boolean improved = twoOpt(dist, n, path, lastMovable);
+            improved |= orOpt(dist, n, path, lastMovable, hasEnd);
+            if (!improved) {
+                break;
+            }
+        }
+        int[] result = new int[m];
+        System.arraycopy(path, 1, result, 0, m);
+        return result;
+    }
+
+    /**
+     * 2-opt：翻转 path[i..k]
+     */
+    private static boolean twoOpt(double[] dist, int n, int[] path, int lastMovable) {
+        boolean improved = false;
+        int len = path.length;
+        for (int i = 1; i < lastMovable; i++) {
+            for (int k = i + 1; k <= lastMovable; k++) {
+                int a = path[i - 1];
+                int b = path[i];
+                int c = path[k];
+                double delta = dist[a * n + c] - dist[a * n + b];
+                if (k + 1 < len) {
+                    int d = path[k + 1];
+                    delta += dist[b * n + d] - dist[c * n + d];
+                }
+                if (delta < -EPS) {
+                    for (int l = i, r = k; l < r; l++, r--) {
+                        int tmp = path[l];
+                        path[l] = path[r];
+                        path[r] = tmp;
+                    }
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Or-opt：把长度 1~3 的连续片段（可翻转）挪到其它位置
+     */
+    private static boolean orOpt(double[] dist, int n, int[] path, int lastMovable, boolean hasEnd) {
+        boolean improved = false;
+        int len = path.length;
+        for (int segLen = 1; segLen <= 3; segLen++) {
+            for (int i = 1; i + segLen - 1 <= lastMovable; i++) {
+                int e = i + segLen - 1;
+                int prev = path[i - 1];
+                int head = path[i];
+                int tail = path[e];
+                int next = e + 1 < len ? path[e + 1] : -1;
+                double removeGain = dist[prev * n + head]
+                        + (next >= 0 ? dist[tail * n + next] - dist[prev * n + next] : 0);
+
+                int bestJ = -1;
+                boolean bestReversed = false;
+                double bestDelta = -EPS;
+                // 插入到 path[j] 与 path[j+1] 之间；无固定终点时允许接在末尾
+                int maxJ = hasEnd ? len - 2 : len - 1;
+                for (int j = 0; j <= maxJ; j++) {
+                    if (j >= i - 1 && j <= e) {
+                        continue;
+                    }
+                    int left = path[j];
+                    int right = j + 1 < len ? path[j + 1] : -1;
+                    double base = right >= 0 ? dist[left * n + right] : 0;
+                    double forward = dist[left * n + head] + (right >= 0 ? dist[tail * n + right] : 0) - base;
+                    double backward = dist[left * n + tail] + (right >= 0 ? dist[head * n + right] : 0) - base;
+                    if (forward - removeGain < bestDelta) {
+                        bestDelta = forward - removeGain;
+                        bestJ = j;
+                        bestReversed = false;
+                    }
+                    if (segLen > 1 && backward - removeGain < bestDelta) {
+                        bestDelta = backward - removeGain;
+                        bestJ = j;
+                        bestReversed = true;
+                    }
+                }
+                if (bestJ >= 0) {
+                    moveChain(path, i, e, bestJ, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void moveChain(int[] path, int i, int e, int j, boolean reversed) {
+        int segLen = e - i + 1;
+        int[] chain = new int[segLen];
+        for (int k = 0; k < segLen; k++) {
+            chain[k] = reversed ? path[e - k] : path[i + k];
+        }
+        if (j > e) {
+            // 片段后移：中间元素前移 segLen 位
+            System.arraycopy(path, e + 1, path, i, j - e);
+            System.arraycopy(chain, 0, path, j - segLen + 1, segLen);
+        } else {
+            // 片段前移：中间元素后移 segLen 位
+            System.arraycopy(path, j + 1, path, j + 1 + segLen, i - j - 1);
+            System.arraycopy(chain, 0, path, j + 1, segLen);
+        }
+    }
+
+    public static double[] distanceMatrix(double[] lat, double[] lng) {
+        int n = lat.length;
+        double[] dist = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double d = haversineKm(lat[i], lng[i], lat[j], lng[j]);
+                dist[i * n + j] = d;
+                dist[j * n + i] = d;
+            }
+        }
+        return dist;
+    }
+
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static double pathLength(double[] dist, int n, int[] order) {
+        double total = 0;
+        for (int i = 1; i < order.length; i++) {
+            total += dist[order[i - 1] * n + order[i]];
+        }
+        return total;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] range = new int[to - from];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = from + i;
+        }
+        return range;
+    }
+
+    private static int[] identity(int n) {
+        return range(0, n);
+    }
+}
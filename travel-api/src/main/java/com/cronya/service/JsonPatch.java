@@ -0,0 +1,153 @@
+package com.cronya.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RFC 6902 JSON Patch（add / remove / replace / move / copy / test），直接在 Jackson 树上原地执行。
+ * 任一操作失败时抛出 IllegalArgumentException，调用方应在副本上执行以保证整体原子性。
+ */
+public final class JsonPatch {
+
+    private JsonPatch() {
+    }
+
+    /**
+     * 依次执行 patch 中的操作
+     *
+     * @param target 必须是对象或数组（根节点本身不可被替换）
+     */
+    public static void apply(JsonNode target, JsonNode patch) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("JSON Patch 必须是操作数组");
+        }
+        for (JsonNode operation : patch) {
+            String op = operation.path("op").asText("");
+            List<String> path = parsePointer(required(operation, "path"));
+            if (path.isEmpty()) {
+                throw new IllegalArgumentException("不支持对根节点操作");
+            }
+            switch (op) {
+                case "add" -> add(target, path, requiredNode(operation, "value"));
+                case "remove" -> remove(target, path);
+                case "replace" -> {
+                    JsonNode value = requiredNode(operation, "value");
+                    remove(target, path);
+                    add(target, path, value);
+                }
+                case "move" -> {
+                    List<String> from = parsePointer(required(operation, "from"));
+                    if (isPrefix(from, path) && from.size() < path.size()) {
+                        throw new IllegalArgumentException("不能把节点移动到自身内部: " + operation.get("path").asText());
+                    }
+                    add(target, path, remove(target, from));
+                }
+                case "copy" -> add(target, path, get(target, parsePointer(required(operation, "from"))).deepCopy());
+                case "test" -> {
+                    if (!get(target, path).equals(requiredNode(operation, "value"))) {
+                        throw new IllegalArgumentException("test 失败: " + operation.get("path").asText());
+                    }
+                }
+                default -> throw new IllegalArgumentException("不支持的操作: " + op);
+            }
+        }
+    }
+
+    /**
+     * 解析 JSON Pointer（RFC 6901），处理 ~1 与 ~0 转义
+     */
+    public static List<String> parsePointer(String pointer) {
+        List<String> tokens = new ArrayList<>();
+        if (pointer.isEmpty()) {
+            return tokens;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("无效的 JSON Pointer: " + pointer);
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static void add(JsonNode target, List<String> path, JsonNode value) {
+        JsonNode parent = get(target, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent instanceof ObjectNode object) {
+            object.set(last, value);
+        } else if (parent instanceof ArrayNode array) {
+            int index = "-".equals(last) ? array.size() : index(last, array.size() + 1);
+            array.insert(index, value);
+        } else {
+            throw new IllegalArgumentException("父节点不是对象或数组: " + String.join("/", path));
+        }
+    }
+
+    private static JsonNode remove(JsonNode target, List<String> path) {
+        JsonNode parent = get(target, path.subList(0, path.size() - 1));
+        String last = path.get(path.size() - 1);
+        if (parent instanceof ObjectNode object && object.has(last)) {
+            return object.remove(last);
+        }
+        if (parent instanceof ArrayNode array) {
+            return array.remove(index(last, array.size()));
+        }
+        throw new IllegalArgumentException("路径不存在: /" + String.join("/", path));
+    }
+
+    private static JsonNode get(JsonNode target, List<String> path) {
+        JsonNode node = target;
+        for (String token : path) {
+            if (node instanceof ObjectNode object && object.has(token)) {
+                node = object.get(token);
+            } else if (node instanceof ArrayNode array) {
+                node = array.get(index(token, array.size()));
+            } else {
+                throw new IllegalArgumentException("路径不存在: /" + String.join("/", path));
+            }
+        }
+        return node;
+    }
+
+    /**
+     * 数组下标：十进制非负整数、无前导零，且小于 bound
+     */
+    private static int index(String token, int bound) {
+        if (token.isEmpty() || (token.length() > 1 && token.charAt(0) == '0') || !token.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("无效的数组下标: " + token);
+        }
+        int index;
+        try {
+            index = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的数组下标: " + token);
+        }
+        if (index >= bound) {
+            throw new IllegalArgumentException("数组下标越界: " + token);
+        }
+        return index;
+    }
+
+    private static boolean isPrefix(List<String> prefix, List<String> path) {
+        return prefix.size() <= path.size() && path.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private static String required(JsonNode operation, String field) {
+        JsonNode value = operation.get(field);
+        if (value == null || !value.isTextual()) {
+            throw new IllegalArgumentException("操作缺少 " + field + ": " + operation);
+        }
+        return value.asText();
+    }
+
+    private static JsonNode requiredNode(JsonNode operation, String field) {
+        if (!operation.has(field)) {
+            throw new IllegalArgumentException("操作缺少 " + field + ": " + operation);
+        }
+        return operation.get(field);
+    }
+}
@@ -0,0 +1,113 @@
+package com.cronya.service;
+
+/**
+ * long -> long 的开放寻址哈希表（线性探测，删除时回移后继元素，不留墓碑），
+ * 两个 long 数组存放，每个条目约 16 字节（负载因子 0.75 下约 21 字节），没有装箱对象。
+ * 键不能为 0（作为空槽标记），值不能为负（-1 表示不存在）。非线程安全，由调用方加锁。
+ */
+final class LongLongMap {
+
+    static final long ABSENT = -1;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    LongLongMap() {
+        keys = new long[16];
+        values = new long[16];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(long key) {
+        if (key == 0) {
+            return ABSENT;
+        }
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : ABSENT;
+    }
+
+    /**
+     * @return 原来的值，不存在时为 ABSENT
+     */
+    long put(long key, long value) {
+        checkKey(key);
+        int slot = find(key);
+        if (keys[slot] == key) {
+            long previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * 3 / 4) {
+            resize();
+        }
+        return ABSENT;
+    }
+
+    /**
+     * @return 被删除的值，不存在时为 ABSENT
+     */
+    long remove(long key) {
+        if (key == 0) {
+            return ABSENT;
+        }
+        int slot = find(key);
+        if (keys[slot] != key) {
+            return ABSENT;
+        }
+        long previous = values[slot];
+        int mask = keys.length - 1;
+        // 回移：把探测链上排在空槽之后、且理想位置不在 (hole, next] 区间内的元素前移
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = 0;
+        size--;
+        return previous;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("key 不能为 0");
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.cronya.service;
+
+import com.cronya.config.AlibabaModelConfig;
+import com.cronya.config.ModelRoutingConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.TripPlan;
+import com.cronya.outbound.BulkheadFullException;
+import com.cronya.outbound.CircuitBreaker;
+import com.cronya.outbound.RetryBudget;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 大模型路由：按行程规模选首选模型，依次排出备用模型，并负责对冲、重试与熔断。
+ * <p>
+ * 首个请求超过 hedgeDelay 仍未返回时向下一个模型发起对冲请求，先返回可用结果（能解析且每天都有 segments）
+ * 的一方胜出，其余仍在执行的调用随即取消（释放隔离舱额度、中断上游请求）；全部失败时在 maxAttempts 内
+ * 换下一个模型重试。对冲与重试都要从重试预算中取额度，只有慢尾部请求会多调用一次，平均成本的增幅不超过 retryBudgetRatio。
+ * 每个模型一个熔断器，熔断中的模型直接跳过。
+ */
+@Component
+public class ModelRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelRouter.class);
+
+    private final ModelRoutingConfig config;
+    private final AlibabaModelConfig modelConfig;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final RetryBudget retryBudget;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    @Autowired
+    public ModelRouter(ModelRoutingConfig config, AlibabaModelConfig modelConfig, MeterRegistry meterRegistry) {
+        this(config, modelConfig, meterRegistry, System::nanoTime);
+    }
+
+    public ModelRouter(ModelRoutingConfig config, AlibabaModelConfig modelConfig, MeterRegistry meterRegistry,
+                       LongSupplier clock) {
+        this.config = config;
+        this.modelConfig = modelConfig;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.retryBudget = new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMax());
+        Gauge.builder("plan.model.retry.budget", retryBudget, RetryBudget::getBalance)
+                .description("剩余的对冲 / 重试额度")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按优先级排列的候选模型：按规模选出的首选模型、默认模型、备用模型（去重）
+     */
+    public List<String> candidates(String rawText) {
+        Set<String> models = new LinkedHashSet<>();
+        if (config.isEnabled()) {
+            int days = TripIntentExtractor.extractDays(rawText);
+            if (config.getSimpleModel() != null && !config.getSimpleModel().isBlank()
+                    && days > 0 && days <= config.getSimpleMaxDays()) {
+                models.add(config.getSimpleModel());
+            }
+        }
+        models.add(modelConfig.getModel());
+        if (config.isEnabled() && config.getFallbackModels() != null) {
+            models.addAll(config.getFallbackModels());
+        }
+        return new ArrayList<>(models);
+    }
+
+    /**
+     * 流式调用只选一个模型（已推送的片段无法撤回，不做对冲）：返回第一个未熔断的候选模型，全部熔断时返回 null。
+     * 调用结束后必须用 onResult 回报结果。
+     */
+    public String select(String rawText) {
+        for (String model : candidates(rawText)) {
+            if (breaker(model).tryAcquire()) {
+                return model;
+            }
+        }
+        return null;
+    }
+
+    public void onResult(String model, TripPlan plan, Throwable error) {
+        report(model, plan, error);
+    }
+
+    /**
+     * 整段调用：attempt 对给定模型发起一次调用（应提交到大模型隔离舱异步执行）
+     */
+    public CompletableFuture<TripPlan> route(String rawText, Function<String, CompletableFuture<TripPlan>> attempt) {
+        retryBudget.deposit();
+        Call call = new Call(candidates(rawText), attempt, snapshotFactory.captureAll());
+        if (!call.launch("primary")) {
+            return CompletableFuture.completedFuture(TripPlan.error("模型服务暂不可用，请稍后重试"));
+        }
+        long hedgeDelay = config.getHedgeDelay() == null ? 0 : config.getHedgeDelay().toNanos();
+        if (config.isEnabled() && hedgeDelay > 0 && config.getMaxAttempts() > 1) {
+            CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS).execute(call::hedge);
+        }
+        return call.result;
+    }
+
+    /**
+     * 可用结果：解析成功、至少一天且每天都有 segments（预算汇总可以在本地重算）
+     */
+    static boolean isUsable(TripPlan plan) {
+        if (plan == null || plan.getError() != null || plan.getTripPlan() == null || plan.getTripPlan().isEmpty()) {
+            return false;
+        }
+        for (DayPlan day : plan.getTripPlan()) {
+            if (day == null || day.getSegments() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    CircuitBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, m -> {
+            CircuitBreaker breaker = new CircuitBreaker(config.getBreaker(), clock);
+            Gauge.builder("plan.model.breaker.state", breaker, b -> b.getState().ordinal())
+                    .description("熔断器状态：0 关闭，1 熔断，2 半开")
+                    .tag("model", m)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private boolean report(String model, TripPlan plan, Throwable error) {
+        CircuitBreaker breaker = breaker(model);
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof BulkheadFullException || cause instanceof CancellationException) {
+            breaker.release(); // 本地隔离舱已满或已有其他模型胜出而取消，与模型本身无关
+            return false;
+        }
+        boolean usable = error == null && isUsable(plan);
+        if (usable) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure();
+        }
+        return usable;
+    }
+
+    private void count(String model, String kind, String outcome) {
+        Counter.builder("plan.model.attempts")
+                .tag("model", model)
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 单次规划的路由状态；调用量很低，直接以对象锁保护
+     */
+    private final class Call {
+
+        private final List<String> chain;
+        private final Function<String, CompletableFuture<TripPlan>> attempt;
+        private final ContextSnapshot snapshot;
+        private final CompletableFuture<TripPlan> result = new CompletableFuture<>();
+        private final List<CompletableFuture<TripPlan>> attempts = new ArrayList<>();
+
+        private int next;
+        private int launched;
+        private int inFlight;
+        private TripPlan lastPlan;
+        private Throwable lastError;
+
+        Call(List<String> chain, Function<String, CompletableFuture<TripPlan>> attempt, ContextSnapshot snapshot) {
+            this.chain = chain;
+            this.attempt = attempt;
+            this.snapshot = snapshot;
+        }
+
+        synchronized boolean launch(String kind) {
+            while (next < chain.size()) {
+                String model = chain.get(next++);
+                if (!breaker(model).tryAcquire()) {
+                    count(model, kind, "skipped");
+                    continue;
+                }
+                launched++;
+                inFlight++;
+                CompletableFuture<TripPlan> future;
+                // 对冲在定时线程上发起，需要恢复请求的观测上下文
+                try (ContextSnapshot.Scope ignored = snapshot.setThreadLocals()) {
+                    future = attempt.apply(model);
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                attempts.add(future);
+                future.whenComplete((plan, error) -> finished(model, kind, plan, error));
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void hedge() {
+            if (result.isDone() || launched >= config.getMaxAttempts() || next >= chain.size()) {
+                return;
+            }
+            if (!retryBudget.tryWithdraw()) {
+                count(chain.get(next), "hedge", "no_budget");
+                return;
+            }
+            log.info("模型调用超过 {} 秒未返回，向 {} 发起对冲请求", config.getHedgeDelay().toSeconds(), chain.get(next));
+            launch("hedge");
+        }
+
+        private synchronized void finished(String model, String kind, TripPlan plan, Throwable error) {
+            boolean usable = report(model, plan, error);
+            inFlight--;
+            if (error instanceof CancellationException) {
+                count(model, kind, "cancelled");
+                return;
+            }
+            if (result.isDone()) {
+                count(model, kind, usable ? "discarded" : "failure");
+                return;
+            }
+            if (usable) {
+                count(model, kind, "success");
+                // 落败的一方不再需要，先取消（隔离舱随即中断执行线程）再交付结果
+                for (CompletableFuture<TripPlan> other : attempts) {
+                    other.cancel(true);
+                }
+                result.complete(plan);
+                return;
+            }
+            count(model, kind, "failure");
+            if (plan != null) {
+                lastPlan = plan;
+            }
+            if (error != null) {
+                lastError = error;
+            }
+            if (inFlight > 0) {
+                return; // 还有对冲请求在执行
+            }
+            if (config.isEnabled() && launched < config.getMaxAttempts() && next < chain.size()
+                    && retryBudget.tryWithdraw() && launch("retry")) {
+                return;
+            }
+            if (lastPlan != null) {
+                result.complete(lastPlan);
+            } else if (lastError != null) {
+                result.completeExceptionally(lastError);
+            } else {
+                result.complete(TripPlan.error("模型服务暂不可用，请稍后重试"));
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.cronya.service;
+
+import com.cronya.config.PlanJobConfig;
+import com.cronya.domain.PlanJob;
+import com.cronya.domain.Trip;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.repository.PlanJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步行程规划任务：提交即落库，由 PlanJobWorker 领取后调用 TripPlanService 执行。
+ * <p>
+ * 任务状态只通过带租约条件的 UPDATE 变更：执行节点宕机后租约到期即可被其他节点接管，
+ * 丢失租约的节点写结果时得到 0 行，结果直接丢弃，不会重复保存行程。
+ */
+@Service
+public class PlanJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanJobService.class);
+
+    /**
+     * @param created false 表示命中幂等键，返回的是已存在的任务
+     */
+    public record Submitted(PlanJob job, boolean created) {
+    }
+
+    private final PlanJobConfig config;
+    private final PlanJobRepository repository;
+    private final TripPlanService tripPlanService;
+    private final TripService tripService;
+    private final TransactionTemplate transactionTemplate;
+    // 本节点上等待任务结束的长轮询，key 为任务 id
+    private final Map<Long, CompletableFuture<PlanJob>> waiters = new ConcurrentHashMap<>();
+
+    public PlanJobService(PlanJobConfig config, PlanJobRepository repository, TripPlanService tripPlanService,
+                          TripService tripService, PlatformTransactionManager transactionManager) {
+        this.config = config;
+        this.repository = repository;
+        this.tripPlanService = tripPlanService;
+        this.tripService = tripService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 提交任务；clientKey 相同的重复提交直接返回已有任务
+     */
+    public Submitted submit(String rawText, String clientKey, String userId, boolean saveAsTrip, String tripName) {
+        if (rawText == null || rawText.isBlank()) {
+            throw new IllegalArgumentException("rawText 不能为空");
+        }
+        if (saveAsTrip && (userId == null || userId.isBlank())) {
+            throw new IllegalArgumentException("saveAsTrip 需要提供 userId");
+        }
+        String key = clientKey == null || clientKey.isBlank() ? null : clientKey.trim();
+        if (key != null && key.length() > 191) {
+            throw new IllegalArgumentException("幂等键不能超过 191 个字符");
+        }
+        if (key != null) {
+            Optional<PlanJob> existing = repository.findByClientKey(key);
+            if (existing.isPresent()) {
+                return new Submitted(existing.get(), false);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        PlanJob job = new PlanJob();
+        job.setClientKey(key);
+        job.setUserId(userId);
+        job.setRawText(rawText);
+        job.setStatus(PlanJob.PENDING);
+        job.setNextRunTime(now);
+        job.setSaveAsTrip(saveAsTrip);
+        job.setTripName(tripName);
+        job.setCreatedTime(now);
+        job.setUpdatedTime(now);
+        try {
+            return new Submitted(repository.save(job), true);
+        } catch (DataIntegrityViolationException e) {
+            // 并发提交同一幂等键，唯一索引保证只有一条
+            return repository.findByClientKey(key)
+                    .map(existing -> new Submitted(existing, false))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    public Optional<PlanJob> findByClientKey(String clientKey) {
+        return clientKey == null || clientKey.isBlank() ? Optional.empty() : repository.findByClientKey(clientKey.trim());
+    }
+
+    /**
+     * 长轮询：任务结束或超时后返回最新状态（任务由其他节点执行时，靠 checkWaiters 轮询数据库发现结束）
+     */
+    public CompletableFuture<PlanJob> await(Long id, Duration timeout) {
+        Optional<PlanJob> job = repository.findById(id);
+        if (job.isEmpty() || job.get().isFinished() || timeout.isZero() || timeout.isNegative()) {
+            return CompletableFuture.completedFuture(job.orElse(null));
+        }
+        long millis = Math.min(timeout.toMillis(), config.getMaxWait().toMillis());
+        return waiters.computeIfAbsent(id, k -> new CompletableFuture<>())
+                .copy()
+                .completeOnTimeout(null, millis, TimeUnit.MILLISECONDS)
+                .thenApply(finished -> finished != null ? finished : repository.findById(id).orElse(null));
+    }
+
+    /**
+     * 领取最多 limit 个可执行任务
+     */
+    public List<Long> claim(String owner, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = new ArrayList<>();
+        // 多取一些候选，其他节点抢先领取时不至于空转一个周期
+        for (Long id : repository.findClaimable(now, Limit.of(limit * 2))) {
+            if (claimed.size() == limit) {
+                break;
+            }
+            if (repository.claim(id, owner, now, now.plus(config.getLease())) == 1) {
+                claimed.add(id);
+            }
+        }
+        return claimed;
+    }
+
+    public void renew(Collection<Long> ids, String owner) {
+        if (!ids.isEmpty()) {
+            repository.renew(ids, owner, LocalDateTime.now().plus(config.getLease()));
+        }
+    }
+
+    /**
+     * 执行一个已领取的任务（在工作线程上同步执行）
+     */
+    public void execute(Long id, String owner) {
+        PlanJob job = repository.findById(id).orElse(null);
+        if (job == null || !owner.equals(job.getLeaseOwner())) {
+            return;
+        }
+        if (job.getAttempts() > config.getMaxAttempts()) {
+            // 多次在执行中途丢失租约（节点反复宕机），不再继续
+            finish(job, owner, PlanJob.FAILED, null, "执行多次中断，已放弃");
+            return;
+        }
+
+        TripPlan plan;
+        try {
+            plan = tripPlanService.generateTripPlan(job.getRawText());
+        } catch (RuntimeException e) {
+            plan = TripPlan.error("调用模型失败: " + e.getMessage());
+        }
+
+        if (plan.getError() == null) {
+            String result;
+            try {
+                result = TripPlanCodec.toJson(plan);
+            } catch (IOException e) {
+                finish(job, owner, PlanJob.FAILED, null, "行程序列化失败: " + e.getMessage());
+                return;
+            }
+            finish(job, owner, PlanJob.SUCCEEDED, result, null);
+        } else if (job.getAttempts() < config.getMaxAttempts()) {
+            LocalDateTime now = LocalDateTime.now();
+            Duration backoff = config.getRetryBackoff().multipliedBy(1L << Math.min(job.getAttempts() - 1, 10));
+            repository.retryLater(id, owner, truncate(plan.getError()), now.plus(backoff), now);
+        } else {
+            finish(job, owner, PlanJob.FAILED, null, plan.getError());
+        }
+    }
+
+    /**
+     * 停机时归还本节点未完成的任务
+     */
+    public int releaseAll(String owner) {
+        return repository.releaseAll(owner, LocalDateTime.now());
+    }
+
+    /**
+     * 完成等待中的长轮询：本节点执行的任务在 finish 时直接通知，其余的由工作线程定期调用本方法查库
+     */
+    public void checkWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(waiters.keySet());
+        Map<Long, PlanJob> jobs = new HashMap<>();
+        repository.findAllById(ids).forEach(job -> jobs.put(job.getId(), job));
+        for (Long id : ids) {
+            PlanJob job = jobs.get(id);
+            if (job == null || job.isFinished()) {
+                notifyWaiters(id, job);
+            }
+        }
+    }
+
+    public int purgeFinished() {
+        return repository.deleteFinishedBefore(LocalDateTime.now().minus(config.getRetention()));
+    }
+
+    /**
+     * 写入最终状态；需要自动保存时与保存行程在同一事务中，租约已丢失则两者都不生效
+     */
+    private void finish(PlanJob job, String owner, String status, String result, String error) {
+        Boolean finished = transactionTemplate.execute(tx -> {
+            if (repository.finish(job.getId(), owner, status, result, truncate(error), LocalDateTime.now()) == 0) {
+                return false;
+            }
+            if (PlanJob.SUCCEEDED.equals(status) && job.isSaveAsTrip()) {
+                Trip trip = new Trip();
+                trip.setUserId(job.getUserId());
+                trip.setTripName(job.getTripName() != null && !job.getTripName().isBlank()
+                        ? job.getTripName() : defaultTripName(result));
+                trip.setTripDataJson(result);
+                repository.attachTrip(job.getId(), tripService.createTrip(trip).getId());
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(finished)) {
+            notifyWaiters(job.getId(), repository.findById(job.getId()).orElse(null));
+        } else {
+            log.info("规划任务 {} 的租约已被其他节点接管，丢弃本次结果", job.getId());
+        }
+    }
+
+    private void notifyWaiters(Long id, PlanJob job) {
+        CompletableFuture<PlanJob> waiter = waiters.remove(id);
+        if (waiter != null) {
+            waiter.complete(job);
+        }
+    }
+
+    private static String defaultTripName(String result) {
+        try {
+            TripPlan plan = TripPlanCodec.read(result);
+            if (plan.getTripIntent() != null && plan.getTripIntent().getDestination() != null) {
+                return plan.getTripIntent().getDestination() + "行程";
+            }
+        } catch (IOException e) {
+            // 使用默认名称
+        }
+        return "行程规划";
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 500 ? error : error.substring(0, 500);
+    }
+}
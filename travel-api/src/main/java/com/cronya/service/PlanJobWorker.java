@@ -0,0 +1,127 @@
+package com.cronya.service;
+
+import com.cronya.config.PlanJobConfig;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本节点的任务执行器：一个轮询线程负责领取任务、续租、完成长轮询与清理，workers 个工作线程执行任务。
+ * 只领取空闲工作线程数量的任务，积压的任务留在数据库中等待任意节点领取，吞吐随节点数与 workers 线性扩展。
+ */
+@Component
+public class PlanJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(PlanJobWorker.class);
+    private static final long PURGE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final PlanJobConfig config;
+    private final PlanJobService jobService;
+    // 节点标识：进程名（pid@host）+ 随机后缀，重启后不会误认旧租约
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService poller;
+    private ExecutorService workers;
+    private volatile boolean stopping;
+    private long lastRenew;
+    private long lastPurge;
+
+    public PlanJobWorker(PlanJobConfig config, PlanJobService jobService) {
+        this.config = config;
+        this.jobService = jobService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled() || config.getWorkers() <= 0) {
+            return;
+        }
+        AtomicLong counter = new AtomicLong();
+        workers = Executors.newFixedThreadPool(config.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "plan-job-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plan-job-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::tick, 0, config.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        log.info("规划任务执行器已启动：{} 个工作线程，节点 {}", config.getWorkers(), owner);
+    }
+
+    /**
+     * 有新任务提交时立即领取，不必等到下一个轮询周期
+     */
+    public void wakeUp() {
+        if (poller != null && !stopping) {
+            poller.execute(this::tick);
+        }
+    }
+
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastRenew >= config.getLease().toMillis() / 3) {
+                lastRenew = now;
+                jobService.renew(List.copyOf(running), owner);
+            }
+            if (!stopping) {
+                List<Long> claimed = jobService.claim(owner, config.getWorkers() - running.size());
+                for (Long id : claimed) {
+                    running.add(id);
+                    workers.execute(() -> {
+                        try {
+                            jobService.execute(id, owner);
+                        } catch (RuntimeException e) {
+                            // 租约到期后由其他节点（或本节点）重新领取
+                            log.warn("规划任务 {} 执行失败", id, e);
+                        } finally {
+                            running.remove(id);
+                        }
+                    });
+                }
+            }
+            jobService.checkWaiters();
+            if (now - lastPurge >= PURGE_INTERVAL_MS) {
+                lastPurge = now;
+                jobService.purgeFinished();
+            }
+        } catch (RuntimeException e) {
+            log.warn("规划任务轮询失败", e);
+        }
+    }
+
+    /**
+     * 停机：停止领取，等待执行中的任务最多 shutdownGrace，仍未完成的归还给其他节点
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (poller == null) {
+            return;
+        }
+        stopping = true;
+        workers.shutdown();
+        if (!workers.awaitTermination(config.getShutdownGrace().toMillis(), TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+        poller.shutdownNow();
+        int released = jobService.releaseAll(owner);
+        if (released > 0) {
+            log.info("停机归还 {} 个未完成的规划任务", released);
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.cronya.service;
+
+import com.cronya.config.PoiIndexConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 所有已保存行程中 segment 坐标的内存空间索引，用于「附近的地点」与 k 近邻查询。
+ * <p>
+ * 结构为经纬度等距网格 + 基本类型数组：所有点按网格编号（行优先）排序后平铺在 int/long 数组中，
+ * 每个点约 24 字节、不产生对象；查询矩形覆盖的每一行网格只需一次二分查找即可得到一段连续的点。
+ * 行程的增删改先写入小的增量层（覆盖基础层中同一行程的点），增量超过阈值后合并重建基础层。
+ * 读取无锁：基础层与增量层一起作为不可变快照发布。
+ */
+@Component
+public class PoiIndex {
+
+    private static final double METERS_PER_DEGREE = 111_320;
+    private static final double MICRO = 1e6;
+
+    private final double cellSize;
+    private final int mergeThreshold;
+    private final int maxRadius;
+    private final long cols;
+    private final StringPool names = new StringPool();
+    private final StringPool categories = new StringPool();
+    private volatile State state;
+
+    public PoiIndex(PoiIndexConfig config) {
+        this.cellSize = config.getCellSize();
+        this.mergeThreshold = config.getMergeThreshold();
+        this.maxRadius = config.getMaxRadius();
+        this.cols = (long) Math.ceil(360 / cellSize) + 1;
+        this.state = new State(new Builder().snapshot(), Map.of(), new long[0], 0);
+    }
+
+    /**
+     * 一个地点的查询结果：同名同类别的点合并，距离取最近的一处，trips 为出现次数
+     */
+    public record Poi(String name, String category, double latitude, double longitude, double distance, int trips) {
+    }
+
+    /**
+     * 全量重建：builder 由调用方逐个行程填充（见 {@link #newBuilder()}），
+     * 构建期间到达的增量更新保留在增量层中，不会被旧数据覆盖
+     */
+    public synchronized void replace(Builder builder) {
+        State current = state;
+        state = new State(builder.snapshot(), current.overlay(), current.hiddenTrips(), current.overlayPoints());
+        if (current.overlayPoints() + current.overlay().size() > mergeThreshold) {
+            merge();
+        }
+    }
+
+    public Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 覆盖一个行程的全部点（plan 为空等同于删除）
+     */
+    public synchronized void update(long tripId, TripPlan plan) {
+        Builder points = new Builder();
+        points.add(tripId, plan);
+        Map<Long, Points> overlay = new HashMap<>(state.overlay());
+        Points previous = overlay.put(tripId, points.points());
+        int overlayPoints = state.overlayPoints() - (previous == null ? 0 : previous.size()) + points.size;
+        state = new State(state.base(), overlay, sortedKeys(overlay), overlayPoints);
+        // 删除的行程在增量层中是空点集，同样计入阈值
+        if (overlayPoints + overlay.size() > mergeThreshold) {
+            merge();
+        }
+    }
+
+    public void remove(long tripId) {
+        update(tripId, null);
+    }
+
+    /**
+     * 半径 radius 米内的地点，按距离升序
+     */
+    public List<Poi> nearby(double lat, double lng, double radius, String category, int limit) {
+        State current = state;
+        int categoryId = category == null || category.isBlank() ? -1 : categories.find(category.trim());
+        if (categoryId == -2) {
+            return List.of();
+        }
+        Map<Long, Poi> hits = new HashMap<>();
+        double latRadius = radius / METERS_PER_DEGREE;
+        double lngRadius = radius / (METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+
+        // 1. 基础层：逐行网格二分定位连续区间
+        Snapshot base = current.base();
+        long rowMin = row(lat - latRadius);
+        long rowMax = row(lat + latRadius);
+        long colMin = col(lng - lngRadius);
+        long colMax = col(lng + lngRadius);
+        for (long row = rowMin; row <= rowMax; row++) {
+            int from = base.cellStart[lowerBound(base.cellKeys, row * cols + colMin)];
+            int to = base.cellStart[lowerBound(base.cellKeys, row * cols + colMax + 1)];
+            for (int i = from; i < to; i++) {
+                if (categoryId >= 0 && base.category[i] != categoryId) {
+                    continue;
+                }
+                if (current.hiddenTrips().length > 0 && Arrays.binarySearch(current.hiddenTrips(), base.trip[i]) >= 0) {
+                    continue;
+                }
+                collect(hits, lat, lng, radius, base.lat[i], base.lng[i], base.name[i], base.category[i]);
+            }
+        }
+        // 2. 增量层：点数受合并阈值限制，直接扫描
+        for (Points points : current.overlay().values()) {
+            for (int i = 0; i < points.size(); i++) {
+                if (categoryId < 0 || points.category()[i] == categoryId) {
+                    collect(hits, lat, lng, radius, points.lat()[i], points.lng()[i], points.name()[i], points.category()[i]);
+                }
+            }
+        }
+
+        List<Poi> result = new ArrayList<>(hits.values());
+        result.sort(Comparator.comparingDouble(Poi::distance));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 最近的 k 个地点：从一个网格的半径开始倍增，直到找满 k 个或达到 maxRadius
+     */
+    public List<Poi> nearest(double lat, double lng, int k, String category) {
+        double radius = cellSize * METERS_PER_DEGREE;
+        List<Poi> result;
+        do {
+            result = nearby(lat, lng, radius, category, k);
+            radius *= 2;
+        } while (result.size() < k && radius / 2 < maxRadius);
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        State current = state;
+        Snapshot base = current.base();
+        int points = base.lat.length;
+        long bytes = (long) points * (4 + 4 + 8 + 4 + 4) + (long) base.cellKeys.length * (8 + 4);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("points", points);
+        stats.put("cells", base.cellKeys.length);
+        stats.put("overlayTrips", current.overlay().size());
+        stats.put("overlayPoints", current.overlayPoints());
+        stats.put("bytes", bytes);
+        stats.put("bytesPerPoint", points == 0 ? 0 : (double) bytes / points);
+        stats.put("names", names.size());
+        return stats;
+    }
+
+    /**
+     * 把增量层并入基础层
+     */
+    private void merge() {
+        State current = state;
+        Snapshot base = current.base();
+        Builder builder = new Builder();
+        for (int i = 0; i < base.lat.length; i++) {
+            if (Arrays.binarySearch(current.hiddenTrips(), base.trip[i]) < 0) {
+                builder.append(base.lat[i], base.lng[i], base.trip[i], base.name[i], base.category[i]);
+            }
+        }
+        for (Map.Entry<Long, Points> entry : current.overlay().entrySet()) {
+            Points points = entry.getValue();
+            for (int i = 0; i < points.size(); i++) {
+                builder.append(points.lat()[i], points.lng()[i], entry.getKey(), points.name()[i], points.category()[i]);
+            }
+        }
+        state = new State(builder.snapshot(), Map.of(), new long[0], 0);
+    }
+
+    private void collect(Map<Long, Poi> hits, double lat, double lng, double radius,
+                         int pointLat, int pointLng, int name, int category) {
+        double plat = pointLat / MICRO;
+        double plng = pointLng / MICRO;
+        double distance = distance(lat, lng, plat, plng);
+        if (distance > radius) {
+            return;
+        }
+        long key = ((long) name << 32) | (category & 0xffffffffL);
+        Poi existing = hits.get(key);
+        if (existing == null) {
+            hits.put(key, new Poi(names.get(name), categories.get(category), plat, plng, distance, 1));
+        } else if (distance < existing.distance()) {
+            hits.put(key, new Poi(existing.name(), existing.category(), plat, plng, distance, existing.trips() + 1));
+        } else {
+            hits.put(key, new Poi(existing.name(), existing.category(), existing.latitude(), existing.longitude(),
+                    existing.distance(), existing.trips() + 1));
+        }
+    }
+
+    /**
+     * 等距圆柱近似（城市尺度误差远小于坐标本身的精度）
+     */
+    static double distance(double lat1, double lng1, double lat2, double lng2) {
+        double x = Math.toRadians(lng2 - lng1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return Math.sqrt(x * x + y * y) * 6_371_000;
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((Math.max(-90, Math.min(90, lat)) + 90) / cellSize);
+    }
+
+    private long col(double lng) {
+        return (long) Math.floor((Math.max(-180, Math.min(180, lng)) + 180) / cellSize);
+    }
+
+    private static int lowerBound(long[] keys, long key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long[] sortedKeys(Map<Long, Points> overlay) {
+        long[] keys = new long[overlay.size()];
+        int i = 0;
+        for (Long key : overlay.keySet()) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * 已发布的索引状态；hiddenTrips 为增量层中的行程 id（有序），基础层中这些行程的点被忽略
+     */
+    private record State(Snapshot base, Map<Long, Points> overlay, long[] hiddenTrips, int overlayPoints) {
+    }
+
+    private record Points(int[] lat, int[] lng, int[] name, int[] category) {
+        int size() {
+            return lat.length;
+        }
+    }
+
+    /**
+     * 按网格排序的不可变点集；cellKeys 为非空网格编号，cellStart[i] 为该网格第一个点的下标（末尾哨兵为点数）
+     */
+    private static final class Snapshot {
+        final long[] cellKeys;
+        final int[] cellStart;
+        final int[] lat;
+        final int[] lng;
+        final long[] trip;
+        final int[] name;
+        final int[] category;
+
+        Snapshot(long[] cellKeys, int[] cellStart, int[] lat, int[] lng, long[] trip, int[] name, int[] category) {
+            this.cellKeys = cellKeys;
+            this.cellStart = cellStart;
+            this.lat = lat;
+            this.lng = lng;
+            this.trip = trip;
+            this.name = name;
+            this.category = category;
+        }
+    }
+
+    /**
+     * 逐点追加的可增长数组，snapshot() 时按网格排序；坐标以微度（1e-6 度，约 0.1 米）存为 int
+     */
+    public final class Builder {
+        private int size;
+        private int[] lat = new int[16];
+        private int[] lng = new int[16];
+        private long[] trip = new long[16];
+        private int[] name = new int[16];
+        private int[] category = new int[16];
+
+        private Builder() {
+        }
+
+        /**
+         * 加入一个行程的所有有效坐标（经纬度为 0 或越界的 segment 跳过）
+         */
+        public void add(long tripId, TripPlan plan) {
+            if (plan == null || plan.getTripPlan() == null) {
+                return;
+            }
+            for (DayPlan day : plan.getTripPlan()) {
+                if (day == null || day.getSegments() == null) {
+                    continue;
+                }
+                for (Segment segment : day.getSegments()) {
+                    if (segment == null) {
+                        continue;
+                    }
+                    double la = segment.getLatitude();
+                    double ln = segment.getLongitude();
+                    if (la < -90 || la > 90 || ln < -180 || ln > 180 || (la == 0 && ln == 0)) {
+                        continue;
+                    }
+                    String label = segment.getLocation() != null && !segment.getLocation().isBlank()
+                            ? segment.getLocation().trim() : segment.getActivity();
+                    if (label == null || label.isBlank()) {
+                        continue;
+                    }
+                    String cat = segment.getCategory() == null ? "" : segment.getCategory().trim();
+                    append((int) Math.round(la * MICRO), (int) Math.round(ln * MICRO), tripId,
+                            names.intern(label.trim()), categories.intern(cat));
+                }
+            }
+        }
+
+        private void append(int la, int ln, long tripId, int nameId, int categoryId) {
+            if (size == lat.length) {
+                int capacity = size * 2;
+                lat = Arrays.copyOf(lat, capacity);
+                lng = Arrays.copyOf(lng, capacity);
+                trip = Arrays.copyOf(trip, capacity);
+                name = Arrays.copyOf(name, capacity);
+                category = Arrays.copyOf(category, capacity);
+            }
+            lat[size] = la;
+            lng[size] = ln;
+            trip[size] = tripId;
+            name[size] = nameId;
+            category[size] = categoryId;
+            size++;
+        }
+
+        private Points points() {
+            return new Points(Arrays.copyOf(lat, size), Arrays.copyOf(lng, size), Arrays.copyOf(name, size),
+                    Arrays.copyOf(category, size));
+        }
+
+        private Snapshot snapshot() {
+            // 网格编号与原下标打包进一个 long 排序，避免装箱
+            int keyBits = 64 - Long.numberOfLeadingZeros(cols * cols);
+            int indexBits = 63 - keyBits;
+            if (size >= (1L << indexBits)) {
+                throw new IllegalStateException("点数超出网格索引容量: " + size);
+            }
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                long key = row(lat[i] / MICRO) * cols + col(lng[i] / MICRO);
+                packed[i] = (key << indexBits) | i;
+            }
+            Arrays.sort(packed);
+
+            long indexMask = (1L << indexBits) - 1;
+            int[] sLat = new int[size];
+            int[] sLng = new int[size];
+            long[] sTrip = new long[size];
+            int[] sName = new int[size];
+            int[] sCategory = new int[size];
+            long[] keys = new long[size];
+            int[] starts = new int[size + 1];
+            int cells = 0;
+            for (int i = 0; i < size; i++) {
+                int from = (int) (packed[i] & indexMask);
+                long key = packed[i] >>> indexBits;
+                sLat[i] = lat[from];
+                sLng[i] = lng[from];
+                sTrip[i] = trip[from];
+                sName[i] = name[from];
+                sCategory[i] = category[from];
+                if (cells == 0 || keys[cells - 1] != key) {
+                    keys[cells] = key;
+                    starts[cells] = i;
+                    cells++;
+                }
+            }
+            starts[cells] = size;
+            return new Snapshot(Arrays.copyOf(keys, cells), Arrays.copyOf(starts, cells + 1),
+                    sLat, sLng, sTrip, sName, sCategory);
+        }
+    }
+
+    /**
+     * 地点名 / 类别的字符串字典，点中只保存下标；只增不删
+     */
+    private static final class StringPool {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private volatile String[] values = new String[16];
+        private int size;
+
+        synchronized int intern(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            ids.put(value, size);
+            return size++;
+        }
+
+        /**
+         * @return 下标，不存在时返回 -2
+         */
+        synchronized int find(String value) {
+            Integer id = ids.get(value);
+            return id == null ? -2 : id;
+        }
+
+        String get(int id) {
+            return values[id];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+}
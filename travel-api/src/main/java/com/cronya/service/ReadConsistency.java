@@ -0,0 +1,78 @@
+package com.cronya.service;
+
+import com.cronya.config.DataSourceRoutingConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * 读己之写：记录最近写入过的行程与用户，stickyWindow 内涉及它们的只读事务固定走主库，
+ * 避免读到从库上尚未同步的旧数据（也避免把旧数据填进 TripResponseCache）。
+ * 只在本节点内生效，其他节点写入的行程由缓存失效通知（TripCacheAdminController）一并标记。
+ */
+@Component
+public class ReadConsistency {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final DataSourceRoutingConfig config;
+    private final Cache<Long, Boolean> recentTrips;
+    private final Cache<String, Boolean> recentUsers;
+
+    public ReadConsistency(DataSourceRoutingConfig config) {
+        this.config = config;
+        this.recentTrips = Caffeine.newBuilder().expireAfterWrite(config.getStickyWindow()).build();
+        this.recentUsers = Caffeine.newBuilder().expireAfterWrite(config.getStickyWindow()).build();
+    }
+
+    // 在写事务内同步记录（早于提交），提交后紧接着的读一定能命中
+    @EventListener
+    public void onTripChanged(TripChangedEvent event) {
+        markWritten(event.tripIds(), event.userIds());
+    }
+
+    public void markWritten(Collection<Long> tripIds, Collection<String> userIds) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        tripIds.forEach(id -> recentTrips.put(id, Boolean.TRUE));
+        userIds.forEach(userId -> recentUsers.put(userId, Boolean.TRUE));
+    }
+
+    /**
+     * 行程或用户最近写入过时把当前事务固定到主库；必须在事务内第一条 SQL 之前调用
+     */
+    public boolean pinIfRecentlyWritten(Long tripId, String userId) {
+        boolean recent = (tripId != null && recentTrips.getIfPresent(tripId) != null)
+                || (userId != null && recentUsers.getIfPresent(userId) != null);
+        if (recent) {
+            pinToPrimary();
+        }
+        return recent;
+    }
+
+    /**
+     * 当前事务结束前的连接都取自主库
+     */
+    public static void pinToPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || PINNED.get() != null) {
+            return;
+        }
+        PINNED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PINNED.remove();
+            }
+        });
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+}
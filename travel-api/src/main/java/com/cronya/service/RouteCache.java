@@ -0,0 +1,199 @@
+package com.cronya.service;
+
+import com.cronya.config.RouteCacheConfig;
+import com.cronya.domain.RouteCacheEntry;
+import com.cronya.repository.RouteCacheRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 路线结果缓存：
+ * - key 为量化到网格后的起点/途经点/终点，模型给出的坐标有细微抖动时仍能命中；
+ * - 内存层为 Caffeine（W-TinyLFU），持久层为 route_cache 表，重启后从持久层预热；
+ * - 每条记录独立过期时间，命中率按层通过 Micrometer 暴露。
+ * 持久层出错只影响命中率，不影响路线请求本身；失败计入 route.cache.persistence.failures，
+ * 并按分钟限频记录 warn 日志。
+ */
+@Component
+public class RouteCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteCache.class);
+    private static final long WARN_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private record CachedRoute(String response, LocalDateTime expiresTime) {
+    }
+
+    private final RouteCacheConfig config;
+    private final RouteCacheRepository repository;
+    private final Cache<String, CachedRoute> memory;
+    private final Counter persistentHits;
+    private final Counter persistentMisses;
+    private final MeterRegistry meterRegistry;
+    // 上次记录 warn 日志的时间，持久层持续不可用时避免每个请求都打一条
+    private final AtomicLong lastWarnNanos = new AtomicLong(System.nanoTime() - WARN_INTERVAL_NANOS);
+
+    public RouteCache(RouteCacheConfig config, RouteCacheRepository repository, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfter(new Expiry<String, CachedRoute>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedRoute value, long currentTime) {
+                        return Math.max(0, ChronoUnit.NANOS.between(LocalDateTime.now(), value.expiresTime()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedRoute value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedRoute value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "route.cache.memory");
+        this.persistentHits = Counter.builder("route.cache.persistent").tag("result", "hit").register(meterRegistry);
+        this.persistentMisses = Counter.builder("route.cache.persistent").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * 生成缓存 key：每个 "lat,lng" 坐标按网格取整，途经点以 | 分隔
+     */
+    public String key(String origin, String destination, String waypoints) {
+        StringBuilder key = new StringBuilder(64);
+        key.append(quantize(origin)).append('>');
+        if (waypoints != null && !waypoints.isBlank()) {
+            for (String point : waypoints.split("\\|")) {
+                if (!point.isBlank()) {
+                    key.append(quantize(point)).append('>');
+                }
+            }
+        }
+        return key.append(quantize(destination)).toString();
+    }
+
+    public String get(String key) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        CachedRoute cached = memory.getIfPresent(key);
+        if (cached != null) {
+            return cached.response();
+        }
+        if (!config.isPersistent()) {
+            return null;
+        }
+        try {
+            Optional<RouteCacheEntry> entry = repository.findById(key);
+            if (entry.isPresent() && entry.get().getExpiresTime().isAfter(LocalDateTime.now())) {
+                persistentHits.increment();
+                memory.put(key, new CachedRoute(entry.get().getResponse(), entry.get().getExpiresTime()));
+                return entry.get().getResponse();
+            }
+        } catch (Exception e) {
+            // 持久层不可用时按未命中处理
+            failure("read", e);
+        }
+        persistentMisses.increment();
+        return null;
+    }
+
+    public void put(String key, String response) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresTime = now.plus(config.getTtl());
+        memory.put(key, new CachedRoute(response, expiresTime));
+        if (!config.isPersistent()) {
+            return;
+        }
+        try {
+            RouteCacheEntry entry = new RouteCacheEntry();
+            entry.setCacheKey(key);
+            entry.setResponse(response);
+            entry.setCreatedTime(now);
+            entry.setExpiresTime(expiresTime);
+            repository.save(entry);
+        } catch (Exception e) {
+            // 持久层写入失败不影响本次请求
+            failure("write", e);
+        }
+    }
+
+    /**
+     * 启动完成后清理过期记录，并把最近的有效记录加载进内存层
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        if (!config.isEnabled() || !config.isPersistent() || config.getWarmStartSize() <= 0) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            repository.deleteExpired(now);
+            List<RouteCacheEntry> entries = repository.findByExpiresTimeAfterOrderByCreatedTimeDesc(
+                    now, PageRequest.of(0, config.getWarmStartSize()));
+            for (RouteCacheEntry entry : entries) {
+                memory.put(entry.getCacheKey(), new CachedRoute(entry.getResponse(), entry.getExpiresTime()));
+            }
+        } catch (Exception e) {
+            // 预热失败时从空缓存开始
+            failure("warm_start", e);
+        }
+    }
+
+    private void failure(String operation, Exception e) {
+        Counter.builder("route.cache.persistence.failures")
+                .description("路线缓存持久层读写失败次数")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+        long now = System.nanoTime();
+        long last = lastWarnNanos.get();
+        if (now - last >= WARN_INTERVAL_NANOS && lastWarnNanos.compareAndSet(last, now)) {
+            log.warn("路线缓存持久层 {} 失败（一分钟内的后续失败只计数）", operation, e);
+        } else {
+            log.debug("路线缓存持久层 {} 失败", operation, e);
+        }
+    }
+
+    private String quantize(String point) {
+        if (point == null) {
+            return "";
+        }
+        String[] parts = point.split(",");
+        if (parts.length != 2) {
+            return point.trim();
+        }
+        try {
+            long lat = Math.round(Double.parseDouble(parts[0].trim()) / config.getGrid());
+            long lng = Math.round(Double.parseDouble(parts[1].trim()) / config.getGrid());
+            return lat + "," + lng;
+        } catch (NumberFormatException e) {
+            return point.trim();
+        }
+    }
+}
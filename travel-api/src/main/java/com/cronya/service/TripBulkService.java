@@ -0,0 +1,248 @@
+package com.cronya.service;
+
+import com.cronya.config.TripBulkConfig;
+import com.cronya.domain.Trip;
+import com.cronya.domain.TripExportRow;
+import com.cronya.repository.TripRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 行程批量导入 / 导出（NDJSON，每行一个行程，格式与 GET /api/trips/{id} 的响应一致）。
+ * <p>
+ * 导入：逐行解析，攒满 batchSize 后用 JDBC 批量插入 trip 与 trip_document（每批一个事务），
+ * 绕开 JPA 的 IDENTITY 逐行插入；trip 的自增主键通过批量插入返回的 generated keys 取回，
+ * MySQL 开启 rewriteBatchedStatements 后一批只发一条多值 INSERT。
+ * 导出：只进游标逐行读取并直接写出，不在内存中累积结果。两者的内存占用都与行程总数无关。
+ */
+@Service
+public class TripBulkService {
+
+    private static final String INSERT_TRIP = "insert into trip (trip_name, user_id, destination, days, budget, "
+            + "estimated_total, version, created_time, updated_time) values (?, ?, ?, ?, ?, ?, 0, ?, ?)";
+    private static final String INSERT_DOCUMENT = "insert into trip_document (trip_id, content, raw_size, checksum, "
+            + "updated_time) values (?, ?, ?, ?, ?)";
+
+    private static final ObjectMapper LINE_MAPPER = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final TripBulkConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TripRepository tripRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TripBulkService(TripBulkConfig config, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager, TripRepository tripRepository,
+                           ApplicationEventPublisher eventPublisher) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tripRepository = tripRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 导入 NDJSON：空行跳过，解析失败的行记入 errors 并继续；id 与 version 由数据库重新分配
+     *
+     * @return imported / failed / errors（最多 maxErrors 条，含行号）
+     */
+    public Map<String, Object> importTrips(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        int batchSize = Math.max(1, config.getBatchSize());
+        List<Trip> batch = new ArrayList<>(batchSize);
+        List<Map<String, Object>> errors = new ArrayList<>();
+        long imported = 0;
+        long failed = 0;
+        long lineNo = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(parseLine(line));
+            } catch (Exception e) {
+                failed++;
+                addError(errors, lineNo, e.getMessage());
+                continue;
+            }
+            if (batch.size() == batchSize) {
+                imported += insertBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += insertBatch(batch);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("imported", imported);
+        result.put("failed", failed);
+        result.put("errors", errors);
+        return result;
+    }
+
+    /**
+     * 导出 NDJSON：按 id 顺序，userId 为空时导出全部行程
+     */
+    @Transactional(readOnly = true)
+    public long exportTrips(String userId, OutputStream out) throws IOException {
+        long count = 0;
+        int flushEvery = Math.max(1, config.getFlushEvery());
+        JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+        generator.setRootValueSeparator(null);
+        try (Stream<TripExportRow> rows = tripRepository.streamForExport(userId)) {
+            Iterator<TripExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writeRow(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++count % flushEvery == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    private static Trip parseLine(String line) throws IOException {
+        Trip trip = LINE_MAPPER.readValue(line, Trip.class);
+        if (trip.getUserId() == null || trip.getUserId().isBlank()) {
+            throw new IllegalArgumentException("缺少 userId");
+        }
+        TripService.fillSummary(trip);
+        LocalDateTime now = LocalDateTime.now();
+        if (trip.getCreatedTime() == null) {
+            trip.setCreatedTime(now);
+        }
+        if (trip.getUpdatedTime() == null) {
+            trip.setUpdatedTime(trip.getCreatedTime());
+        }
+        return trip;
+    }
+
+    private int insertBatch(List<Trip> trips) {
+        return transactionTemplate.execute(status -> {
+            // 1. 批量插入 trip，按顺序取回自增主键
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_TRIP, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Trip trip = trips.get(i);
+                            ps.setString(1, trip.getTripName());
+                            ps.setString(2, trip.getUserId());
+                            ps.setString(3, trip.getDestination());
+                            setNullable(ps, 4, trip.getDays(), Types.INTEGER);
+                            setNullable(ps, 5, trip.getBudget(), Types.DOUBLE);
+                            setNullable(ps, 6, trip.getEstimatedTotal(), Types.DOUBLE);
+                            ps.setTimestamp(7, Timestamp.valueOf(trip.getCreatedTime()));
+                            ps.setTimestamp(8, Timestamp.valueOf(trip.getUpdatedTime()));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return trips.size();
+                        }
+                    }, keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            if (keys.size() != trips.size()) {
+                throw new IllegalStateException("批量插入返回的主键数量不一致: " + keys.size() + "/" + trips.size());
+            }
+
+            // 2. 压缩文档并批量插入 trip_document
+            List<Object[]> documents = new ArrayList<>(trips.size());
+            List<Long> tripIds = new ArrayList<>(trips.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (int i = 0; i < trips.size(); i++) {
+                long tripId = ((Number) keys.get(i).values().iterator().next()).longValue();
+                tripIds.add(tripId);
+                String json = trips.get(i).getTripDataJson();
+                if (json == null) {
+                    continue;
+                }
+                byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+                documents.add(new Object[]{tripId, TripDocumentCodec.encode(raw), raw.length,
+                        TripDocumentCodec.checksum(raw), now});
+            }
+            if (!documents.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_DOCUMENT, documents);
+            }
+            eventPublisher.publishEvent(new TripChangedEvent(tripIds,
+                    TripChangedEvent.users(trips.stream().map(Trip::getUserId).toList())));
+            return trips.size();
+        });
+    }
+
+    private static void writeRow(JsonGenerator generator, TripExportRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getId());
+        generator.writeStringField("tripName", row.getTripName());
+        generator.writeStringField("userId", row.getUserId());
+        generator.writeStringField("destination", row.getDestination());
+        writeNullable(generator, "days", row.getDays());
+        writeNullable(generator, "budget", row.getBudget());
+        writeNullable(generator, "estimatedTotal", row.getEstimatedTotal());
+        writeNullable(generator, "version", row.getVersion());
+        generator.writeStringField("createdTime", row.getCreatedTime() == null ? null : row.getCreatedTime().toString());
+        generator.writeStringField("updatedTime", row.getUpdatedTime() == null ? null : row.getUpdatedTime().toString());
+        generator.writeStringField("tripDataJson", row.getContent() == null ? null
+                : TripDocumentCodec.decode(row.getContent(), row.getRawSize() == null ? 0 : row.getRawSize()));
+        generator.writeEndObject();
+    }
+
+    private static void writeNullable(JsonGenerator generator, String field, Number value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumberField(field, value.longValue());
+        } else {
+            generator.writeNumberField(field, value.doubleValue());
+        }
+    }
+
+    private static void setNullable(PreparedStatement ps, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else {
+            ps.setObject(index, value, sqlType);
+        }
+    }
+
+    private void addError(List<Map<String, Object>> errors, long lineNo, String message) {
+        if (errors.size() < config.getMaxErrors()) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("line", lineNo);
+            error.put("error", message);
+            errors.add(error);
+        }
+    }
+}
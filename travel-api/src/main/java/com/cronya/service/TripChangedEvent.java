@@ -0,0 +1,28 @@
+package com.cronya.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 行程新增、修改或删除后发布（事务提交后由搜索索引与响应缓存消费）；只携带 id 与所属用户，监听方自行读取最新状态
+ *
+ * @param userIds 变化前后所属的用户，用于失效按用户缓存的行程列表
+ */
+public record TripChangedEvent(List<Long> tripIds, Set<String> userIds) {
+
+    public static TripChangedEvent of(Long tripId, String... userIds) {
+        return new TripChangedEvent(List.of(tripId), users(List.of(userIds)));
+    }
+
+    public static Set<String> users(Collection<String> userIds) {
+        Set<String> users = new HashSet<>();
+        for (String userId : userIds) {
+            if (userId != null) {
+                users.add(userId);
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cronya.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 行程 JSON 压缩编码：raw deflate + 预置字典。
+ * <p>
+ * 单个行程只有几 KB，普通 deflate 在开头缺少可回溯的历史，字段名和类别值都要各自出现一次才能被引用；
+ * 预置字典里放入行程 JSON 的骨架与高频取值（按出现频率从低到高排列，越常用越靠后、回溯距离越短），
+ * 让这些内容从第一个字节起就能命中。
+ * 输出首字节为字典版本号，修改字典时必须新增版本，旧版本保留用于解码已存数据。
+ */
+public final class TripDocumentCodec {
+
+    public static final byte VERSION_DICT_V1 = 1;
+
+    private static final byte[] DICT_V1 = String.join("",
+            "自驾待定飞机春季夏季秋季冬季情侣家庭朋友带孩子独自动漫自然风光",
+            "古镇寺庙海滩山顶索道缆车码头游船夜市商场老街广场公园博物馆纪念馆美术馆剧院",
+            "地铁出租车打车高铁站火车站机场大巴步行骑行",
+            "早餐午餐晚餐小吃特色风味当地品尝体验漫步夜游打卡拍照",
+            "抵达入住酒店民宿返回休息返程前往附近",
+            "游览参观",
+            "{\"userProfile\":{\"companions\":\"独自\",\"preferences\":[\"美食\",\"文化\",\"购物\"]},",
+            "\"tripIntent\":{\"destination\":\"\",\"days\":3,\"budget\":3000.0,\"transportMode\":\"火车\",\"season\":\"秋季\"},",
+            "\"budgetAnalysis\":{\"estimatedTotal\":0.0,\"categories\":{\"交通\":0.0,\"住宿\":0.0,\"餐饮\":0.0,\"景点\":0.0,\"购物\":0.0,\"文化\":0.0},\"currency\":\"CNY\"},",
+            "\"computedDailySums\":{\"day1\":0.0,\"day2\":0.0,\"day3\":0.0},",
+            "\"computedCategorySums\":{\"交通\":0.0,\"住宿\":0.0,\"餐饮\":0.0,\"景点\":0.0,\"购物\":0.0,\"文化\":0.0},",
+            "\"verification\":{\"dailyEqual\":true,\"totalEqual\":true,\"categoryEqual\":true,\"lodgingEveryDay\":true},\"debug\":\"本地校验一致\"}",
+            "\"tripPlan\":[{\"day\":1,\"segments\":[",
+            "{\"time\":\"晚上\",\"activity\":\"入住\",\"location\":\"酒店\",\"latitude\":30.0,\"longitude\":120.0,\"cost\":200.0,\"category\":\"住宿\"},",
+            "{\"time\":\"下午\",\"activity\":\"购物\",\"location\":\"步行街\",\"latitude\":31.0,\"longitude\":121.0,\"cost\":100.0,\"category\":\"购物\"},",
+            "{\"time\":\"上午\",\"activity\":\"交通\",\"location\":\"站\",\"latitude\":22.0,\"longitude\":113.0,\"cost\":20.0,\"category\":\"交通\"},",
+            "{\"time\":\"下午\",\"activity\":\"文化\",\"location\":\"博物馆\",\"latitude\":34.0,\"longitude\":108.0,\"cost\":0.0,\"category\":\"文化\"},",
+            "{\"time\":\"中午\",\"activity\":\"品尝\",\"location\":\"餐厅\",\"latitude\":39.0,\"longitude\":116.0,\"cost\":60.0,\"category\":\"餐饮\"},",
+            "{\"time\":\"上午\",\"activity\":\"游览\",\"location\":\"景区\",\"latitude\":39.9,\"longitude\":116.3,\"cost\":50.0,\"category\":\"景点\"}",
+            "],\"dailyTotalCost\":0.0},{\"day\":2,\"segments\":[{\"time\":\"上午\",\"activity\":\"",
+            "\",\"location\":\"",
+            "\",\"latitude\":",
+            ",\"longitude\":",
+            ",\"cost\":",
+            ",\"category\":\"",
+            "\"},{\"time\":\"").getBytes(StandardCharsets.UTF_8);
+
+    private TripDocumentCodec() {
+    }
+
+    /**
+     * @param raw 行程 JSON 的 UTF-8 字节
+     */
+    public static byte[] encode(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICT_V1);
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+            out.write(VERSION_DICT_V1);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decode(byte[] content, int rawSize) {
+        if (content == null || content.length == 0) {
+            return null;
+        }
+        if (content[0] != VERSION_DICT_V1) {
+            throw new IllegalStateException("未知的行程文档编码版本: " + content[0]);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            // raw deflate 不会提示需要字典，解码前直接设置
+            inflater.setDictionary(DICT_V1);
+            inflater.setInput(content, 1, content.length - 1);
+            byte[] raw = new byte[Math.max(rawSize, 0)];
+            int n = 0;
+            while (!inflater.finished()) {
+                if (n == raw.length) {
+                    raw = Arrays.copyOf(raw, Math.max(256, raw.length * 2));
+                }
+                int read = inflater.inflate(raw, n, raw.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("行程文档数据不完整");
+                }
+                n += read;
+            }
+            return new String(raw, 0, n, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("行程文档解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public static long checksum(byte[] raw) {
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,118 @@
+package com.cronya.service;
+
+import com.cronya.config.TripStorageConfig;
+import com.cronya.domain.Trip;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 旧数据迁移：trip.trip_data_json 中的明文 JSON 压缩写入 trip_document，同时填充派生列，然后清空旧列；
+ * 并为旧行程补齐乐观锁版本号。
+ * <p>
+ * 作为 ApplicationRunner 在应用报告就绪（ApplicationReadyEvent）之前执行，索引构建与统计回填都在其后，
+ * 能读到迁移后的文档；迁移完成前及个别行迁移失败时，{@link TripDocumentStore} 回退读取旧列。
+ * 每批迁移后发布 {@link TripChangedEvent}，搜索 / 地点索引与统计随之更新。
+ * <p>
+ * 按 id 分批执行，可重复运行：文档内容相同不会重写，已清空的行不再被扫描。
+ * 旧列不存在（全新建库或已执行 trip_document_migration.sql 的删除步骤）时直接跳过。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TripDocumentMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TripDocumentMigration.class);
+
+    private final TripStorageConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TripDocumentStore documentStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TripDocumentMigration(TripStorageConfig config, JdbcTemplate jdbcTemplate, TripDocumentStore documentStore,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.documentStore = documentStore;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (config.isMigrateOnStartup()) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return 迁移失败的行数（失败的行保留旧列，下次启动重试）
+     */
+    public int migrate() {
+        try {
+            // 新增 version 列之前的行程版本号为空，补 0 后才能参与乐观锁
+            jdbcTemplate.update("update trip set version = 0, updated_time = updated_time where version is null");
+        } catch (BadSqlGrammarException e) {
+            log.debug("trip.version 列尚未创建，跳过版本号补齐");
+        }
+        int batchSize = Math.max(1, config.getMigrationBatchSize());
+        long lastId = 0;
+        int migrated = 0;
+        int failed = 0;
+        List<Map<String, Object>> batch;
+        do {
+            try {
+                batch = jdbcTemplate.queryForList("select id, user_id, trip_data_json from trip "
+                        + "where id > ? and trip_data_json is not null order by id limit ?", lastId, batchSize);
+            } catch (BadSqlGrammarException e) {
+                // 旧列不存在，没有需要迁移的数据
+                documentStore.setLegacyFallback(false);
+                return 0;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            List<String> userIds = new ArrayList<>(batch.size());
+            for (Map<String, Object> row : batch) {
+                lastId = ((Number) row.get("id")).longValue();
+                try {
+                    migrateRow(lastId, (String) row.get("trip_data_json"));
+                    ids.add(lastId);
+                    userIds.add((String) row.get("user_id"));
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.warn("行程 {} 的旧数据迁移失败，继续读取旧列，下次启动重试", lastId, e);
+                }
+            }
+            if (!ids.isEmpty()) {
+                migrated += ids.size();
+                eventPublisher.publishEvent(new TripChangedEvent(ids, TripChangedEvent.users(userIds)));
+            }
+        } while (batch.size() == batchSize);
+        if (failed == 0) {
+            documentStore.setLegacyFallback(false);
+        }
+        if (migrated > 0 || failed > 0) {
+            log.info("行程旧数据迁移完成：迁移 {} 个，失败 {} 个", migrated, failed);
+        }
+        return failed;
+    }
+
+    private void migrateRow(long id, String json) {
+        Trip summary = new Trip();
+        summary.setTripDataJson(json);
+        TripService.fillSummary(summary);
+
+        // 先写文档再清空旧列，中途失败时重跑即可
+        documentStore.save(id, json);
+        // updated_time 显式赋原值，避免触发 ON UPDATE CURRENT_TIMESTAMP
+        jdbcTemplate.update("update trip set destination = ?, days = ?, budget = ?, estimated_total = ?, "
+                        + "trip_data_json = null, updated_time = updated_time where id = ?",
+                summary.getDestination(), summary.getDays(), summary.getBudget(), summary.getEstimatedTotal(), id);
+    }
+}
@@ -0,0 +1,112 @@
+package com.cronya.service;
+
+import com.cronya.domain.TripDocument;
+import com.cronya.repository.TripDocumentRepository;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 行程文档的读写：trip 表只保存元数据与派生列，完整 JSON 压缩后存放在 trip_document 表，
+ * 只有确实需要完整内容时才读取。
+ * <p>
+ * 旧数据迁移（{@link TripDocumentMigration}）完成前，trip_document 中没有的行程回退读取 trip.trip_data_json。
+ */
+@Component
+public class TripDocumentStore {
+
+    private final TripDocumentRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    // 迁移全部成功或旧列不存在后关闭
+    private volatile boolean legacyFallback = true;
+
+    public TripDocumentStore(TripDocumentRepository repository, JdbcTemplate jdbcTemplate) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void setLegacyFallback(boolean legacyFallback) {
+        this.legacyFallback = legacyFallback;
+    }
+
+    /**
+     * 写入行程文档；内容未变化（校验和相同）时不重写
+     *
+     * @return 是否实际写入
+     */
+    public boolean save(Long tripId, String json) {
+        if (json == null) {
+            return false;
+        }
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+        long checksum = TripDocumentCodec.checksum(raw);
+        Optional<Long> existing = repository.findChecksum(tripId);
+        if (existing.isPresent() && existing.get() == checksum) {
+            return false;
+        }
+        byte[] content = TripDocumentCodec.encode(raw);
+        LocalDateTime now = LocalDateTime.now();
+        if (existing.isPresent()) {
+            repository.updateContent(tripId, content, raw.length, checksum, now);
+            return true;
+        }
+        TripDocument document = new TripDocument();
+        document.setTripId(tripId);
+        document.setContent(content);
+        document.setRawSize(raw.length);
+        document.setChecksum(checksum);
+        document.setUpdatedTime(now);
+        repository.save(document);
+        return true;
+    }
+
+    public String load(Long tripId) {
+        String json = repository.findById(tripId).map(TripDocumentStore::decode).orElse(null);
+        return json != null || !legacyFallback ? json : loadLegacy(List.of(tripId)).get(tripId);
+    }
+
+    /**
+     * 批量加载，一次查询
+     */
+    public Map<Long, String> loadAll(Collection<Long> tripIds) {
+        Map<Long, String> documents = new HashMap<>();
+        for (TripDocument document : repository.findAllById(tripIds)) {
+            documents.put(document.getTripId(), decode(document));
+        }
+        if (legacyFallback && documents.size() < tripIds.size()) {
+            List<Long> missing = tripIds.stream().filter(id -> !documents.containsKey(id)).toList();
+            documents.putAll(loadLegacy(missing));
+        }
+        return documents;
+    }
+
+    public void delete(Long tripId) {
+        repository.deleteByTripId(tripId);
+    }
+
+    private Map<Long, String> loadLegacy(List<Long> tripIds) {
+        Map<Long, String> documents = new HashMap<>();
+        if (tripIds.isEmpty()) {
+            return documents;
+        }
+        String placeholders = String.join(",", Collections.nCopies(tripIds.size(), "?"));
+        try {
+            jdbcTemplate.query("select id, trip_data_json from trip where trip_data_json is not null and id in ("
+                    + placeholders + ")", rs -> {
+                documents.put(rs.getLong(1), rs.getString(2));
+            }, tripIds.toArray());
+        } catch (BadSqlGrammarException e) {
+            // 旧列已删除
+            legacyFallback = false;
+        }
+        return documents;
+    }
+
+    private static String decode(TripDocument document) {
+        return TripDocumentCodec.decode(document.getContent(), document.getRawSize() == null ? 0 : document.getRawSize());
+    }
+}
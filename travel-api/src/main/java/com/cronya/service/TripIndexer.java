@@ -0,0 +1,181 @@
+package com.cronya.service;
+
+import com.cronya.config.TripSearchConfig;
+import com.cronya.domain.Trip;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.repository.TripRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把行程变化同步到搜索索引与地点索引：事务提交后按 id 重新读取行程与文档，存在则覆盖、不存在则删除。
+ * 搜索索引写入后只做近实时刷新，由后台线程按 trip.search.commit-interval 提交，停机时再提交一次。
+ * 索引失败不影响业务写入（记录日志与 trip.index.failures 计数），可通过重建命令恢复一致。
+ * <p>
+ * 启动构建在 ApplicationReadyEvent 上执行，此时旧数据迁移（ApplicationRunner）已经完成；
+ * 是否重建搜索索引按创建时的索引是否为空决定，不受迁移期间事件写入的影响。
+ */
+@Component
+public class TripIndexer implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TripIndexer.class);
+
+    private final TripSearchConfig config;
+    private final TripSearchIndex index;
+    private final PoiIndex poiIndex;
+    private final TripRepository tripRepository;
+    private final TripDocumentStore documentStore;
+    private final MeterRegistry meterRegistry;
+    private final boolean emptyAtStartup;
+    private final ScheduledExecutorService committer;
+
+    public TripIndexer(TripSearchConfig config, TripSearchIndex index, PoiIndex poiIndex,
+                       TripRepository tripRepository, TripDocumentStore documentStore,
+                       MeterRegistry meterRegistry) throws IOException {
+        this.config = config;
+        this.index = index;
+        this.poiIndex = poiIndex;
+        this.tripRepository = tripRepository;
+        this.documentStore = documentStore;
+        this.meterRegistry = meterRegistry;
+        this.emptyAtStartup = index.count() == 0;
+        this.committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trip-index-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, config.getCommitInterval().toMillis());
+        committer.scheduleWithFixedDelay(this::commit, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        List<Trip> trips = tripRepository.findAllById(event.tripIds());
+        Map<Long, String> documents = documentStore.loadAll(event.tripIds());
+        Set<Long> missing = new HashSet<>(event.tripIds());
+        try {
+            for (Trip trip : trips) {
+                trip.setTripDataJson(documents.get(trip.getId()));
+                TripPlan plan = parse(trip.getTripDataJson());
+                poiIndex.update(trip.getId(), plan);
+                index.index(trip, plan);
+                missing.remove(trip.getId());
+            }
+            for (Long id : missing) {
+                poiIndex.remove(id);
+                index.delete(id);
+            }
+            index.refresh();
+        } catch (IOException | RuntimeException e) {
+            failure("update");
+            log.warn("行程 {} 同步到搜索索引失败，可通过重建命令恢复", event.tripIds(), e);
+        }
+    }
+
+    /**
+     * 地点索引只在内存中，每次启动都要从数据库构建；搜索索引落盘，只在为空时重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        scan(config.isRebuildOnStartup() && emptyAtStartup);
+    }
+
+    /**
+     * 清空两个索引并按 id 顺序从数据库分批全量重建
+     *
+     * @return 索引的行程数
+     */
+    public long rebuild() {
+        return scan(true);
+    }
+
+    private synchronized long scan(boolean includeSearch) {
+        try {
+            if (includeSearch) {
+                index.deleteAll();
+            }
+            PoiIndex.Builder poiBuilder = poiIndex.newBuilder();
+            int batchSize = Math.max(1, config.getRebuildBatchSize());
+            long lastId = 0;
+            long count = 0;
+            List<Trip> batch;
+            do {
+                batch = tripRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(batchSize));
+                Map<Long, String> documents = documentStore.loadAll(batch.stream().map(Trip::getId).toList());
+                for (Trip trip : batch) {
+                    trip.setTripDataJson(documents.get(trip.getId()));
+                    TripPlan plan = parse(trip.getTripDataJson());
+                    poiBuilder.add(trip.getId(), plan);
+                    if (includeSearch) {
+                        index.index(trip, plan);
+                    }
+                    lastId = trip.getId();
+                }
+                count += batch.size();
+            } while (batch.size() == batchSize);
+            poiIndex.replace(poiBuilder);
+            if (includeSearch) {
+                index.commit();
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("重建行程索引失败", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        committer.shutdownNow();
+        commit();
+    }
+
+    private void commit() {
+        try {
+            index.commitIfChanged();
+        } catch (IOException | RuntimeException e) {
+            failure("commit");
+            log.warn("搜索索引提交失败，将在下次定时提交时重试", e);
+        }
+    }
+
+    private void failure(String operation) {
+        Counter.builder("trip.index.failures")
+                .description("搜索索引写入 / 提交失败次数")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 解析行程文档，为空或不是合法的规划结果时返回 null
+     */
+    static TripPlan parse(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return TripPlanCodec.read(json);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.cronya.service;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地规则版意图提取：不调用模型，从用户原文中识别天数、预算、同行人与偏好，
+ * 目的地则在已知目的地集合中做最长匹配。只用于缓存命中判断，识别不全时返回 null。
+ */
+public class TripIntentExtractor {
+
+    /** 与 prompt 中 userProfile / tripIntent 的取值保持一致 */
+    public record Intent(String destination, int days, long budget, String companions, List<String> preferences) {
+    }
+
+    // 最多 3 位数字，前面不能紧跟其他数字（过长的数字串视为未识别，而不是截取末尾几位）
+    private static final Pattern DAYS = Pattern.compile("(?<![0-9])([0-9]{1,3}|[一二两三四五六七八九十]+)\\s*(?:天|日)");
+    static final int MAX_DAYS = 365;
+    private static final Pattern BUDGET = Pattern.compile("预算\\D{0,3}?([0-9]+(?:\\.[0-9]+)?|[零一二两三四五六七八九十百千万]+)\\s*(万|千)?");
+
+    private static final Map<String, String> COMPANION_KEYWORDS = new LinkedHashMap<>();
+    static {
+        COMPANION_KEYWORDS.put("孩子", "带孩子");
+        COMPANION_KEYWORDS.put("小孩", "带孩子");
+        COMPANION_KEYWORDS.put("儿子", "带孩子");
+        COMPANION_KEYWORDS.put("女儿", "带孩子");
+        COMPANION_KEYWORDS.put("女朋友", "情侣");
+        COMPANION_KEYWORDS.put("男朋友", "情侣");
+        COMPANION_KEYWORDS.put("对象", "情侣");
+        COMPANION_KEYWORDS.put("情侣", "情侣");
+        COMPANION_KEYWORDS.put("老婆", "情侣");
+        COMPANION_KEYWORDS.put("老公", "情侣");
+        COMPANION_KEYWORDS.put("全家", "家庭");
+        COMPANION_KEYWORDS.put("家人", "家庭");
+        COMPANION_KEYWORDS.put("父母", "家庭");
+        COMPANION_KEYWORDS.put("爸妈", "家庭");
+        COMPANION_KEYWORDS.put("朋友", "朋友");
+        COMPANION_KEYWORDS.put("同学", "朋友");
+        COMPANION_KEYWORDS.put("闺蜜", "朋友");
+        COMPANION_KEYWORDS.put("一个人", "独自");
+        COMPANION_KEYWORDS.put("独自", "独自");
+    }
+
+    private static final Pattern MONTH = Pattern.compile("([0-9]{1,2}|十[一二]?|[一二三四五六七八九])\\s*月");
+    private static final Map<String, String> SEASON_KEYWORDS = new LinkedHashMap<>();
+    static {
+        SEASON_KEYWORDS.put("春节", "冬季");
+        SEASON_KEYWORDS.put("寒假", "冬季");
+        SEASON_KEYWORDS.put("暑假", "夏季");
+        SEASON_KEYWORDS.put("国庆", "秋季");
+        for (String season : List.of("春", "夏", "秋", "冬")) {
+            SEASON_KEYWORDS.put(season + "季", season + "季");
+            SEASON_KEYWORDS.put(season + "天", season + "季");
+        }
+    }
+
+    public static final List<String> PREFERENCES = List.of("美食", "动漫", "自然风光", "文化", "购物", "历史", "亲子", "摄影");
+
+    private TripIntentExtractor() {
+    }
+
+    /**
+     * @param knownDestinations 已缓存过的目的地
+     * @return 识别结果；目的地、天数、预算任一缺失时返回 null
+     */
+    public static Intent extract(String rawText, Collection<String> knownDestinations) {
+        if (rawText == null || rawText.isBlank()) {
+            return null;
+        }
+        String text = rawText.trim();
+
+        String destination = null;
+        for (String candidate : knownDestinations) {
+            if (text.contains(candidate) && (destination == null || candidate.length() > destination.length())) {
+                destination = candidate;
+            }
+        }
+        if (destination == null) {
+            return null;
+        }
+
+        Matcher days = DAYS.matcher(text);
+        if (!days.find()) {
+            return null;
+        }
+        long dayCount = parseNumber(days.group(1));
+        if (dayCount > MAX_DAYS) {
+            return null;
+        }
+
+        Matcher budget = BUDGET.matcher(text);
+        if (!budget.find()) {
+            return null;
+        }
+        double amount = parseDecimal(budget.group(1));
+        if ("万".equals(budget.group(2))) {
+            amount *= 10_000;
+        } else if ("千".equals(budget.group(2))) {
+            amount *= 1_000;
+        }
+
+        String companions = extractCompanions(text);
+
+        List<String> preferences = new ArrayList<>();
+        for (String preference : PREFERENCES) {
+            if (text.contains(preference)) {
+                preferences.add(preference);
+            }
+        }
+
+        if (dayCount <= 0 || amount <= 0) {
+            return null;
+        }
+        return new Intent(destination, (int) dayCount, Math.round(amount), companions, preferences);
+    }
+
+    /**
+     * 只识别天数（模型路由按行程规模选模型），未识别到或不在 1 ~ MAX_DAYS 之间时返回 0
+     */
+    public static int extractDays(String rawText) {
+        if (rawText == null) {
+            return 0;
+        }
+        Matcher days = DAYS.matcher(rawText);
+        if (!days.find()) {
+            return 0;
+        }
+        long count = parseNumber(days.group(1));
+        return count > 0 && count <= MAX_DAYS ? (int) count : 0;
+    }
+
+    /**
+     * 只识别同行人，未识别到时返回空字符串
+     */
+    public static String extractCompanions(String rawText) {
+        if (rawText == null) {
+            return "";
+        }
+        for (Map.Entry<String, String> entry : COMPANION_KEYWORDS.entrySet()) {
+            if (rawText.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 识别出行季节（春季/夏季/秋季/冬季，与 prompt 中 tripIntent.season 的取值一致），先看季节关键词再看月份，未识别到时返回 null
+     */
+    public static String extractSeason(String rawText) {
+        if (rawText == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : SEASON_KEYWORDS.entrySet()) {
+            if (rawText.contains(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        Matcher month = MONTH.matcher(rawText);
+        if (month.find()) {
+            long m = parseNumber(month.group(1));
+            if (m >= 1 && m <= 12) {
+                return m >= 3 && m <= 5 ? "春季" : m >= 6 && m <= 8 ? "夏季" : m >= 9 && m <= 11 ? "秋季" : "冬季";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 解析阿拉伯数字或中文数字（支持 十/百/千/万 组合，如 "一万五千"、"三"、"十二"）；超出 long 范围时返回 0（视为未识别）
+     */
+    public static long parseNumber(String s) {
+        if (s.chars().allMatch(Character::isDigit)) {
+            try {
+                return Long.parseLong(s);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        long total = 0;
+        long section = 0;
+        long digit = 0;
+        for (char c : s.toCharArray()) {
+            int d = "零一二三四五六七八九".indexOf(c);
+            if (c == '两') {
+                d = 2;
+            }
+            if (d >= 0) {
+                digit = d;
+                continue;
+            }
+            switch (c) {
+                case '十' -> { section += (digit == 0 ? 1 : digit) * 10; digit = 0; }
+                case '百' -> { section += digit * 100; digit = 0; }
+                case '千' -> { section += digit * 1000; digit = 0; }
+                case '万' -> { total += (section + digit) * 10_000; section = 0; digit = 0; }
+                default -> { }
+            }
+        }
+        return total + section + digit;
+    }
+
+    private static double parseDecimal(String s) {
+        if (Character.isDigit(s.charAt(0))) {
+            return Double.parseDouble(s);
+        }
+        return parseNumber(s);
+    }
+}
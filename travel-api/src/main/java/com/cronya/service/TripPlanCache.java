@@ -0,0 +1,160 @@
+package com.cronya.service;
+
+import com.cronya.config.PlanCacheConfig;
+import com.cronya.model.TripIntent;
+import com.cronya.model.TripPlan;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 行程规划结果缓存（两层）：
+ * 1. exact：规范化后的用户原文 + 模型名 做 SHA-256，命中即返回；
+ * 2. intent：按 目的地 / 天数 / 预算分桶 / 同行人 / 偏好 匹配，覆盖措辞不同但意图相同的请求。
+ * 两层均有容量与 TTL 上限，命中率通过 Micrometer 暴露（cache.gets 等指标）。
+ */
+@Component
+public class TripPlanCache {
+
+    private record IntentKey(String destination, int days, long budgetBucket, String companions, List<String> preferences) {
+    }
+
+    private final PlanCacheConfig config;
+    private final Cache<String, TripPlan> exactCache;
+    private final Cache<IntentKey, TripPlan> intentCache;
+    private final Set<String> destinations = ConcurrentHashMap.newKeySet();
+
+    public TripPlanCache(PlanCacheConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.exactCache = Caffeine.newBuilder()
+                .maximumSize(config.getExact().getMaxSize())
+                .expireAfterWrite(config.getExact().getTtl())
+                .recordStats()
+                .build();
+        this.intentCache = Caffeine.newBuilder()
+                .maximumSize(config.getIntent().getMaxSize())
+                .expireAfterWrite(config.getIntent().getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, exactCache, "plan.cache.exact");
+        CaffeineCacheMetrics.monitor(meterRegistry, intentCache, "plan.cache.intent");
+    }
+
+    /**
+     * 依次查询 exact 层与 intent 层，均未命中返回 null
+     */
+    public TripPlan get(String rawText, String model) {
+        if (!config.isEnabled() || rawText == null) {
+            return null;
+        }
+        TripPlan plan = exactCache.getIfPresent(exactKey(rawText, model));
+        if (plan != null) {
+            return plan;
+        }
+        TripIntentExtractor.Intent intent = TripIntentExtractor.extract(rawText, destinations);
+        if (intent == null) {
+            return null;
+        }
+        return intentCache.getIfPresent(new IntentKey(intent.destination(), intent.days(),
+                bucket(intent.budget()), intent.companions(), intent.preferences()));
+    }
+
+    /**
+     * 缓存一次成功的生成结果（带 error 的结果不缓存）
+     */
+    public void put(String rawText, String model, TripPlan plan) {
+        if (!config.isEnabled() || rawText == null || plan == null || plan.getError() != null) {
+            return;
+        }
+        exactCache.put(exactKey(rawText, model), plan);
+
+        // 模型给出的目的地只用于扩充可识别的目的地；键与 get 一样从用户原文提取，
+        // 避免模型按默认值补全的同行人 / 偏好使两侧的键不一致
+        TripIntent tripIntent = plan.getTripIntent();
+        if (tripIntent == null || tripIntent.getDestination() == null || tripIntent.getDestination().isBlank()) {
+            return;
+        }
+        destinations.add(tripIntent.getDestination().trim());
+        TripIntentExtractor.Intent intent = TripIntentExtractor.extract(rawText, destinations);
+        if (intent == null) {
+            return;
+        }
+        intentCache.put(new IntentKey(intent.destination(), intent.days(), bucket(intent.budget()),
+                intent.companions(), intent.preferences()), plan);
+    }
+
+    public void invalidateAll() {
+        exactCache.invalidateAll();
+        intentCache.invalidateAll();
+        destinations.clear();
+    }
+
+    /**
+     * 按目的地失效（exact 层无法按目的地定位，同步扫描一遍）
+     */
+    public long invalidateDestination(String destination) {
+        long removed = 0;
+        for (Map.Entry<String, TripPlan> entry : exactCache.asMap().entrySet()) {
+            TripIntent intent = entry.getValue().getTripIntent();
+            if (intent != null && intent.getDestination() != null
+                    && destination.equals(intent.getDestination().trim())) {
+                exactCache.invalidate(entry.getKey());
+                removed++;
+            }
+        }
+        for (IntentKey key : intentCache.asMap().keySet()) {
+            if (key.destination().equals(destination)) {
+                intentCache.invalidate(key);
+                removed++;
+            }
+        }
+        destinations.remove(destination);
+        return removed;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("exact", toMap(exactCache.stats(), exactCache.estimatedSize()));
+        stats.put("intent", toMap(intentCache.stats(), intentCache.estimatedSize()));
+        return stats;
+    }
+
+    private Map<String, Object> toMap(CacheStats stats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", size);
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        return map;
+    }
+
+    private long bucket(long budget) {
+        return budget / Math.max(1, config.getBudgetBucket());
+    }
+
+    /**
+     * 规范化：全角转半角、去除空白与标点、统一小写，再拼上模型名做摘要
+     */
+    private static String exactKey(String rawText, String model) {
+        String normalized = Normalizer.normalize(rawText, Normalizer.Form.NFKC)
+                .replaceAll("[\\s\\p{P}\\p{S}]+", "")
+                .toLowerCase(Locale.ROOT);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((normalized + "|" + model).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
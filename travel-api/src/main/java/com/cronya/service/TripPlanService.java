@@ -5,214 +5,423 @@ import com.alibaba.dashscope.aigc.generation.GenerationParam;
 import com.alibaba.dashscope.aigc.generation.GenerationResult;
 import com.alibaba.dashscope.common.Message;
 import com.alibaba.dashscope.common.Role;
-import com.alibaba.dashscope.utils.JsonUtils;
+import com.alibaba.dashscope.protocol.Protocol;
 import com.cronya.config.AlibabaModelConfig;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cronya.config.PlanBudgetConfig;
+import com.cronya.model.BudgetAnalysis;
+import com.cronya.model.DayPlan;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.outbound.BulkheadFullException;
+import com.cronya.outbound.OutboundExecutors;
+import com.cronya.outbound.PlanRateLimiter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
+/**
+ * 各阶段以 Micrometer Observation 计时并生成链路 span（plan.generate 下挂 plan.prompt.build、plan.model.call、
+ * plan.parse、plan.postprocess），token 用量记录在 plan.model.tokens。
+ */
 @Service
 public class TripPlanService {
 
+    private static final Logger log = LoggerFactory.getLogger(TripPlanService.class);
+
     private final AlibabaModelConfig config;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final TripPlanCache planCache;
+    private final OutboundExecutors outboundExecutors;
+    private final ItineraryOptimizer itineraryOptimizer;
+    private final BudgetReconciler budgetReconciler;
+    private final PlanBudgetConfig budgetConfig;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final PlanRateLimiter rateLimiter;
+    private final ModelRouter modelRouter;
+    private final DestinationStats destinationStats;
+    // Generation 无状态，可在请求间复用；第一次调用模型时才创建（SDK 初始化较慢，不计入启动时间）
+    private volatile Generation gen;
 
-    public TripPlanService(AlibabaModelConfig config) {
+    public TripPlanService(AlibabaModelConfig config, TripPlanCache planCache, OutboundExecutors outboundExecutors,
+                           ItineraryOptimizer itineraryOptimizer, BudgetReconciler budgetReconciler,
+                           PlanBudgetConfig budgetConfig, ObservationRegistry observationRegistry,
+                           MeterRegistry meterRegistry, PlanRateLimiter rateLimiter,
+                           ModelRouter modelRouter, DestinationStats destinationStats) {
         this.config = config;
+        this.planCache = planCache;
+        this.outboundExecutors = outboundExecutors;
+        this.itineraryOptimizer = itineraryOptimizer;
+        this.budgetReconciler = budgetReconciler;
+        this.budgetConfig = budgetConfig;
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = rateLimiter;
+        this.modelRouter = modelRouter;
+        this.destinationStats = destinationStats;
+    }
+
+    private Generation generation() {
+        Generation current = gen;
+        if (current == null) {
+            synchronized (this) {
+                current = gen;
+                if (current == null) {
+                    // 未配置 endpoint 时使用 SDK 默认地址；压测时指向本地替身服务
+                    current = config.getEndpoint() == null || config.getEndpoint().isBlank()
+                            ? new Generation() : new Generation(Protocol.HTTP.getValue(), config.getEndpoint());
+                    gen = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 只查缓存，不调用模型（准入控制只针对未命中缓存的请求）
+     */
+    public TripPlan getCached(String rawText) {
+        return planCache.get(rawText, config.getModel());
+    }
+
+    /**
+     * 异步版本：缓存命中直接返回，否则经模型路由在大模型隔离舱中调用（可能对冲 / 重试到备用模型），不占用请求线程
+     */
+    public CompletableFuture<TripPlan> generateTripPlanAsync(String rawText) {
+        // 0️⃣ 先查缓存，相同或意图相同的请求直接返回（缓存按默认模型区分，与实际应答的模型无关）
+        TripPlan cached = planCache.get(rawText, config.getModel());
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Observation observation = observation("plan.generate", config.getModel())
+                .lowCardinalityKeyValue("mode", "sync")
+                .start();
+        CompletableFuture<TripPlan> routed;
+        try (Observation.Scope ignored = observation.openScope()) {
+            routed = modelRouter.route(rawText,
+                    model -> outboundExecutors.get(OutboundExecutors.MODEL).submit(() -> callModel(rawText, model)));
+        } catch (RuntimeException e) {
+            // 路由本身出错也要结束观测，并与调用失败一样返回带 error 的结果
+            routed = CompletableFuture.failedFuture(e);
+        }
+        return routed.handle((plan, e) -> {
+            if (e != null) {
+                log.warn("调用模型失败", e);
+                observation.lowCardinalityKeyValue("outcome", "error");
+                observation.error(e);
+                observation.stop();
+                return TripPlan.error("调用模型失败: " + rootMessage(e));
+            }
+            planCache.put(rawText, config.getModel(), plan);
+            observation.lowCardinalityKeyValue("outcome", plan.getError() == null ? "success" : "unparsable");
+            observation.stop();
+            return plan;
+        });
     }
 
     /**
      * 根据用户语音识别文本调用百炼大模型生成结构化行程规划
      */
-    public Map<String, Object> generateTripPlan(String rawText) {
+    public TripPlan generateTripPlan(String rawText) {
+        return generateTripPlanAsync(rawText).join();
+    }
+
+    /**
+     * 对指定模型的一次完整调用（在隔离舱线程上执行），失败时抛出异常交给模型路由决定是否重试
+     */
+    private TripPlan callModel(String rawText, String model) {
+        // 1️⃣ 构造请求参数
+        GenerationParam param = observe("plan.prompt.build", model, () -> buildParam(rawText, model, false));
+
+        // 2️⃣ 调用百炼大模型（耗时与限流错误回报给准入控制）
+        long callStart = System.nanoTime();
+        GenerationResult result;
         try {
-            // 1️⃣ 构造提示词
-            String systemPrompt = """
-                你是一位严谨的智能旅行规划助理，能从用户自然语言中提取信息并生成结构化旅行计划，输出严格为 JSON 格式，且必须满足以下数值一致性约束与结构约束。
-                
-                ========================================================
-                【核心校验规则（必须全部满足）】
-                1. 金额一致性：
-                   - 每日行程中所有 segments 的 cost 总和必须等于该 day 的 dailyTotalCost
-                   - 所有 day 的 dailyTotalCost 总和必须等于 budgetAnalysis.estimatedTotal
-                   - budgetAnalysis.categories 中各项金额总和必须等于 estimatedTotal
-                2. 住宿必算：
-                   - 每天的 segments 必须包含至少 1 条 category 为 "住宿" 的记录
-                   - 住宿费用需合理分配到每天（如总住宿预算 ÷ 天数），并计入当日 dailyTotalCost
-                3. 三重验证必须通过：
-                   - dailyEqual = true
-                   - totalEqual = true
-                   - categoryEqual = true
-                   若任一为 false，必须立即在同一回复中重新计算，直到三者均为 true。
-                
-                ========================================================
-                【输出结构（必须严格遵循）】
-                {
-                  "userProfile": {
-                    "companions": "独自/带孩子/情侣/家庭/朋友",
-                    "preferences": ["美食", "动漫", "自然风光", "文化", "购物"]
-                  },
-                  "tripIntent": {
-                    "destination": "目的地",
-                    "days": 1,
-                    "budget": 1000,
-                    "transportMode": "飞机/火车/自驾/待定",
-                    "season": "春季/夏季/秋季/冬季"
-                  },
-                  "tripPlan": [
-                    {
-                      "day": 1,
-                      "segments": [
-                        {
-                          "time": "上午/中午/下午/晚上",
-                          "activity": "具体活动",
-                          "location": "地点",
-                          "latitude": 数字（纬度，浮点数，保留6位小数，范围 -90~90）,
-                          "longitude": 数字（经度，浮点数，保留6位小数，范围 -180~180）,
-                          "cost": 数字（≥0，浮点数，两位小数）,
-                          "category": "住宿/交通/餐饮/景点/购物/文化"
-                        }
-                      ],
-                      "dailyTotalCost": 所有 segments 的 cost 求和（必须显式计算）
-                    }
-                  ],
-                  "budgetAnalysis": {
-                    "estimatedTotal": 所有 dailyTotalCost 的总和（必须显式计算）,
-                    "categories": {
-                      "交通": 所有交通类 segments 的 cost 总和,
-                      "住宿": 所有住宿类 segments 的 cost 总和,
-                      "餐饮": 所有餐饮类 segments 的 cost 总和,
-                      "景点": 所有景点类 segments 的 cost 总和,
-                      "购物": 所有购物类 segments 的 cost 总和,
-                      "文化": 所有文化类 segments 的 cost 总和
-                    },
-                    "currency": "CNY"
-                  },
-                  "computedDailySums": {
-                    "day1": ..., "day2": ...
-                  },
-                  "computedCategorySums": {
-                    "交通": ..., "住宿": ..., "餐饮": ..., "景点": ..., "购物": ..., "文化": ...
-                  },
-                  "verification": {
-                    "dailyEqual": true/false,
-                    "totalEqual": true/false,
-                    "categoryEqual": true/false
-                  },
-                  "debug": "若进行重新计算或调整，请说明原因和变化（字符串）"
+            result = observation("plan.model.call", model).observeChecked(() -> generation().call(param));
+        } catch (Exception e) {
+            rateLimiter.onModelResult(System.nanoTime() - callStart, e);
+            throw e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getMessage(), e);
+        }
+        rateLimiter.onModelResult(System.nanoTime() - callStart, null);
+        recordUsage(result, model);
+
+        // 3️⃣ 提取模型输出
+        if (result == null || result.getOutput() == null ||
+                result.getOutput().getChoices() == null ||
+                result.getOutput().getChoices().isEmpty()) {
+            return TripPlan.error("模型未返回结果");
+        }
+
+        String text = result.getOutput().getChoices().get(0).getMessage().getContent();
+        log.debug("模型 {} 原始返回: {}", model, text);
+
+        // 4️⃣ 尝试解析为 JSON，并在本地重排每天的游览顺序、校正金额
+        TripPlan plan = observe("plan.parse", model, () -> parsePlan(text));
+        observe("plan.postprocess", model, () -> {
+            postProcess(plan);
+            return plan;
+        });
+        return plan;
+    }
+
+    /**
+     * 流式生成行程规划：模型输出按增量到达，每当 tripPlan 中某一天或 budgetAnalysis 等顶层对象
+     * 在语法上闭合时立即回调 listener，不必等待整个生成结束。
+     * 方法本身只负责发起请求，后续回调均发生在大模型隔离舱的线程上。
+     */
+    public void streamTripPlan(String rawText, TripPlanStreamListener listener) {
+        TripPlan cached = planCache.get(rawText, config.getModel());
+        if (cached != null) {
+            replay(cached, listener);
+            return;
+        }
+
+        // 流式结果边生成边推送，无法对冲，只选一个未熔断的模型
+        String model = modelRouter.select(rawText);
+        if (model == null) {
+            listener.onError("模型服务暂不可用，请稍后重试");
+            return;
+        }
+
+        // 隔离舱线程上由快照恢复请求上下文，这里仍显式指定父节点，与整段调用的链路结构一致
+        Observation observation = observation("plan.generate", model)
+                .lowCardinalityKeyValue("mode", "stream")
+                .parentObservation(observationRegistry.getCurrentObservation())
+                .start();
+        long start = System.nanoTime();
+        Timer firstToken = Timer.builder("plan.model.first_token")
+                .description("流式调用从发起到收到首个片段的耗时")
+                .tag("model", model)
+                .register(meterRegistry);
+
+        // 已推送的天，用于在 budgetAnalysis 闭合时本地汇总（回调均在同一隔离舱线程上顺序执行）
+        List<DayPlan> streamedDays = new ArrayList<>();
+        IncrementalPlanParser parser = new IncrementalPlanParser(new IncrementalPlanParser.Handler() {
+            @Override
+            public void onField(String name, String json) {
+                // 客户端已断开：不再解析与推送片段，完整文本仍在结束时统一解析并写入缓存
+                if (listener.isClosed()) {
+                    return;
                 }
-                
-                ========================================================
-                【处理逻辑（必须执行）】
-                1. 解析用户意图并确定 tripIntent：
-                   - 若用户未提供信息，使用默认值：
-                     - days: 默认 3 天
-                     - budget: 默认每天 500–1500 元（含住宿）
-                     - season: 默认当前季节
-                     - 住宿占每日预算的 30%–50%
-                2. 计算每个 day 的预算分配：
-                   - totalBudget ÷ days = 每日预算
-                   - 住宿费 = 每日预算 × 0.4（默认）
-                3. 为每一天规划 segments 时，顺序：
-                   - 先加入住宿项
-                   - 再按用户偏好分配交通、餐饮、景点、购物、文化等活动
-                4. 完成每日规划后，执行三次显式计算：
-                   - 计算每个 day 的 segments.cost 总和 → dailyTotalCost
-                   - 计算所有 dailyTotalCost 的总和 → estimatedTotal
-                   - 汇总所有 category 的 cost → budgetAnalysis.categories
-                5. 最后进行数值验证：
-                   - 计算结果写入 computedDailySums 与 computedCategorySums
-                   - 设置 verification.dailyEqual / totalEqual / categoryEqual
-                   - 若任意为 false，则重新调整活动费用并再次输出直到全为 true。
-                
-                ========================================================
-                【输出要求】
-                1. 所有数值必须保留两位小数（浮点数），不得含单位。
-                2. 经纬度必须为合法浮点数（latitude 在 -90~90，longitude 在 -180~180），小数点后不超过6位
-                3. 只输出一个完整 JSON 对象（不允许多余文本）。
-                4. 若进行了重新计算或调整，说明写入 "debug" 字段中（字符串）。
-                5. 输出示例：
-                   - 含完全匹配的数值
-                   - verification 全部为 true
-                
-                ========================================================
-                【示例（模型必须模仿此格式输出）】
-                {
-                  "userProfile": {"companions": "独自", "preferences": ["美食"]},
-                  "tripIntent": {"destination": "杭州", "days": 2, "budget": 1200, "transportMode": "火车", "season": "春季"},
-                  "tripPlan": [
-                    {
-                      "day": 1,
-                      "segments": [
-                        {"time": "上午", "activity": "到达并入住民宿", "location": "西湖附近民宿", "latitude": 30.241234, "longitude": 120.150678, "cost": 150.00, "category": "住宿"},
-                        {"time": "中午", "activity": "品尝杭帮菜午餐", "location": "楼外楼", "latitude": 30.241899, "longitude": 120.158822, "cost": 60.00, "category": "餐饮"},
-                        {"time": "下午", "activity": "游玩西湖景区", "location": "西湖", "latitude": 30.245678, "longitude": 120.165432, "cost": 30.00, "category": "景点"}
-                      ],
-                      "dailyTotalCost": 240.00
-                    }
-                  ],
-                  "budgetAnalysis": {
-                    "estimatedTotal": 240.00,
-                    "categories": {"交通": 0.00, "住宿": 150.00, "餐饮": 60.00, "景点": 30.00, "购物": 0.00, "文化": 0.00},
-                    "currency": "CNY"
-                  },
-                  "computedDailySums": {"day1": 240.00},
-                  "computedCategorySums": {"交通": 0.00, "住宿": 150.00, "餐饮": 60.00, "景点": 30.00, "购物": 0.00, "文化": 0.00},
-                  "verification": {"dailyEqual": true, "totalEqual": true, "categoryEqual": true},
-                  "debug": "所有金额和坐标计算一致"
+                Object value = readPart(name, json);
+                if (value instanceof BudgetAnalysis budgetAnalysis && reconcileEnabled()) {
+                    TripPlan partial = new TripPlan();
+                    partial.setTripPlan(streamedDays);
+                    partial.setBudgetAnalysis(budgetAnalysis);
+                    budgetReconciler.reconcile(partial);
+                }
+                if (value != null) {
+                    listener.onPart(name, value);
                 }
-                """;
-
-
-            String userPrompt = "用户输入：" + rawText;
-
-            // 2️⃣ 构造消息
-            Message systemMsg = Message.builder()
-                    .role(Role.SYSTEM.getValue())
-                    .content(systemPrompt)
-                    .build();
-
-            Message userMsg = Message.builder()
-                    .role(Role.USER.getValue())
-                    .content(userPrompt)
-                    .build();
-
-            // 3️⃣ 调用百炼大模型
-            Generation gen = new Generation();
-            GenerationParam param = GenerationParam.builder()
-                    .apiKey(config.getApiKey())
-                    .model("qwen-plus") // 或 "qwen-turbo" 等其他模型
-                    .messages(Arrays.asList(systemMsg, userMsg))
-                    .resultFormat(GenerationParam.ResultFormat.MESSAGE)
-                    .build();
-
-            GenerationResult result = gen.call(param);
-
-            // 4️⃣ 提取模型输出
-            if (result == null || result.getOutput() == null ||
-                    result.getOutput().getChoices() == null ||
-                    result.getOutput().getChoices().isEmpty()) {
-                return Map.of("error", "模型未返回结果");
             }
 
-            String text = result.getOutput().getChoices().get(0).getMessage().getContent();
-            System.out.println("模型原始返回: " + text);
+            @Override
+            public void onDay(String json) {
+                if (listener.isClosed() || !(readPart("day", json) instanceof DayPlan day)) {
+                    return;
+                }
+                itineraryOptimizer.optimizeDay(day);
+                if (reconcileEnabled()) {
+                    budgetReconciler.reconcileDay(day);
+                }
+                streamedDays.add(day);
+                listener.onPart("day", day);
+            }
+        });
 
-            // 5️⃣ 尝试解析为 JSON
+        // 与整段调用共用大模型隔离舱：流式调用在隔离舱线程上逐个消费片段，整个生成期间占用一个并发额度，
+        // 隔离舱已满时立即失败，超时后中断线程并取消上游订阅
+        outboundExecutors.get(OutboundExecutors.MODEL).submit(() -> {
+            GenerationParam param;
+            try (Observation.Scope ignored = observation.openScope()) {
+                param = observe("plan.prompt.build", model, () -> buildParam(rawText, model, true));
+            }
+            GenerationResult[] last = new GenerationResult[1];
             try {
-                return mapper.readValue(text, Map.class);
-            } catch (Exception parseErr) {
-                // 如果模型输出不完全是 JSON
-                return Map.of(
-                        "raw_text", text,
-                        "error", "模型输出无法解析为 JSON，请检查 prompt 设计"
-                );
+                generation().streamCall(param).blockingForEach(result -> {
+                    if (last[0] == null) {
+                        firstToken.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                    last[0] = result;
+                    if (result == null || result.getOutput() == null ||
+                            result.getOutput().getChoices() == null ||
+                            result.getOutput().getChoices().isEmpty()) {
+                        return;
+                    }
+                    String delta = result.getOutput().getChoices().get(0).getMessage().getContent();
+                    if (delta != null) {
+                        parser.feed(delta);
+                    }
+                });
+            } catch (Exception e) {
+                throw e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getMessage(), e);
             }
+            rateLimiter.onModelResult(System.nanoTime() - start, null);
+            // 用量为累计值，以最后一个事件为准
+            recordUsage(last[0], model);
+            TripPlan plan;
+            try (Observation.Scope ignored = observation.openScope()) {
+                plan = observe("plan.parse", model, () -> parsePlan(parser.getText()));
+                observe("plan.postprocess", model, () -> {
+                    postProcess(plan);
+                    return plan;
+                });
+            }
+            modelRouter.onResult(model, plan, null);
+            planCache.put(rawText, config.getModel(), plan);
+            observation.lowCardinalityKeyValue("outcome", plan.getError() == null ? "success" : "unparsable");
+            observation.stop();
+            listener.onComplete(plan);
+            return plan;
+        }).whenComplete((plan, e) -> {
+            if (e == null) {
+                return;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof BulkheadFullException)) {
+                rateLimiter.onModelResult(System.nanoTime() - start, cause);
+            }
+            modelRouter.onResult(model, null, cause);
+            observation.lowCardinalityKeyValue("outcome", cause instanceof BulkheadFullException ? "rejected" : "error");
+            observation.error(cause);
+            observation.stop();
+            listener.onError(cause instanceof BulkheadFullException ? cause.getMessage() : "调用模型失败: " + rootMessage(cause));
+        });
+    }
+
+    private Observation observation(String name, String model) {
+        return Observation.createNotStarted(name, observationRegistry)
+                .lowCardinalityKeyValue("model", model);
+    }
+
+    private <T> T observe(String name, String model, Supplier<T> stage) {
+        return observation(name, model).observe(stage);
+    }
+
+    /**
+     * 记录本次调用的输入 / 输出 token 数
+     */
+    private void recordUsage(GenerationResult result, String model) {
+        if (result == null || result.getUsage() == null) {
+            return;
+        }
+        recordTokens(model, "input", result.getUsage().getInputTokens());
+        recordTokens(model, "output", result.getUsage().getOutputTokens());
+    }
+
+    private void recordTokens(String model, String type, Integer tokens) {
+        if (tokens != null) {
+            DistributionSummary.builder("plan.model.tokens")
+                    .baseUnit("tokens")
+                    .tag("model", model)
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .record(tokens);
+        }
+    }
+
+    private String systemPrompt(String rawText) {
+        if (!budgetConfig.isSlimPrompt()) {
+            return TripPlanPrompts.FULL;
+        }
+        // 同目的地已有足够的行程时，用实际花费分布代替经验预算规则
+        return budgetConfig.isStatsHint() ? TripPlanPrompts.slim(destinationStats.budgetHint(rawText)) : TripPlanPrompts.SLIM;
+    }
+
+    private GenerationParam buildParam(String rawText, String model, boolean stream) {
+        String userPrompt = "用户输入：" + rawText;
+
+        Message systemMsg = Message.builder()
+                .role(Role.SYSTEM.getValue())
+                .content(systemPrompt(rawText))
+                .build();
+
+        Message userMsg = Message.builder()
+                .role(Role.USER.getValue())
+                .content(userPrompt)
+                .build();
+
+        return GenerationParam.builder()
+                .apiKey(config.getApiKey())
+                .model(model)
+                .messages(Arrays.asList(systemMsg, userMsg))
+                .resultFormat(GenerationParam.ResultFormat.MESSAGE)
+                // 流式模式下每个事件只携带新增片段，便于增量解析
+                .incrementalOutput(stream)
+                .build();
+    }
 
+    private TripPlan parsePlan(String text) {
+        try {
+            return TripPlanCodec.read(text);
+        } catch (Exception parseErr) {
+            // 如果模型输出不完全是 JSON
+            return TripPlan.error("模型输出无法解析为 JSON，请检查 prompt 设计", text);
+        }
+    }
+
+    /**
+     * 缓存命中时按流式接口的事件顺序一次性回放
+     */
+    private void replay(TripPlan plan, TripPlanStreamListener listener) {
+        replayPart(listener, "userProfile", plan.getUserProfile());
+        replayPart(listener, "tripIntent", plan.getTripIntent());
+        if (plan.getTripPlan() != null) {
+            plan.getTripPlan().forEach(day -> listener.onPart("day", day));
+        }
+        replayPart(listener, "budgetAnalysis", plan.getBudgetAnalysis());
+        replayPart(listener, "computedDailySums", plan.getComputedDailySums());
+        replayPart(listener, "computedCategorySums", plan.getComputedCategorySums());
+        replayPart(listener, "verification", plan.getVerification());
+        listener.onComplete(plan);
+    }
+
+    private static void replayPart(TripPlanStreamListener listener, String name, Object value) {
+        if (value != null) {
+            listener.onPart(name, value);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof TimeoutException ? "模型响应超时" : cause.getMessage();
+    }
+
+    /**
+     * 模型输出解析成功后的本地后处理
+     */
+    private void postProcess(TripPlan plan) {
+        if (plan.getError() != null) {
+            return;
+        }
+        itineraryOptimizer.optimize(plan);
+        if (reconcileEnabled()) {
+            budgetReconciler.reconcile(plan);
+        }
+    }
+
+    private boolean reconcileEnabled() {
+        return budgetConfig.isReconcile() || budgetConfig.isSlimPrompt();
+    }
+
+    private static Object readPart(String name, String json) {
+        try {
+            return TripPlanCodec.readPart(name, json);
         } catch (Exception e) {
-            e.printStackTrace();
-            return Map.of("error", "调用模型失败: " + e.getMessage());
+            // 片段解析失败时不中断流，最终结果仍会在 onComplete 中给出
+            return null;
         }
     }
 }
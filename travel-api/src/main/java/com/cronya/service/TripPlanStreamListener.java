@@ -0,0 +1,34 @@
+package com.cronya.service;
+
+import com.cronya.model.TripPlan;
+
+/**
+ * 流式行程规划的回调接口
+ */
+public interface TripPlanStreamListener {
+
+    /**
+     * 某个片段已完整生成
+     *
+     * @param name  片段名：day（tripPlan 中的某一天）或 userProfile / tripIntent / budgetAnalysis 等顶层字段
+     * @param value 片段解析后的类型化对象（DayPlan / UserProfile / TripIntent / BudgetAnalysis 等）
+     */
+    void onPart(String name, Object value);
+
+    /**
+     * 生成结束，给出完整解析结果（与同步接口返回结构一致）
+     */
+    void onComplete(TripPlan plan);
+
+    /**
+     * 调用失败
+     */
+    void onError(String message);
+
+    /**
+     * 接收方已关闭（客户端断开或超时），之后的逐段处理可以跳过
+     */
+    default boolean isClosed() {
+        return false;
+    }
+}
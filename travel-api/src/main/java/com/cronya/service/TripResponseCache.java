@@ -0,0 +1,202 @@
+package com.cronya.service;
+
+import com.cronya.config.TripCacheConfig;
+import com.cronya.domain.Trip;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 行程读接口的响应缓存：按行程 id 与用户列表缓存序列化后的 JSON 字节（以及 gzip 副本）和强 ETag，
+ * 命中时既不查库也不重新序列化，If-None-Match 匹配时直接返回 304。
+ * <p>
+ * 失效由 TripService / TripBulkService 发布的 TripChangedEvent 驱动（事务提交后），
+ * 并可异步通知 trip.cache.peers 中的其他节点。加载在 Caffeine 的 compute 中进行，
+ * 同一 key 的失效会等加载结束后再移除，并发写入不会把旧数据留在缓存里。
+ */
+@Component
+public class TripResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TripResponseCache.class);
+
+    /**
+     * @param gzip 预压缩的响应体，响应较小时为 null
+     */
+    public record CachedResponse(byte[] body, byte[] gzip, String etag) {
+
+        /**
+         * If-None-Match 按弱比较匹配（忽略 W/ 前缀），支持逗号分隔的多个值与 *
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final TripCacheConfig config;
+    private final TripService tripService;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedResponse> cache;
+    private final HttpClient peerClient;
+
+    public TripResponseCache(TripCacheConfig config, TripService tripService, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.config = config;
+        this.tripService = tripService;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxSize().toBytes())
+                .weigher((String key, CachedResponse value) ->
+                        value.body().length + (value.gzip() == null ? 0 : value.gzip().length))
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        this.peerClient = config.getPeers().isEmpty() ? null : HttpClient.newBuilder()
+                .connectTimeout(config.getPeerTimeout())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "trip.cache");
+    }
+
+    /**
+     * 单个行程，ETag 为版本号（与 PATCH 的 If-Match 一致）
+     */
+    public CachedResponse trip(Long id) {
+        return get("trip:" + id, () -> {
+            Trip trip = tripService.getTripById(id);
+            return response(serialize(trip), "\"" + trip.getVersion() + "\"");
+        });
+    }
+
+    /**
+     * 用户的全部行程，ETag 为响应体的 SHA-256 前缀
+     */
+    public CachedResponse userTrips(String userId) {
+        return get("user:" + userId, () -> {
+            byte[] body = serialize(tripService.getTripsByUserId(userId));
+            return response(body, "\"" + fingerprint(body) + "\"");
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTripChanged(TripChangedEvent event) {
+        invalidate(event.tripIds(), event.userIds());
+        broadcast(event);
+    }
+
+    /**
+     * 只失效本机（其他节点的通知也走这里，不再转发）
+     */
+    public void invalidate(Collection<Long> tripIds, Collection<String> userIds) {
+        tripIds.forEach(id -> cache.invalidate("trip:" + id));
+        userIds.forEach(userId -> cache.invalidate("user:" + userId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("weightBytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L));
+        result.put("hitRate", stats.hitRate());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    private CachedResponse get(String key, Supplier<CachedResponse> loader) {
+        if (!config.isEnabled()) {
+            return loader.get();
+        }
+        // 同一 key 并发未命中时只有一个线程查库
+        return cache.get(key, k -> loader.get());
+    }
+
+    private CachedResponse response(byte[] body, String etag) {
+        byte[] gzip = body.length >= config.getGzipMinSize().toBytes() ? gzip(body) : null;
+        return new CachedResponse(body, gzip, etag);
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("行程序列化失败", e);
+        }
+    }
+
+    private void broadcast(TripChangedEvent event) {
+        if (peerClient == null) {
+            return;
+        }
+        byte[] body = serialize(Map.of("tripIds", event.tripIds(), "userIds", event.userIds()));
+        for (String peer : config.getPeers()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(peer + "/api/admin/tripCache/invalidate"))
+                    .timeout(config.getPeerTimeout())
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            // 通知失败只会让对方多返回一会儿旧数据（最长 ttl），不影响本次写入
+            peerClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() >= 300) {
+                            log.warn("通知节点 {} 失效行程缓存失败: {}", peer,
+                                    error != null ? error.getMessage() : response.statusCode());
+                        }
+                    });
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String fingerprint(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.cronya.service;
+
+import com.cronya.config.TripSearchConfig;
+import com.cronya.domain.Trip;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cjk.CJKAnalyzer;
+import org.apache.lucene.document.*;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 行程搜索的嵌入式倒排索引（Lucene，本地磁盘），每个行程一篇文档：
+ * <ul>
+ *   <li>全文：行程名、目的地与各 segment 的 activity / location，CJK 二元分词</li>
+ *   <li>分面：category（多值）、destination、season</li>
+ *   <li>范围：estimatedTotal（总花费）、days</li>
+ *   <li>地理框：各 segment 的经纬度（多值）</li>
+ * </ul>
+ * 列表所需字段都存储在索引里，搜索不回查数据库。写入走近实时（NRT）刷新，commit 后才落盘。
+ */
+@Component
+public class TripSearchIndex implements DisposableBean {
+
+    public static final List<String> FACETS = List.of("category", "destination", "season");
+
+    private static final int MAX_LIMIT = 100;
+    private static final int FACET_TOP_N = 20;
+
+    private final Analyzer analyzer = new CJKAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private volatile FacetState facetState;
+
+    /**
+     * 查询条件，除 limit 外均可为空
+     *
+     * @param bbox minLat, minLng, maxLat, maxLng
+     */
+    public record SearchRequest(String text, String userId, String category, String destination, String season,
+                                Double minCost, Double maxCost, Integer minDays, Integer maxDays, double[] bbox,
+                                int limit) {
+    }
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+
+    public TripSearchIndex(TripSearchConfig config) throws IOException {
+        String dir = config.getIndexDir();
+        this.directory = dir == null || dir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(dir));
+        facetsConfig.setMultiValued("category", true);
+        IndexWriterConfig writerConfig = new IndexWriterConfig(analyzer);
+        writerConfig.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, writerConfig);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * 新增或覆盖一个行程（tripDataJson 为空或解析失败时只索引元数据）
+     */
+    public void index(Trip trip) throws IOException {
+        index(trip, TripIndexer.parse(trip.getTripDataJson()));
+    }
+
+    /**
+     * 同上，plan 已由调用方解析
+     */
+    public void index(Trip trip, TripPlan plan) throws IOException {
+        writer.updateDocument(new Term("id", String.valueOf(trip.getId())), toDocument(trip, plan));
+    }
+
+    public void delete(Long tripId) throws IOException {
+        writer.deleteDocuments(new Term("id", String.valueOf(tripId)));
+    }
+
+    public void deleteAll() throws IOException {
+        writer.deleteAll();
+    }
+
+    /**
+     * 提交到磁盘并刷新搜索视图
+     */
+    public void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    /**
+     * 只刷新搜索视图（近实时可见），不落盘
+     */
+    public void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    /**
+     * 有未提交的写入时才提交
+     */
+    public void commitIfChanged() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            commit();
+        }
+    }
+
+    public int count() throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    public Map<String, Object> search(SearchRequest request) throws IOException {
+        long start = System.nanoTime();
+        Query query = buildQuery(request);
+        int limit = Math.max(1, Math.min(request.limit(), MAX_LIMIT));
+        // 无关键词时按 id 倒序（即最新创建的在前）
+        Sort sort = request.text() == null || request.text().isBlank()
+                ? new Sort(new SortField("id_sort", SortField.Type.LONG, true)) : null;
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            FacetsCollectorManager.FacetsResult result = sort == null
+                    ? FacetsCollectorManager.search(searcher, query, limit, new FacetsCollectorManager())
+                    : FacetsCollectorManager.search(searcher, query, limit, sort, new FacetsCollectorManager());
+            TopDocs topDocs = result.topDocs();
+
+            List<Map<String, Object>> items = new ArrayList<>(topDocs.scoreDocs.length);
+            StoredFields storedFields = searcher.storedFields();
+            for (ScoreDoc hit : topDocs.scoreDocs) {
+                Document doc = storedFields.document(hit.doc);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("id", Long.parseLong(doc.get("id")));
+                item.put("tripName", doc.get("tripName"));
+                item.put("userId", doc.get("userId"));
+                item.put("destination", doc.get("destination"));
+                item.put("days", doc.getField("days") == null ? null : doc.getField("days").numericValue());
+                item.put("estimatedTotal", doc.getField("estimatedTotal") == null ? null
+                        : doc.getField("estimatedTotal").numericValue());
+                if (sort == null) {
+                    item.put("score", hit.score);
+                }
+                items.add(item);
+            }
+
+            Map<String, Object> page = new LinkedHashMap<>();
+            page.put("total", topDocs.totalHits.value);
+            page.put("items", items);
+            page.put("facets", facets(searcher.getIndexReader(), result));
+            page.put("tookMs", (System.nanoTime() - start) / 1_000_000.0);
+            return page;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Document toDocument(Trip trip, TripPlan plan) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField("id", String.valueOf(trip.getId()), Field.Store.YES));
+        doc.add(new NumericDocValuesField("id_sort", trip.getId()));
+        if (trip.getUserId() != null) {
+            doc.add(new StringField("userId", trip.getUserId(), Field.Store.YES));
+        }
+        if (trip.getTripName() != null) {
+            doc.add(new StoredField("tripName", trip.getTripName()));
+        }
+        if (trip.getDays() != null) {
+            doc.add(new IntPoint("days", trip.getDays()));
+            doc.add(new StoredField("days", trip.getDays()));
+        }
+        if (trip.getEstimatedTotal() != null) {
+            doc.add(new DoublePoint("estimatedTotal", trip.getEstimatedTotal()));
+            doc.add(new StoredField("estimatedTotal", trip.getEstimatedTotal()));
+        }
+
+        StringBuilder text = new StringBuilder();
+        append(text, trip.getTripName());
+        Set<String> categories = new LinkedHashSet<>();
+        String destination = trip.getDestination();
+        String season = null;
+
+        if (plan != null) {
+            if (plan.getTripIntent() != null) {
+                season = plan.getTripIntent().getSeason();
+            }
+            for (DayPlan day : plan.getTripPlan() == null ? List.<DayPlan>of() : plan.getTripPlan()) {
+                if (day == null || day.getSegments() == null) {
+                    continue;
+                }
+                for (Segment segment : day.getSegments()) {
+                    if (segment == null) {
+                        continue;
+                    }
+                    append(text, segment.getActivity());
+                    append(text, segment.getLocation());
+                    if (segment.getCategory() != null && !segment.getCategory().isBlank()) {
+                        categories.add(segment.getCategory().trim());
+                    }
+                    if (validCoordinate(segment.getLatitude(), segment.getLongitude())) {
+                        doc.add(new LatLonPoint("geo", segment.getLatitude(), segment.getLongitude()));
+                    }
+                }
+            }
+        }
+
+        if (destination != null && !destination.isBlank()) {
+            append(text, destination);
+            doc.add(new StringField("destination", destination, Field.Store.YES));
+            doc.add(new SortedSetDocValuesFacetField("destination", destination));
+        }
+        if (season != null && !season.isBlank()) {
+            doc.add(new StringField("season", season.trim(), Field.Store.NO));
+            doc.add(new SortedSetDocValuesFacetField("season", season.trim()));
+        }
+        for (String category : categories) {
+            doc.add(new StringField("category", category, Field.Store.NO));
+            doc.add(new SortedSetDocValuesFacetField("category", category));
+        }
+        doc.add(new TextField("text", text.toString(), Field.Store.NO));
+        return facetsConfig.build(doc);
+    }
+
+    private Query buildQuery(SearchRequest request) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        boolean scored = false;
+        if (request.text() != null && !request.text().isBlank()) {
+            Query text = new QueryBuilder(analyzer).createBooleanQuery("text", request.text(), BooleanClause.Occur.MUST);
+            if (text != null) {
+                builder.add(text, BooleanClause.Occur.MUST);
+                scored = true;
+            }
+        }
+        addTerm(builder, "userId", request.userId());
+        addTerm(builder, "category", request.category());
+        addTerm(builder, "destination", request.destination());
+        addTerm(builder, "season", request.season());
+        if (request.minCost() != null || request.maxCost() != null) {
+            builder.add(DoublePoint.newRangeQuery("estimatedTotal",
+                    request.minCost() == null ? Double.NEGATIVE_INFINITY : request.minCost(),
+                    request.maxCost() == null ? Double.POSITIVE_INFINITY : request.maxCost()), BooleanClause.Occur.FILTER);
+        }
+        if (request.minDays() != null || request.maxDays() != null) {
+            builder.add(IntPoint.newRangeQuery("days",
+                    request.minDays() == null ? Integer.MIN_VALUE : request.minDays(),
+                    request.maxDays() == null ? Integer.MAX_VALUE : request.maxDays()), BooleanClause.Occur.FILTER);
+        }
+        if (request.bbox() != null) {
+            double[] box = request.bbox();
+            if (box.length != 4 || box[0] > box[2] || !validCoordinate(box[0], box[1]) || !validCoordinate(box[2], box[3])) {
+                throw new IllegalArgumentException("bbox 格式应为 minLat,minLng,maxLat,maxLng");
+            }
+            builder.add(LatLonPoint.newBoxQuery("geo", box[0], box[2], box[1], box[3]), BooleanClause.Occur.FILTER);
+        }
+        if (!scored) {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        return builder.build();
+    }
+
+    private Map<String, Map<String, Number>> facets(IndexReader reader, FacetsCollectorManager.FacetsResult result)
+            throws IOException {
+        Map<String, Map<String, Number>> facets = new LinkedHashMap<>();
+        FACETS.forEach(dim -> facets.put(dim, new LinkedHashMap<>()));
+        SortedSetDocValuesReaderState state = facetState(reader);
+        if (state == null) {
+            return facets;
+        }
+        SortedSetDocValuesFacetCounts counts = new SortedSetDocValuesFacetCounts(state, result.facetsCollector());
+        for (String dim : FACETS) {
+            FacetResult top;
+            try {
+                top = counts.getTopChildren(FACET_TOP_N, dim);
+            } catch (IllegalArgumentException e) {
+                continue; // 该维度尚无任何取值
+            }
+            if (top != null) {
+                for (LabelAndValue label : top.labelValues) {
+                    facets.get(dim).put(label.label, label.value);
+                }
+            }
+        }
+        return facets;
+    }
+
+    /**
+     * 分面序号映射按 reader 缓存，索引刷新后才重建
+     */
+    private SortedSetDocValuesReaderState facetState(IndexReader reader) throws IOException {
+        FacetState cached = facetState;
+        if (cached != null && cached.reader() == reader) {
+            return cached.state();
+        }
+        SortedSetDocValuesReaderState state;
+        try {
+            state = new DefaultSortedSetDocValuesReaderState(reader, facetsConfig);
+        } catch (IllegalArgumentException e) {
+            state = null; // 空索引，没有分面字段
+        }
+        facetState = new FacetState(reader, state);
+        return state;
+    }
+
+    private static void addTerm(BooleanQuery.Builder builder, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            builder.add(new TermQuery(new Term(field, value.trim())), BooleanClause.Occur.FILTER);
+        }
+    }
+
+    private static void append(StringBuilder text, String value) {
+        if (value != null && !value.isBlank()) {
+            text.append(value).append('\n');
+        }
+    }
+
+    /**
+     * 经纬度 0 视为模型未给出
+     */
+    private static boolean validCoordinate(double lat, double lng) {
+        return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180 && !(lat == 0 && lng == 0);
+    }
+}
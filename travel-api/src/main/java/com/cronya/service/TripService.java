@@ -1,56 +1,316 @@
 package com.cronya.service;
 
 import com.cronya.domain.Trip;
+import com.cronya.domain.TripSummary;
+import com.cronya.model.DayPlan;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
 import com.cronya.repository.TripRepository;
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
 
 @Service
 @Transactional
 public class TripService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final ObjectMapper PATCH_MAPPER = new ObjectMapper();
+    private static final Set<String> SUMMARY_FIELDS = new LinkedHashSet<>(List.of(
+            "id", "tripName", "destination", "days", "estimatedTotal", "createdTime", "updatedTime"));
+
     @Autowired
     private TripRepository tripRepository;
 
+    @Autowired
+    private TripDocumentStore documentStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ReadConsistency readConsistency;
+
     // 1. 创建行程
     public Trip createTrip(Trip trip) {
+        trip.setVersion(null); // 版本号由服务端维护
+        fillSummary(trip);
         trip.setCreatedTime(LocalDateTime.now());
         trip.setUpdatedTime(LocalDateTime.now());
-        return tripRepository.save(trip);
+        Trip saved = tripRepository.save(trip);
+        documentStore.save(saved.getId(), trip.getTripDataJson());
+        saved.setTripDataJson(trip.getTripDataJson());
+        eventPublisher.publishEvent(TripChangedEvent.of(saved.getId(), saved.getUserId()));
+        return saved;
     }
 
-    // 2. 查询单个行程
+    // 2. 查询单个行程（只读事务，开启读写分离时走从库；刚写入过的行程走主库）
+    @Transactional(readOnly = true)
     public Trip getTripById(Long id) {
-        return tripRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("行程不存在"));
+        readConsistency.pinIfRecentlyWritten(id, null);
+        Trip trip = findTrip(id);
+        trip.setTripDataJson(documentStore.load(id));
+        return trip;
     }
 
-    // 3. 更新行程
+    // 3. 更新行程（tripDataJson 为空时只更新名称等元数据，不读写文档）
     public Trip updateTrip(Long id, Trip trip) {
-        Trip existingTrip = getTripById(id);
+        Trip existingTrip = findTrip(id);
+        String previousUserId = existingTrip.getUserId();
         existingTrip.setTripName(trip.getTripName());
         existingTrip.setUserId(trip.getUserId());
-        existingTrip.setTripDataJson(trip.getTripDataJson());
+        if (trip.getTripDataJson() != null) {
+            existingTrip.setTripDataJson(trip.getTripDataJson());
+            fillSummary(existingTrip);
+            documentStore.save(id, trip.getTripDataJson());
+        }
         existingTrip.setUpdatedTime(LocalDateTime.now());
+        eventPublisher.publishEvent(TripChangedEvent.of(id, previousUserId, trip.getUserId()));
         return tripRepository.save(existingTrip);
     }
 
     // 4. 删除行程
     public void deleteTrip(Long id) {
+        String userId = tripRepository.findById(id).map(Trip::getUserId).orElse(null);
+        documentStore.delete(id);
         tripRepository.deleteById(id);
+        eventPublisher.publishEvent(TripChangedEvent.of(id, userId));
     }
 
     // 5. 查询所有行程
+    @Transactional(readOnly = true)
     public List<Trip> getAllTrips() {
-        return tripRepository.findAll();
+        return withDocuments(tripRepository.findAll());
     }
 
+    @Transactional(readOnly = true)
     public List<Trip> getTripsByUserId(String userId) {
-        return tripRepository.findAllByUserId(userId);
+        readConsistency.pinIfRecentlyWritten(null, userId);
+        return withDocuments(tripRepository.findAllByUserId(userId));
+    }
+
+    // 6. 局部更新行程（JSON Patch）：只允许修改 /tripName 与 /tripData/...，
+    //    仅改名时不读写文档；版本号不匹配时抛出 OptimisticLockingFailureException
+    public Trip patchTrip(Long id, long expectedVersion, JsonNode patch) {
+        if (patch == null || !patch.isArray()) {
+            throw new IllegalArgumentException("JSON Patch 必须是操作数组");
+        }
+        Trip existingTrip = findTrip(id);
+        if (existingTrip.getVersion() == null || existingTrip.getVersion() != expectedVersion) {
+            throw new OptimisticLockingFailureException("行程已被修改，请刷新后重试");
+        }
+
+        boolean touchesDocument = false;
+        for (JsonNode operation : patch) {
+            for (String field : List.of("path", "from")) {
+                if (!operation.has(field)) {
+                    continue;
+                }
+                List<String> pointer = JsonPatch.parsePointer(operation.get(field).asText());
+                String root = pointer.isEmpty() ? "" : pointer.get(0);
+                if ("tripData".equals(root)) {
+                    touchesDocument = true;
+                } else if (!"tripName".equals(root) || pointer.size() > 1) {
+                    throw new IllegalArgumentException("不允许修改的路径: " + operation.get(field).asText());
+                }
+            }
+        }
+
+        // 补丁作用于 {tripName, tripData} 视图
+        ObjectNode view = PATCH_MAPPER.createObjectNode();
+        view.put("tripName", existingTrip.getTripName());
+        String json = null;
+        if (touchesDocument) {
+            String document = documentStore.load(id);
+            try {
+                view.set("tripData", document == null ? PATCH_MAPPER.createObjectNode() : PATCH_MAPPER.readTree(document));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("行程数据不是合法的 JSON");
+            }
+        }
+        JsonPatch.apply(view, patch);
+        if (view.has("tripName") && !view.get("tripName").isTextual() && !view.get("tripName").isNull()) {
+            throw new IllegalArgumentException("tripName 必须是字符串");
+        }
+        Trip updated = new Trip();
+        updated.setTripName(view.hasNonNull("tripName") ? view.get("tripName").asText() : null);
+        if (touchesDocument) {
+            if (!view.path("tripData").isObject()) {
+                throw new IllegalArgumentException("tripData 必须是对象");
+            }
+            json = view.get("tripData").toString();
+            updated.setTripDataJson(json);
+            fillSummary(updated);
+        } else {
+            updated.setDestination(existingTrip.getDestination());
+            updated.setDays(existingTrip.getDays());
+            updated.setBudget(existingTrip.getBudget());
+            updated.setEstimatedTotal(existingTrip.getEstimatedTotal());
+        }
+
+        // 单条带版本条件的 UPDATE；并发修改者之一会在这里得到 0 行
+        int rows = tripRepository.updateIfVersion(id, expectedVersion, updated.getTripName(), updated.getDestination(),
+                updated.getDays(), updated.getBudget(), updated.getEstimatedTotal(), LocalDateTime.now());
+        if (rows == 0) {
+            throw new OptimisticLockingFailureException("行程已被修改，请刷新后重试");
+        }
+        if (json != null) {
+            documentStore.save(id, json);
+        }
+        eventPublisher.publishEvent(TripChangedEvent.of(id, existingTrip.getUserId()));
+        return findTrip(id);
+    }
+
+    // 7. 分页查询用户行程（游标分页，默认只返回摘要字段）
+    @Transactional(readOnly = true)
+    public Map<String, Object> listTrips(String userId, String cursor, int limit, String fields) {
+        readConsistency.pinIfRecentlyWritten(null, userId);
+        Set<String> selected = parseFields(fields);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        // 多取一条用于判断是否还有下一页
+        List<TripSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = tripRepository.findSummaries(userId, Limit.of(size + 1));
+        } else {
+            Cursor position = decodeCursor(cursor);
+            rows = tripRepository.findSummariesBefore(userId, position.createdTime(), position.id(), Limit.of(size + 1));
+        }
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        // 只有显式请求 tripDataJson 时才按 id 加载文档，且最多一页
+        Map<Long, String> blobs = selected.contains("tripDataJson") && !rows.isEmpty()
+                ? documentStore.loadAll(rows.stream().map(TripSummary::getId).toList())
+                : Map.of();
+
+        List<Map<String, Object>> items = new ArrayList<>(rows.size());
+        for (TripSummary row : rows) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            for (String field : selected) {
+                item.put(field, switch (field) {
+                    case "id" -> row.getId();
+                    case "tripName" -> row.getTripName();
+                    case "destination" -> row.getDestination();
+                    case "days" -> row.getDays();
+                    case "estimatedTotal" -> row.getEstimatedTotal();
+                    case "createdTime" -> row.getCreatedTime();
+                    case "updatedTime" -> row.getUpdatedTime();
+                    default -> blobs.get(row.getId());
+                });
+            }
+            items.add(item);
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        TripSummary last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        page.put("nextCursor", hasMore ? encodeCursor(last.getCreatedTime(), last.getId()) : null);
+        return page;
+    }
+
+    private Trip findTrip(Long id) {
+        return tripRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("行程不存在"));
+    }
+
+    private List<Trip> withDocuments(List<Trip> trips) {
+        Map<Long, String> documents = documentStore.loadAll(trips.stream().map(Trip::getId).toList());
+        trips.forEach(trip -> trip.setTripDataJson(documents.get(trip.getId())));
+        return trips;
+    }
+
+    /**
+     * 从 tripDataJson 派生目的地、天数、预算与总花费，解析失败时保持为空
+     */
+    static void fillSummary(Trip trip) {
+        trip.setDestination(null);
+        trip.setDays(null);
+        trip.setBudget(null);
+        trip.setEstimatedTotal(null);
+        if (trip.getTripDataJson() == null || trip.getTripDataJson().isBlank()) {
+            return;
+        }
+        TripPlan plan;
+        try {
+            plan = TripPlanCodec.read(trip.getTripDataJson());
+        } catch (Exception e) {
+            return;
+        }
+        int days = plan.getTripPlan() == null ? 0 : plan.getTripPlan().size();
+        if (plan.getTripIntent() != null) {
+            String destination = plan.getTripIntent().getDestination();
+            if (destination != null && !destination.isBlank()) {
+                trip.setDestination(destination.length() > 100 ? destination.substring(0, 100) : destination.trim());
+            }
+            if (plan.getTripIntent().getDays() > 0) {
+                days = plan.getTripIntent().getDays();
+            }
+            if (plan.getTripIntent().getBudget() > 0) {
+                trip.setBudget(plan.getTripIntent().getBudget());
+            }
+        }
+        trip.setDays(days > 0 ? days : null);
+
+        double total = plan.getBudgetAnalysis() == null ? 0 : plan.getBudgetAnalysis().getEstimatedTotal();
+        if (total <= 0 && plan.getTripPlan() != null) {
+            for (DayPlan day : plan.getTripPlan()) {
+                total += day.getDailyTotalCost();
+            }
+        }
+        trip.setEstimatedTotal(total > 0 ? total : null);
+    }
+
+    private static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return SUMMARY_FIELDS;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!SUMMARY_FIELDS.contains(name) && !"tripDataJson".equals(name)) {
+                throw new IllegalArgumentException("不支持的字段: " + name);
+            }
+            selected.add(name);
+        }
+        return selected.isEmpty() ? SUMMARY_FIELDS : selected;
+    }
+
+    private record Cursor(LocalDateTime createdTime, Long id) {
+    }
+
+    /**
+     * 游标为 base64url("createdTime|id")，对前端不透明
+     */
+    static String encodeCursor(LocalDateTime createdTime, Long id) {
+        String raw = createdTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
     }
 
 }
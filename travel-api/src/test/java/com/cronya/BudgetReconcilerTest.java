@@ -0,0 +1,54 @@
+package com.cronya;
+
+import com.cronya.model.BudgetAnalysis;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import com.cronya.service.BudgetReconciler;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BudgetReconcilerTest {
+
+    private static Segment segment(String location, String category, double cost) {
+        Segment segment = new Segment();
+        segment.setLocation(location);
+        segment.setCategory(category);
+        segment.setCost(cost);
+        return segment;
+    }
+
+    private static DayPlan day(int no, Segment... segments) {
+        DayPlan day = new DayPlan();
+        day.setDay(no);
+        day.setSegments(new ArrayList<>(List.of(segments)));
+        day.setDailyTotalCost(1.0);
+        return day;
+    }
+
+    @Test
+    public void testRecomputesTotalsAndFillsLodging() {
+        TripPlan plan = new TripPlan();
+        plan.setTripPlan(new ArrayList<>(List.of(
+                day(1, segment("故宫", "景点", 60), segment("酒店", "住宿", 300.005)),
+                day(2, segment("烤鸭", "餐饮", 0.1), segment("地铁", "交通", 0.2)))));
+        BudgetAnalysis reported = new BudgetAnalysis();
+        reported.setEstimatedTotal(999);
+        plan.setBudgetAnalysis(reported);
+
+        new BudgetReconciler().reconcile(plan);
+
+        BudgetAnalysis budget = plan.getBudgetAnalysis();
+        // 第二天补上住宿：300.01 + 300.01 + 60 + 0.1 + 0.2
+        assertEquals(660.32, budget.getEstimatedTotal());
+        assertEquals(600.02, budget.getCategories().get("住宿"));
+        assertEquals("CNY", budget.getCurrency());
+        assertEquals(Map.of("day1", 360.01, "day2", 300.31), plan.getComputedDailySums());
+        assertTrue(plan.getVerification().isLodgingEveryDay());
+        assertTrue(plan.getDebug().contains("estimatedTotal 999.00→660.32"), plan.getDebug());
+    }
+}
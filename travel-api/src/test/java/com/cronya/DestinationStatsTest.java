@@ -0,0 +1,136 @@
+package com.cronya;
+
+import com.cronya.config.TripStatsConfig;
+import com.cronya.model.*;
+import com.cronya.repository.TripRepository;
+import com.cronya.service.DestinationStats;
+import com.cronya.service.TripDocumentStore;
+import com.cronya.service.TripPlanPrompts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class DestinationStatsTest {
+
+    private DestinationStats stats;
+
+    @BeforeEach
+    public void setUp() {
+        TripStatsConfig config = new TripStatsConfig();
+        config.setMinSamples(3);
+        stats = new DestinationStats(config, mock(TripRepository.class), mock(TripDocumentStore.class),
+                new SimpleMeterRegistry());
+    }
+
+    private static TripPlan plan(String destination, String season, String companions, int days, double lodging, double food) {
+        TripPlan plan = new TripPlan();
+        TripIntent intent = new TripIntent();
+        intent.setDestination(destination);
+        intent.setSeason(season);
+        plan.setTripIntent(intent);
+        UserProfile profile = new UserProfile();
+        profile.setCompanions(companions);
+        plan.setUserProfile(profile);
+        List<DayPlan> dayPlans = new ArrayList<>();
+        for (int i = 1; i <= days; i++) {
+            DayPlan day = new DayPlan();
+            day.setDay(i);
+            day.setSegments(new ArrayList<>(List.of(segment("住宿", lodging), segment("餐饮", food))));
+            dayPlans.add(day);
+        }
+        plan.setTripPlan(dayPlans);
+        return plan;
+    }
+
+    private static Segment segment(String category, double cost) {
+        Segment segment = new Segment();
+        segment.setCategory(category);
+        segment.setCost(cost);
+        return segment;
+    }
+
+    @Test
+    public void testUpdateReplacesAndRemoveWithdraws() {
+        for (long id = 1; id <= 3; id++) {
+            stats.update(id, plan("杭州", "春季", "情侣", 2, 300, 100));
+        }
+        DestinationStats.Summary summary = stats.lookup("杭州", "春季", "情侣").orElseThrow();
+        assertEquals(3, summary.samples());
+        assertEquals(400, summary.perDay().get("每天总花费").p50(), 40);
+        assertEquals(300, summary.perDay().get("住宿").mean(), 30);
+        assertEquals(0, summary.perDay().get("购物").mean());
+
+        // 修改后撤回旧贡献，样本数不变
+        stats.update(3L, plan("杭州", "春季", "情侣", 2, 1000, 200));
+        summary = stats.lookup("杭州", "春季", "情侣").orElseThrow();
+        assertEquals(3, summary.samples());
+        assertEquals(1200, summary.perDay().get("每天总花费").p75(), 120);
+
+        stats.remove(3L);
+        stats.remove(3L);
+        assertTrue(stats.lookup("杭州", "春季", "情侣").isEmpty());
+    }
+
+    @Test
+    public void testManyTripsAddedAndRemoved() {
+        Random random = new Random(42);
+        Set<Long> kept = new HashSet<>();
+        for (long id = 1; id <= 5000; id++) {
+            stats.update(id, plan("西安", null, null, 2, 100 + random.nextInt(400), 80));
+            kept.add(id);
+        }
+        for (long id = 1; id <= 5000; id++) {
+            if (random.nextBoolean()) {
+                stats.remove(id);
+                kept.remove(id);
+            }
+        }
+        // 重复删除与修改已删除的行程
+        stats.remove(1L);
+        stats.remove(9999L);
+        assertEquals(kept.size(), stats.lookup("西安", null, null).orElseThrow().samples());
+        for (Long id : kept) {
+            stats.remove(id);
+        }
+        assertTrue(stats.lookup("西安", null, null).isEmpty());
+    }
+
+    @Test
+    public void testFallsBackToCoarserGroups() {
+        stats.update(1L, plan("成都", "夏季", "朋友", 3, 200, 150));
+        stats.update(2L, plan("成都", "冬季", "朋友", 3, 200, 150));
+        stats.update(3L, plan("成都", "夏季", "家庭", 3, 200, 150));
+        stats.update(4L, plan("成都", "待定", null, 3, 200, 150));
+        // 缺少花费的行程不计入
+        stats.update(5L, plan("成都", "夏季", "朋友", 3, 0, 0));
+
+        DestinationStats.Summary summary = stats.lookup("成都", "夏季", "朋友").orElseThrow();
+        assertNull(summary.season());
+        assertNull(summary.companions());
+        assertEquals(4, summary.samples());
+        assertTrue(stats.lookup("重庆", null, null).isEmpty());
+    }
+
+    @Test
+    public void testBudgetHintReplacesDefaultRules() {
+        assertNull(stats.budgetHint("杭州 3 天"));
+        for (long id = 1; id <= 5; id++) {
+            stats.update(id, plan("杭州", "夏季", "家庭", 3, 400, 150));
+        }
+        String hint = stats.budgetHint("暑假带家人去杭州玩 3 天");
+        assertNotNull(hint);
+        assertTrue(hint.startsWith("杭州（夏季，家庭） 已有 5 份行程"), hint);
+        assertTrue(hint.contains("住宿"), hint);
+        assertFalse(hint.contains("购物"), hint);
+
+        String prompt = TripPlanPrompts.slim(hint);
+        assertFalse(prompt.contains("500–1500"));
+        assertTrue(prompt.endsWith("【参考数据】\n" + hint + "\n"));
+        assertSame(TripPlanPrompts.SLIM, TripPlanPrompts.slim(null));
+    }
+}
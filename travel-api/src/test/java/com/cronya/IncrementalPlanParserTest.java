@@ -0,0 +1,48 @@
+package com.cronya;
+
+import com.cronya.service.IncrementalPlanParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IncrementalPlanParserTest {
+
+    private static final String PLAN = "```json\n{\"userProfile\":{\"companions\":\"独自\",\"preferences\":[\"美食\"]},"
+            + "\"tripIntent\":{\"destination\":\"杭州\",\"days\":2},"
+            + "\"tripPlan\":[{\"day\":1,\"segments\":[{\"activity\":\"逛 {西湖}\",\"cost\":30.0}]},"
+            + "{\"day\":2,\"segments\":[]}],"
+            + "\"budgetAnalysis\":{\"estimatedTotal\":30.0},\"debug\":\"ok\"}\n```";
+
+    @Test
+    public void testEmitsPartsAsSoonAsTheyClose() {
+        List<String> events = new ArrayList<>();
+        IncrementalPlanParser parser = new IncrementalPlanParser(new IncrementalPlanParser.Handler() {
+            @Override
+            public void onField(String name, String json) {
+                events.add(name + "=" + json);
+            }
+
+            @Override
+            public void onDay(String json) {
+                events.add("day=" + json);
+            }
+        });
+
+        // 按 3 个字符一段喂入，模拟流式增量输出
+        for (int i = 0; i < PLAN.length(); i += 3) {
+            parser.feed(PLAN.substring(i, Math.min(PLAN.length(), i + 3)));
+        }
+
+        assertEquals(List.of(
+                "userProfile={\"companions\":\"独自\",\"preferences\":[\"美食\"]}",
+                "tripIntent={\"destination\":\"杭州\",\"days\":2}",
+                "day={\"day\":1,\"segments\":[{\"activity\":\"逛 {西湖}\",\"cost\":30.0}]}",
+                "day={\"day\":2,\"segments\":[]}",
+                "budgetAnalysis={\"estimatedTotal\":30.0}"
+        ), events);
+        assertEquals(PLAN.substring(PLAN.indexOf('{'), PLAN.lastIndexOf('}') + 1), parser.getText());
+    }
+}
@@ -0,0 +1,91 @@
+package com.cronya;
+
+import com.cronya.config.PlanOptimizerConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.service.ItineraryOptimizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ItineraryOptimizerTest {
+
+    private static Segment segment(String time, String location, double lat, double lng, String category) {
+        Segment segment = new Segment();
+        segment.setTime(time);
+        segment.setLocation(location);
+        segment.setLatitude(lat);
+        segment.setLongitude(lng);
+        segment.setCategory(category);
+        return segment;
+    }
+
+    @Test
+    public void testReordersZigzagDayKeepingLodgingAndTimes() {
+        // 酒店 -> 东 -> 西 -> 东 -> 西 的折返路线
+        List<Segment> segments = new ArrayList<>(List.of(
+                segment("上午", "酒店", 39.90, 116.40, "住宿"),
+                segment("上午", "东1", 39.90, 116.45, "景点"),
+                segment("下午", "西1", 39.90, 116.30, "景点"),
+                segment("下午", "东2", 39.90, 116.50, "购物"),
+                segment("晚上", "西2", 39.90, 116.25, "文化")));
+        DayPlan day = new DayPlan();
+        day.setDay(1);
+        day.setSegments(segments);
+
+        new ItineraryOptimizer(new PlanOptimizerConfig()).optimizeDay(day);
+
+        List<String> locations = segments.stream().map(Segment::getLocation).toList();
+        List<String> times = segments.stream().map(Segment::getTime).toList();
+        assertEquals("酒店", locations.get(0));
+        assertEquals(List.of("上午", "上午", "下午", "下午", "晚上"), times);
+        // 先东后西（或先西后东）地一趟走完
+        assertTrue(locations.equals(List.of("酒店", "东1", "东2", "西1", "西2"))
+                || locations.equals(List.of("酒店", "西1", "西2", "东1", "东2")), locations.toString());
+    }
+
+    @Test
+    public void testRandomDaysNeverGetLongerAndKeepAnchors() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int n = 3 + random.nextInt(40);
+            double[] lat = new double[n];
+            double[] lng = new double[n];
+            boolean[] anchored = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                lat[i] = 30 + random.nextDouble();
+                lng[i] = 120 + random.nextDouble();
+                anchored[i] = random.nextInt(5) == 0;
+            }
+
+            int[] order = ItineraryOptimizer.order(lat, lng, anchored, 50);
+
+            assertEquals(n, Arrays.stream(order).distinct().count());
+            for (int i = 0; i < n; i++) {
+                if (anchored[i]) {
+                    assertEquals(i, order[i]);
+                }
+            }
+            assertTrue(length(lat, lng, order) <= length(lat, lng, range(n)) + 1e-9);
+        }
+    }
+
+    private static double length(double[] lat, double[] lng, int[] order) {
+        double total = 0;
+        for (int i = 1; i < order.length; i++) {
+            total += ItineraryOptimizer.haversineKm(lat[order[i - 1]], lng[order[i - 1]], lat[order[i]], lng[order[i]]);
+        }
+        return total;
+    }
+
+    private static int[] range(int n) {
+        int[] range = new int[n];
+        for (int i = 0; i < n; i++) {
+            range[i] = i;
+        }
+        return range;
+    }
+}
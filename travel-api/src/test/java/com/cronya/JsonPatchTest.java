@@ -0,0 +1,41 @@
+package com.cronya;
+
+import com.cronya.service.JsonPatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonPatchTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private JsonNode json(String text) throws Exception {
+        return mapper.readTree(text.replace('\'', '"'));
+    }
+
+    @Test
+    public void testAppliesOperationsInOrder() throws Exception {
+        JsonNode doc = json("{'a':{'b':[1,2,3]},'x~y':1,'c/d':2}");
+        JsonPatch.apply(doc, json("[" +
+                "{'op':'test','path':'/a/b/1','value':2}," +
+                "{'op':'replace','path':'/a/b/0','value':10}," +
+                "{'op':'add','path':'/a/b/-','value':4}," +
+                "{'op':'move','from':'/a/b/2','path':'/a/b/0'}," +
+                "{'op':'copy','from':'/a/b','path':'/copy'}," +
+                "{'op':'remove','path':'/x~0y'}," +
+                "{'op':'replace','path':'/c~1d','value':'e'}]"));
+        assertEquals(json("{'a':{'b':[3,10,2,4]},'c/d':'e','copy':[3,10,2,4]}"), doc);
+    }
+
+    @Test
+    public void testRejectsInvalidOperations() throws Exception {
+        JsonNode doc = json("{'a':[1]}");
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.apply(doc, json("[{'op':'test','path':'/a/0','value':2}]")));
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.apply(doc, json("[{'op':'remove','path':'/a/01'}]")));
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.apply(doc, json("[{'op':'replace','path':'/missing','value':1}]")));
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.apply(doc, json("[{'op':'move','from':'/a','path':'/a/0'}]")));
+    }
+}
@@ -0,0 +1,122 @@
+package com.cronya;
+
+import com.cronya.config.AlibabaModelConfig;
+import com.cronya.config.ModelRoutingConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.TripPlan;
+import com.cronya.outbound.CircuitBreaker;
+import com.cronya.service.ModelRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模型路由：按规模选模型、对冲、重试与熔断（模型调用以可手动完成的 future 代替）
+ */
+public class ModelRouterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void picksModelByTripLength() {
+        ModelRouter router = router(config());
+
+        assertEquals(List.of("qwen-turbo", "qwen-plus"), router.candidates("周末去杭州玩2天，预算3000"));
+        assertEquals(List.of("qwen-plus", "qwen-turbo"), router.candidates("去日本玩5天，预算1万"));
+        assertEquals(List.of("qwen-plus", "qwen-turbo"), router.candidates("想去成都吃火锅"));
+    }
+
+    @Test
+    public void hedgesSlowPrimaryAndTakesFirstUsablePlan() {
+        ModelRoutingConfig config = config();
+        config.setHedgeDelay(Duration.ofMillis(50));
+        Map<String, CompletableFuture<TripPlan>> calls = new ConcurrentHashMap<>();
+
+        CompletableFuture<TripPlan> result = router(config).route("去日本玩5天",
+                model -> calls.computeIfAbsent(model, m -> new CompletableFuture<>()));
+        assertEquals(List.of("qwen-plus"), List.copyOf(calls.keySet()));
+
+        TripPlan hedged = usablePlan();
+        CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS).execute(() -> {
+            // 等对冲请求发出后再由备用模型先返回
+            while (!calls.containsKey("qwen-turbo")) {
+                Thread.onSpinWait();
+            }
+            calls.get("qwen-turbo").complete(hedged);
+        });
+        assertSame(hedged, result.orTimeout(5, TimeUnit.SECONDS).join());
+
+        // 仍在执行的首选模型调用被取消
+        assertTrue(calls.get("qwen-plus").isCancelled());
+        assertSame(hedged, result.join());
+    }
+
+    @Test
+    public void retriesUnusableResultOnNextModelAndOpensBreaker() {
+        ModelRoutingConfig config = config();
+        config.setHedgeDelay(Duration.ZERO);
+        config.getBreaker().setMinimumCalls(2);
+        config.getBreaker().setWindowSize(2);
+        ModelRouter router = router(config);
+
+        for (int i = 0; i < 2; i++) {
+            TripPlan plan = router.route("去日本玩5天", model -> CompletableFuture.completedFuture(
+                    "qwen-plus".equals(model) ? TripPlan.error("模型输出无法解析为 JSON") : usablePlan())).join();
+            assertNull(plan.getError());
+        }
+
+        // qwen-plus 连续失败后熔断，直接使用备用模型
+        assertEquals("qwen-turbo", router.select("去日本玩5天"));
+        router.onResult("qwen-turbo", usablePlan(), null);
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertEquals("qwen-plus", router.select("去日本玩5天")); // 半开，放行试探请求
+    }
+
+    @Test
+    public void breakerClosesAfterSuccessfulProbes() {
+        ModelRoutingConfig.BreakerConfig config = new ModelRoutingConfig.BreakerConfig();
+        config.setMinimumCalls(2);
+        config.setHalfOpenCalls(1);
+        CircuitBreaker breaker = new CircuitBreaker(config, now::get);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(config.getOpenDuration().toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire()); // 试探名额已用完
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private ModelRouter router(ModelRoutingConfig config) {
+        return new ModelRouter(config, new AlibabaModelConfig(), new SimpleMeterRegistry(), now::get);
+    }
+
+    private static ModelRoutingConfig config() {
+        ModelRoutingConfig config = new ModelRoutingConfig();
+        config.setFallbackModels(List.of("qwen-turbo"));
+        return config;
+    }
+
+    private static TripPlan usablePlan() {
+        DayPlan day = new DayPlan();
+        day.setDay(1);
+        day.setSegments(List.of());
+        TripPlan plan = new TripPlan();
+        plan.setTripPlan(List.of(day));
+        return plan;
+    }
+}
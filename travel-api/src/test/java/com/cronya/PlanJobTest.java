@@ -0,0 +1,123 @@
+package com.cronya;
+
+import com.cronya.config.DataSourceRoutingConfig;
+import com.cronya.config.PlanJobConfig;
+import com.cronya.domain.PlanJob;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.repository.PlanJobRepository;
+import com.cronya.repository.TripRepository;
+import com.cronya.service.PlanJobService;
+import com.cronya.service.ReadConsistency;
+import com.cronya.service.TripDocumentStore;
+import com.cronya.service.TripPlanService;
+import com.cronya.service.TripService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * 规划任务的幂等提交、租约领取、重试与接管（H2 内存库，模型调用用 mock 代替）
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({PlanJobService.class, PlanJobConfig.class, TripService.class, TripDocumentStore.class,
+        ReadConsistency.class, DataSourceRoutingConfig.class})
+public class PlanJobTest {
+
+    private static final String RAW = "去杭州玩2天，预算3000";
+
+    @Autowired
+    private PlanJobService jobService;
+
+    @Autowired
+    private PlanJobRepository jobRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private PlanJobConfig config;
+
+    @MockitoBean
+    private TripPlanService tripPlanService;
+
+    @Test
+    public void duplicateClientKeyReturnsSameJob() {
+        PlanJobService.Submitted first = jobService.submit(RAW, "k-1", "u1", false, null);
+        PlanJobService.Submitted second = jobService.submit(RAW, " k-1 ", "u1", false, null);
+
+        assertTrue(first.created());
+        assertFalse(second.created());
+        assertEquals(first.job().getId(), second.job().getId());
+    }
+
+    @Test
+    public void saveAsTripRequiresUserId() {
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit(RAW, null, " ", true, null));
+    }
+
+    @Test
+    public void claimedJobRunsOnceAndSavesTrip() throws Exception {
+        when(tripPlanService.generateTripPlan(RAW)).thenReturn(TripPlanCodec.read(
+                "{\"tripIntent\":{\"destination\":\"杭州\",\"days\":2,\"budget\":3000},\"tripPlan\":[{\"day\":1,\"segments\":[]}]}"));
+        Long id = jobService.submit(RAW, null, "u1", true, null).job().getId();
+
+        assertEquals(List.of(id), jobService.claim("node-a", 4));
+        assertEquals(List.of(), jobService.claim("node-b", 4)); // 租约未到期，其他节点领取不到
+        jobService.execute(id, "node-a");
+
+        PlanJob job = jobRepository.findById(id).orElseThrow();
+        assertEquals(PlanJob.SUCCEEDED, job.getStatus());
+        assertNull(job.getLeaseOwner());
+        assertEquals("杭州行程", tripRepository.findById(job.getTripId()).orElseThrow().getTripName());
+    }
+
+    @Test
+    public void failedJobIsRetriedWithBackoffThenFails() {
+        when(tripPlanService.generateTripPlan(RAW)).thenReturn(TripPlan.error("调用模型失败: timeout"));
+        config.setMaxAttempts(2);
+        Long id = jobService.submit(RAW, null, "u1", false, null).job().getId();
+
+        jobService.claim("node-a", 1);
+        jobService.execute(id, "node-a");
+        PlanJob job = jobRepository.findById(id).orElseThrow();
+        assertEquals(PlanJob.PENDING, job.getStatus());
+        assertTrue(job.getNextRunTime().isAfter(LocalDateTime.now()));
+        assertEquals(List.of(), jobService.claim("node-a", 1)); // 退避期间不可领取
+
+        job.setNextRunTime(LocalDateTime.now().minusSeconds(1));
+        jobRepository.saveAndFlush(job);
+        assertEquals(List.of(id), jobService.claim("node-a", 1));
+        jobService.execute(id, "node-a");
+        job = jobRepository.findById(id).orElseThrow();
+        assertEquals(PlanJob.FAILED, job.getStatus());
+        assertEquals("调用模型失败: timeout", job.getError());
+    }
+
+    @Test
+    public void expiredLeaseIsTakenOverAndStaleResultDiscarded() {
+        Long id = jobService.submit(RAW, null, "u1", false, null).job().getId();
+        // node-a 领取后宕机，租约过期
+        jobRepository.claim(id, "node-a", LocalDateTime.now(), LocalDateTime.now().minusSeconds(1));
+
+        assertEquals(List.of(id), jobService.claim("node-b", 1));
+        assertEquals(0, jobRepository.finish(id, "node-a", PlanJob.SUCCEEDED, "{}", null, LocalDateTime.now()));
+
+        // node-b 正常停机，归还任务且不计入重试次数
+        assertEquals(1, jobService.releaseAll("node-b"));
+        PlanJob job = jobRepository.findById(id).orElseThrow();
+        assertEquals(PlanJob.PENDING, job.getStatus());
+        assertEquals(1, job.getAttempts());
+    }
+}
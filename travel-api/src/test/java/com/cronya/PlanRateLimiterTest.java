@@ -0,0 +1,113 @@
+package com.cronya;
+
+import com.alibaba.dashscope.common.Status;
+import com.alibaba.dashscope.exception.ApiException;
+import com.cronya.config.PlanRateLimitConfig;
+import com.cronya.outbound.PlanRateLimiter;
+import com.cronya.outbound.TokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用可控时钟验证令牌桶与 AIMD 自适应
+ */
+public class PlanRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    public void bucketAllowsBurstThenQueuesThenRejects() {
+        TokenBucket bucket = new TokenBucket(1, 2, now::get);
+
+        assertEquals(new TokenBucket.Reservation(true, 0), bucket.reserve(0));
+        assertEquals(new TokenBucket.Reservation(true, 0), bucket.reserve(0));
+
+        // 突发用完：下一个令牌 1 秒后可用，maxWait 为 0 时拒绝并给出重试间隔
+        assertEquals(new TokenBucket.Reservation(false, SECOND), bucket.reserve(0));
+        // 允许排队时预约未来的令牌
+        assertEquals(new TokenBucket.Reservation(true, SECOND), bucket.reserve(2 * SECOND));
+        assertEquals(new TokenBucket.Reservation(true, 2 * SECOND), bucket.reserve(2 * SECOND));
+        assertFalse(bucket.reserve(2 * SECOND).granted());
+
+        now.addAndGet(10 * SECOND);
+        assertTrue(bucket.reserve(0).granted());
+    }
+
+    @Test
+    public void userQuotaIsRejectedWithoutConsumingGlobal() {
+        PlanRateLimitConfig config = config();
+        config.setUserBurst(1);
+        PlanRateLimiter limiter = new PlanRateLimiter(config, new SimpleMeterRegistry(), now::get);
+
+        assertTrue(limiter.acquire("user:a").allowed());
+        PlanRateLimiter.Admission rejected = limiter.acquire("user:a");
+        assertFalse(rejected.allowed());
+        assertEquals("user", rejected.scope());
+        assertEquals(10, rejected.retryAfterSeconds()); // userRate 0.1 → 10 秒一个令牌
+
+        // 其他用户不受影响
+        assertTrue(limiter.acquire("user:b").allowed());
+    }
+
+    @Test
+    public void throttlingDecreasesRateOncePerWindow() {
+        PlanRateLimiter limiter = new PlanRateLimiter(config(), new SimpleMeterRegistry(), now::get);
+        ApiException throttled = new ApiException(Status.builder().statusCode(429).code("Throttling.RateQuota").build());
+
+        limiter.onModelResult(SECOND, throttled);
+        limiter.onModelResult(SECOND, throttled);
+        assertEquals(1.4, limiter.getRate(), 1e-6);
+
+        now.addAndGet(11 * SECOND);
+        limiter.onModelResult(SECOND, new RuntimeException("wrapped", throttled));
+        assertEquals(0.98, limiter.getRate(), 1e-6);
+
+        // 非限流错误不触发下调
+        now.addAndGet(11 * SECOND);
+        limiter.onModelResult(SECOND, new RuntimeException("timeout"));
+        assertEquals(0.98, limiter.getRate(), 1e-6);
+    }
+
+    @Test
+    public void rateIncreasesWhenLimitedAndUpstreamHealthy() {
+        PlanRateLimitConfig config = config();
+        config.setBurst(1);
+        config.setMaxWait(Duration.ZERO);
+        PlanRateLimiter limiter = new PlanRateLimiter(config, new SimpleMeterRegistry(), now::get);
+
+        assertTrue(limiter.acquire("user:a").allowed());
+        PlanRateLimiter.Admission rejected = limiter.acquire("user:b");
+        assertFalse(rejected.allowed());
+        assertEquals("global", rejected.scope());
+        limiter.onModelResult(5 * SECOND, null);
+
+        now.addAndGet(11 * SECOND);
+        limiter.acquire("user:c"); // 窗口结束后的首个请求触发调整
+        assertEquals(2.2, limiter.getRate(), 1e-6);
+    }
+
+    @Test
+    public void slowUpstreamDecreasesRate() {
+        PlanRateLimiter limiter = new PlanRateLimiter(config(), new SimpleMeterRegistry(), now::get);
+
+        limiter.onModelResult(60 * SECOND, null);
+        now.addAndGet(11 * SECOND);
+        limiter.acquire("user:a");
+        assertEquals(1.4, limiter.getRate(), 1e-6);
+    }
+
+    private static PlanRateLimitConfig config() {
+        PlanRateLimitConfig config = new PlanRateLimitConfig();
+        config.setRate(2);
+        config.setWindow(Duration.ofSeconds(10));
+        return config;
+    }
+}
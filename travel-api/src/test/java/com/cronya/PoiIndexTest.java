@@ -0,0 +1,66 @@
+package com.cronya;
+
+import com.cronya.config.PoiIndexConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import com.cronya.service.PoiIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PoiIndexTest {
+
+    private static TripPlan plan(Object... segments) {
+        List<Segment> list = new ArrayList<>();
+        for (int i = 0; i < segments.length; i += 4) {
+            Segment segment = new Segment();
+            segment.setLocation((String) segments[i]);
+            segment.setCategory((String) segments[i + 1]);
+            segment.setLatitude((Double) segments[i + 2]);
+            segment.setLongitude((Double) segments[i + 3]);
+            list.add(segment);
+        }
+        DayPlan day = new DayPlan();
+        day.setSegments(list);
+        TripPlan plan = new TripPlan();
+        plan.setTripPlan(List.of(day));
+        return plan;
+    }
+
+    private static List<String> names(List<PoiIndex.Poi> pois) {
+        return pois.stream().map(PoiIndex.Poi::name).toList();
+    }
+
+    @Test
+    public void testNearbyAndNearestAcrossBaseAndOverlay() {
+        PoiIndexConfig config = new PoiIndexConfig();
+        config.setMergeThreshold(3);
+        PoiIndex index = new PoiIndex(config);
+
+        PoiIndex.Builder builder = index.newBuilder();
+        builder.add(1, plan("故宫", "景点", 39.9163, 116.3972, "全聚德", "餐饮", 39.8990, 116.4035));
+        builder.add(2, plan("故宫", "景点", 39.9165, 116.3970, "西湖", "景点", 30.2431, 120.1500));
+        index.replace(builder);
+
+        // 天安门附近 2 公里
+        List<PoiIndex.Poi> nearby = index.nearby(39.9087, 116.3975, 2000, null, 10);
+        assertEquals(List.of("故宫", "全聚德"), names(nearby));
+        assertEquals(2, nearby.get(0).trips());
+        assertEquals(List.of("全聚德"), names(index.nearby(39.9087, 116.3975, 2000, "餐饮", 10)));
+
+        // 增量层：行程 1 删除，行程 3 新增
+        index.remove(1);
+        index.update(3, plan("天坛", "景点", 39.8822, 116.4066));
+        assertEquals(List.of("故宫", "天坛"), names(index.nearby(39.9087, 116.3975, 5000, null, 10)));
+        assertEquals(1, index.nearby(39.9087, 116.3975, 5000, null, 10).get(0).trips());
+
+        // 超过阈值触发合并，结果不变
+        index.update(4, plan("颐和园", "景点", 39.9999, 116.2755, "圆明园", "景点", 40.0080, 116.2980));
+        assertEquals(0, index.stats().get("overlayPoints"));
+        assertEquals(List.of("天坛", "故宫", "圆明园"), names(index.nearest(39.88, 116.40, 3, "景点")));
+    }
+}
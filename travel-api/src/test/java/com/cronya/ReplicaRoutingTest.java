@@ -0,0 +1,110 @@
+package com.cronya;
+
+import com.cronya.config.DataSourceRoutingConfig;
+import com.cronya.repository.ReplicaRoutingDataSource;
+import com.cronya.service.ReadConsistency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 读写分离路由：主库与从库用两个独立的 H2 内存库代替，各自的 node 表记录自己的名字，
+ * 从库的 repl_status 表模拟 SHOW SLAVE STATUS 的复制延迟
+ */
+public class ReplicaRoutingTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private DataSourceRoutingConfig config;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    public void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        primary = h2("primary-" + suffix, "primary");
+        replica = h2("replica-" + suffix, "replica");
+        new JdbcTemplate(replica).execute("create table repl_status (Seconds_Behind_Master int)");
+        new JdbcTemplate(replica).update("insert into repl_status values (0)");
+
+        config = new DataSourceRoutingConfig();
+        config.setEnabled(true);
+        config.setMaxLag(Duration.ofSeconds(3));
+        config.setLagCheckInterval(Duration.ofHours(1)); // 测试中手动调用 checkReplicas
+        config.setLagQuery("select Seconds_Behind_Master from repl_status");
+        routing = new ReplicaRoutingDataSource(primary, Map.of("replica-0", replica), config, new SimpleMeterRegistry());
+        routing.checkReplicas();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        routing.close();
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToReplica() {
+        assertEquals("primary", node(false, null));
+        assertEquals("replica", node(true, null));
+        // 事务外的连接（如 Hibernate 启动建表）始终取自主库
+        assertEquals("primary", new JdbcTemplate(routing).queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    public void recentWriterReadsFromPrimary() {
+        ReadConsistency readConsistency = new ReadConsistency(config);
+        readConsistency.markWritten(List.of(42L), List.of("u1"));
+
+        assertEquals("primary", node(true, () -> readConsistency.pinIfRecentlyWritten(null, "u1")));
+        assertEquals("primary", node(true, () -> readConsistency.pinIfRecentlyWritten(42L, null)));
+        assertEquals("replica", node(true, () -> readConsistency.pinIfRecentlyWritten(7L, "u2")));
+        assertEquals("replica", node(true, null)); // 固定只在当前事务内有效
+    }
+
+    @Test
+    public void laggingOrBrokenReplicaFallsBackToPrimary() {
+        new JdbcTemplate(replica).update("update repl_status set Seconds_Behind_Master = 10");
+        routing.checkReplicas();
+        assertEquals(10.0, routing.replicaLag().get("replica-0"));
+        assertEquals("primary", node(true, null));
+
+        new JdbcTemplate(replica).update("update repl_status set Seconds_Behind_Master = null"); // 复制中断
+        routing.checkReplicas();
+        assertEquals(-1.0, routing.replicaLag().get("replica-0"));
+        assertEquals("primary", node(true, null));
+
+        new JdbcTemplate(replica).update("update repl_status set Seconds_Behind_Master = 1");
+        routing.checkReplicas();
+        assertEquals("replica", node(true, null));
+    }
+
+    private String node(boolean readOnly, Runnable beforeQuery) {
+        TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        template.setReadOnly(readOnly);
+        return template.execute(status -> {
+            if (beforeQuery != null) {
+                beforeQuery.run();
+            }
+            return new JdbcTemplate(routing).queryForObject("select name from node", String.class);
+        });
+    }
+
+    private static DataSource h2(String database, String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(20))");
+        jdbc.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,116 @@
+package com.cronya;
+
+import com.alibaba.fastjson.JSONObject;
+import com.cronya.config.BaiduHttpClientConfig;
+import com.cronya.config.BaiduMapConfig;
+import com.cronya.config.OutboundConfig;
+import com.cronya.config.RouteCacheConfig;
+import com.cronya.outbound.OutboundExecutors;
+import com.cronya.repository.RouteCacheRepository;
+import com.cronya.service.BaiduMapService;
+import com.cronya.service.RouteCache;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 离线测试：用本地桩服务代替百度地图接口
+ */
+public class RouteCacheTest {
+
+    private static final String ROUTE = "{\"status\":0,\"message\":\"ok\",\"result\":{\"routes\":[{\"distance\":1200,\"duration\":300,\"steps\":[]}]}}";
+
+    private HttpServer stub;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private CloseableHttpClient httpClient;
+    private OutboundExecutors outboundExecutors;
+    private BaiduMapService baiduMapService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/directionlite/v1/driving", exchange -> {
+            upstreamCalls.incrementAndGet();
+            byte[] body = ROUTE.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        stub.start();
+
+        BaiduMapConfig mapConfig = new BaiduMapConfig();
+        mapConfig.getServer().setAk("test-ak");
+        mapConfig.getDriving().setUrl("http://127.0.0.1:" + stub.getAddress().getPort() + "/directionlite/v1/driving");
+
+        RouteCacheConfig cacheConfig = new RouteCacheConfig();
+        RouteCacheRepository repository = Mockito.mock(RouteCacheRepository.class);
+        Mockito.when(repository.findById(Mockito.anyString())).thenReturn(Optional.empty());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BaiduHttpClientConfig clientConfig = new BaiduHttpClientConfig();
+        httpClient = clientConfig.baiduHttpClient(clientConfig.baiduConnectionManager(mapConfig, registry), mapConfig,
+                ObservationRegistry.NOOP);
+        outboundExecutors = new OutboundExecutors(new OutboundConfig(), registry);
+        baiduMapService = new BaiduMapService(mapConfig, outboundExecutors, httpClient,
+                new RouteCache(cacheConfig, repository, registry), ObservationRegistry.NOOP);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        outboundExecutors.shutdown();
+        httpClient.close();
+        stub.stop(0);
+    }
+
+    @Test
+    public void testJitteredCoordinatesHitCache() {
+        String first = baiduMapService.getDrivingRouteAsync(
+                Map.of("origin", "39.908823,116.397480", "destination", "39.896499,116.321317")).join();
+        // 小于网格（1e-4°）的抖动仍视为同一段路线
+        String second = baiduMapService.getDrivingRouteAsync(
+                Map.of("origin", "39.908831,116.397471", "destination", "39.896502,116.321320")).join();
+
+        assertEquals(ROUTE, first);
+        assertEquals(ROUTE, second);
+        assertEquals(1, upstreamCalls.get());
+
+        baiduMapService.getDrivingRouteAsync(
+                Map.of("origin", "39.918823,116.397480", "destination", "39.896499,116.321317")).join();
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    public void testWaypointsAreFetchedPerLegAndStitched() {
+        String response = baiduMapService.getDrivingRouteAsync(Map.of(
+                "origin", "39.908823,116.397480",
+                "waypoints", "39.916527,116.390884|39.904162,116.380347",
+                "destination", "39.896499,116.321317")).join();
+
+        JSONObject route = JSONObject.parseObject(response).getJSONObject("result").getJSONArray("routes").getJSONObject(0);
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(3600, route.getLongValue("distance"));
+        assertEquals(900, route.getLongValue("duration"));
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        stub.removeContext("/directionlite/v1/driving");
+        String response = baiduMapService.getDrivingRoute(
+                Map.of("origin", "39.908823,116.397480", "destination", "39.896499,116.321317"));
+        assertTrue(response.contains("\"status\":-1"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.cronya;
+
+import com.cronya.service.TripDocumentCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TripDocumentCodecTest {
+
+    @Test
+    public void testRoundTripAndDictionaryBeatsPlainDeflate() throws Exception {
+        String json;
+        try (InputStream in = getClass().getResourceAsStream("/trip-sample.json")) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+
+        byte[] encoded = TripDocumentCodec.encode(raw);
+
+        assertEquals(json, TripDocumentCodec.decode(encoded, raw.length));
+        // 预估大小偏小时也能正确解码
+        assertEquals(json, TripDocumentCodec.decode(encoded, 16));
+        int plain = plainDeflate(raw);
+        assertTrue(encoded.length < plain, encoded.length + " vs " + plain);
+        assertTrue(encoded.length * 3 < raw.length, encoded.length + " vs " + raw.length);
+    }
+
+    private static int plainDeflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.size();
+    }
+}
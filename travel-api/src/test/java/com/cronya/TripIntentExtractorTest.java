@@ -0,0 +1,40 @@
+package com.cronya;
+
+import com.cronya.service.TripIntentExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TripIntentExtractorTest {
+
+    @Test
+    public void testExtract() {
+        TripIntentExtractor.Intent intent = TripIntentExtractor.extract(
+                "我想去北京玩三天，预算一万元，喜欢美食和动漫，带孩子。", Set.of("北京", "南京"));
+        assertEquals(new TripIntentExtractor.Intent("北京", 3, 10_000, "带孩子", List.of("美食", "动漫")), intent);
+
+        assertEquals(15_000, TripIntentExtractor.extract("北京 5天 预算1.5万", Set.of("北京")).budget());
+        assertNull(TripIntentExtractor.extract("去上海玩三天，预算一万", Set.of("北京")));
+    }
+
+    @Test
+    public void testOverlongNumbersAreUnrecognized() {
+        assertNull(TripIntentExtractor.extract("我想去北京玩99999999999999999999天，预算一万", Set.of("北京")));
+        assertNull(TripIntentExtractor.extract("我想去北京玩1000天，预算一万", Set.of("北京")));
+        assertEquals(0, TripIntentExtractor.parseNumber("99999999999999999999"));
+        assertEquals(0, TripIntentExtractor.extractDays("我想去北京玩99999999999999999999天"));
+        assertEquals(5, TripIntentExtractor.extractDays("去日本玩5天"));
+    }
+
+    @Test
+    public void testParseNumber() {
+        assertEquals(3, TripIntentExtractor.parseNumber("三"));
+        assertEquals(12, TripIntentExtractor.parseNumber("十二"));
+        assertEquals(15_000, TripIntentExtractor.parseNumber("一万五千"));
+        assertEquals(2_500, TripIntentExtractor.parseNumber("两千五百"));
+    }
+}
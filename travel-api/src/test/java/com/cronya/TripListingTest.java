@@ -0,0 +1,179 @@
+package com.cronya;
+
+import com.cronya.domain.Trip;
+import com.cronya.domain.TripSummary;
+import com.cronya.repository.TripDocumentRepository;
+import com.cronya.repository.TripRepository;
+import com.cronya.config.DataSourceRoutingConfig;
+import com.cronya.config.TripBulkConfig;
+import com.cronya.service.ReadConsistency;
+import com.cronya.service.TripBulkService;
+import com.cronya.service.TripDocumentStore;
+import com.cronya.service.TripService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 行程存储与游标分页查询（H2 内存库）
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({TripService.class, TripDocumentStore.class, TripBulkService.class, TripBulkConfig.class,
+        ReadConsistency.class, DataSourceRoutingConfig.class})
+public class TripListingTest {
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private TripDocumentRepository documentRepository;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private TripBulkService bulkService;
+
+    @Test
+    public void testDocumentIsStoredCompressedAndRenameKeepsIt() {
+        String json = "{\"tripIntent\":{\"destination\":\"杭州\",\"days\":2,\"budget\":1200},\"tripPlan\":[]}";
+        Trip trip = new Trip();
+        trip.setUserId("u1");
+        trip.setTripName("杭州");
+        trip.setTripDataJson(json);
+        Long id = tripService.createTrip(trip).getId();
+
+        Trip loaded = tripService.getTripById(id);
+        assertEquals(json, loaded.getTripDataJson());
+        assertEquals("杭州", loaded.getDestination());
+        assertEquals(1200.0, loaded.getBudget());
+
+        // 只改名：文档与派生列保持不变
+        LocalDateTime documentTime = documentRepository.findById(id).orElseThrow().getUpdatedTime();
+        Trip rename = new Trip();
+        rename.setUserId("u1");
+        rename.setTripName("杭州两日游");
+        tripService.updateTrip(id, rename);
+
+        Trip renamed = tripService.getTripById(id);
+        assertEquals("杭州两日游", renamed.getTripName());
+        assertEquals(json, renamed.getTripDataJson());
+        assertEquals("杭州", renamed.getDestination());
+        assertEquals(documentTime, documentRepository.findById(id).orElseThrow().getUpdatedTime());
+    }
+
+    @Test
+    public void testPatchUpdatesDocumentAndRejectsStaleVersion() throws Exception {
+        Trip trip = new Trip();
+        trip.setUserId("u1");
+        trip.setTripName("北京");
+        trip.setTripDataJson("{\"tripIntent\":{\"destination\":\"北京\",\"days\":1},"
+                + "\"tripPlan\":[{\"day\":1,\"segments\":[{\"cost\":50},{\"cost\":30}],\"dailyTotalCost\":80}],"
+                + "\"budgetAnalysis\":{\"estimatedTotal\":80}}");
+        Trip created = tripService.createTrip(trip);
+        long version = created.getVersion();
+
+        ObjectMapper mapper = new ObjectMapper();
+        Trip patched = tripService.patchTrip(created.getId(), version, mapper.readTree(
+                "[{\"op\":\"replace\",\"path\":\"/tripData/budgetAnalysis/estimatedTotal\",\"value\":100},"
+                        + "{\"op\":\"move\",\"from\":\"/tripData/tripPlan/0/segments/1\",\"path\":\"/tripData/tripPlan/0/segments/0\"},"
+                        + "{\"op\":\"replace\",\"path\":\"/tripName\",\"value\":\"北京一日游\"}]"));
+
+        assertEquals(version + 1, patched.getVersion());
+        assertEquals("北京一日游", patched.getTripName());
+        assertEquals(100.0, patched.getEstimatedTotal());
+        JsonNode stored = mapper.readTree(tripService.getTripById(created.getId()).getTripDataJson());
+        assertEquals(30, stored.at("/tripPlan/0/segments/0/cost").asInt());
+
+        // 使用旧版本号再次修改
+        assertThrows(OptimisticLockingFailureException.class, () -> tripService.patchTrip(created.getId(), version,
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/tripName\",\"value\":\"x\"}]")));
+        assertThrows(IllegalArgumentException.class, () -> tripService.patchTrip(created.getId(), version + 1,
+                mapper.readTree("[{\"op\":\"replace\",\"path\":\"/userId\",\"value\":\"u2\"}]")));
+    }
+
+    @Test
+    public void testKeysetPagesCoverEveryTripOnceInOrder() {
+        LocalDateTime base = LocalDateTime.of(2025, 11, 12, 15, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Trip trip = new Trip();
+            trip.setUserId("u1");
+            trip.setTripName("行程" + i);
+            // 两两共用同一创建时间，验证 id 作为次级排序键
+            trip.setCreatedTime(base.plusMinutes(i / 2));
+            expected.add(0, tripRepository.save(trip).getId());
+        }
+        Trip other = new Trip();
+        other.setUserId("u2");
+        other.setCreatedTime(base);
+        tripRepository.save(other);
+
+        List<Long> seen = new ArrayList<>();
+        List<TripSummary> page = tripRepository.findSummaries("u1", Limit.of(3));
+        while (!page.isEmpty()) {
+            page.forEach(summary -> seen.add(summary.getId()));
+            TripSummary last = page.get(page.size() - 1);
+            page = tripRepository.findSummariesBefore("u1", last.getCreatedTime(), last.getId(), Limit.of(3));
+        }
+
+        // 同一分钟内 id 大的在前
+        List<Long> sorted = new ArrayList<>(expected);
+        for (int i = 0; i + 1 < sorted.size(); i += 2) {
+            if (sorted.get(i) < sorted.get(i + 1)) {
+                sorted.set(i, sorted.set(i + 1, sorted.get(i)));
+            }
+        }
+        assertEquals(sorted, seen);
+    }
+
+    @Test
+    public void testBulkImportThenExportRoundTrips() throws Exception {
+        String json = "{\"tripIntent\":{\"destination\":\"成都\",\"days\":2},\"budgetAnalysis\":{\"estimatedTotal\":900}}";
+        StringBuilder ndjson = new StringBuilder();
+        ObjectMapper mapper = new ObjectMapper();
+        for (int i = 0; i < 1203; i++) {
+            ndjson.append("{\"userId\":\"bulk\",\"tripName\":\"行程").append(i)
+                    .append("\",\"createdTime\":\"2025-11-12T15:00:00\",\"tripDataJson\":")
+                    .append(mapper.writeValueAsString(json)).append("}\n");
+        }
+        ndjson.append("\n{\"tripName\":\"缺少用户\"}\nnot json\n");
+
+        Map<String, Object> result = bulkService.importTrips(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1203L, result.get("imported"));
+        assertEquals(2L, result.get("failed"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1203, bulkService.exportTrips("bulk", out));
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1203, lines.length);
+        JsonNode first = mapper.readTree(lines[0]);
+        JsonNode last = mapper.readTree(lines[lines.length - 1]);
+        assertEquals("行程0", first.get("tripName").asText());
+        assertEquals("行程1202", last.get("tripName").asText());
+        assertEquals(json, last.get("tripDataJson").asText());
+        assertEquals("成都", last.get("destination").asText());
+        assertEquals(900.0, last.get("estimatedTotal").asDouble());
+        assertEquals(json, tripService.getTripById(last.get("id").asLong()).getTripDataJson());
+    }
+}
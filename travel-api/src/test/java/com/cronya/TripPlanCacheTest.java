@@ -0,0 +1,38 @@
+package com.cronya;
+
+import com.cronya.config.PlanCacheConfig;
+import com.cronya.model.TripIntent;
+import com.cronya.model.TripPlan;
+import com.cronya.model.UserProfile;
+import com.cronya.service.TripPlanCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TripPlanCacheTest {
+
+    @Test
+    public void testRewordedRequestHitsIntentTier() {
+        TripPlanCache cache = new TripPlanCache(new PlanCacheConfig(), new SimpleMeterRegistry());
+
+        // 模型按默认值补全了同行人与偏好，原文中并未提及
+        TripPlan plan = new TripPlan();
+        TripIntent intent = new TripIntent();
+        intent.setDestination("杭州");
+        intent.setDays(3);
+        intent.setBudget(3000);
+        plan.setTripIntent(intent);
+        UserProfile profile = new UserProfile();
+        profile.setCompanions("独自");
+        profile.setPreferences(List.of("美食"));
+        plan.setUserProfile(profile);
+        cache.put("杭州3天预算3000", "qwen-plus", plan);
+
+        assertSame(plan, cache.get("预算 3000 元，想去杭州玩 3 天", "qwen-plus"));
+        assertNull(cache.get("预算 3000 元，想和朋友去杭州玩 3 天", "qwen-plus"));
+    }
+}
@@ -0,0 +1,53 @@
+package com.cronya;
+
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TripPlanCodecTest {
+
+    private static final String PLAN = "```json\n{\"userProfile\":{\"companions\":\"独自\",\"preferences\":[\"美食\"],\"age\":30},"
+            + "\"tripIntent\":{\"destination\":\"杭州\",\"days\":\"2\",\"budget\":1200},"
+            + "\"tripPlan\":[{\"day\":1,\"segments\":[{\"time\":\"上午\",\"location\":\"西湖\",\"latitude\":30.245678,"
+            + "\"longitude\":120.165432,\"cost\":\"30.00\",\"category\":\"景点\",\"tips\":{\"a\":[1,2]}}],\"dailyTotalCost\":30.0}],"
+            + "\"budgetAnalysis\":{\"estimatedTotal\":30.0,\"categories\":{\"景点\":30.0},\"currency\":\"CNY\"},"
+            + "\"notes\":[\"忽略\"],\"debug\":\"ok\"}\n```";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadsLenientlyAndWritesSameShapeAsMapTree() throws Exception {
+        TripPlan plan = TripPlanCodec.read(PLAN);
+
+        assertEquals(2, plan.getTripIntent().getDays());
+        Segment segment = plan.getTripPlan().get(0).getSegments().get(0);
+        assertEquals(30.0, segment.getCost());
+        assertEquals(120.165432, segment.getLongitude());
+
+        // 与通用 Map 树的结果逐字段一致（未知字段除外）
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> typed = mapper.readValue(TripPlanCodec.toJson(plan), Map.class);
+        Map<String, Object> tree = mapper.readValue(mapper.writeValueAsString(plan), Map.class);
+        assertEquals(typed, tree);
+        Map<String, Object> day = ((List<Map<String, Object>>) typed.get("tripPlan")).get(0);
+        assertEquals(30.0, ((List<Map<String, Object>>) day.get("segments")).get(0).get("cost"));
+        assertEquals("ok", typed.get("debug"));
+        assertNull(typed.get("notes"));
+        assertNull(typed.get("error"));
+    }
+
+    @Test
+    public void testReadsStreamedDay() throws Exception {
+        Object part = TripPlanCodec.readPart("day", "{\"day\":3,\"segments\":[{\"cost\":12.5}]}");
+        assertEquals(12.5, ((DayPlan) part).getSegments().get(0).getCost());
+        assertNull(TripPlanCodec.readPart("unknown", "{}"));
+    }
+}
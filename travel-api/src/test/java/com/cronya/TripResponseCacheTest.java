@@ -0,0 +1,81 @@
+package com.cronya;
+
+import com.cronya.config.TripCacheConfig;
+import com.cronya.domain.Trip;
+import com.cronya.service.TripChangedEvent;
+import com.cronya.service.TripResponseCache;
+import com.cronya.service.TripService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 行程响应缓存：读穿透、ETag、预压缩与写入失效
+ */
+public class TripResponseCacheTest {
+
+    private final TripService tripService = Mockito.mock(TripService.class);
+    private final TripResponseCache cache = new TripResponseCache(new TripCacheConfig(), tripService,
+            new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+
+    @Test
+    public void servesRepeatedReadsFromCacheUntilTripChanges() throws IOException {
+        when(tripService.getTripById(1L)).thenReturn(trip(1L, 3L, "u1"));
+
+        TripResponseCache.CachedResponse first = cache.trip(1L);
+        TripResponseCache.CachedResponse second = cache.trip(1L);
+        assertSame(first, second);
+        verify(tripService, times(1)).getTripById(1L);
+
+        assertEquals("\"3\"", first.etag());
+        assertTrue(first.matches("W/\"3\", \"9\""));
+        assertFalse(first.matches("\"2\""));
+        assertNotNull(first.gzip());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.body(), in.readAllBytes());
+        }
+
+        when(tripService.getTripById(1L)).thenReturn(trip(1L, 4L, "u1"));
+        cache.onTripChanged(TripChangedEvent.of(1L, "u1"));
+        assertEquals("\"4\"", cache.trip(1L).etag());
+        verify(tripService, times(2)).getTripById(1L);
+    }
+
+    @Test
+    public void userListIsInvalidatedByAnyTripOfThatUser() {
+        when(tripService.getTripsByUserId("u1")).thenReturn(List.of(trip(1L, 0L, "u1")));
+        String etag = cache.userTrips("u1").etag();
+        cache.userTrips("u1");
+        verify(tripService, times(1)).getTripsByUserId("u1");
+
+        // 其他用户的变化不影响
+        cache.onTripChanged(TripChangedEvent.of(2L, "u2"));
+        cache.userTrips("u1");
+        verify(tripService, times(1)).getTripsByUserId("u1");
+
+        when(tripService.getTripsByUserId("u1")).thenReturn(List.of(trip(1L, 0L, "u1"), trip(5L, 0L, "u1")));
+        cache.onTripChanged(TripChangedEvent.of(5L, "u1"));
+        assertNotEquals(etag, cache.userTrips("u1").etag());
+        verify(tripService, times(2)).getTripsByUserId("u1");
+    }
+
+    private static Trip trip(Long id, Long version, String userId) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setVersion(version);
+        trip.setUserId(userId);
+        trip.setTripName("杭州两日游");
+        trip.setTripDataJson("{\"tripPlan\":[" + "{\"day\":1,\"segments\":[]},".repeat(40) + "{\"day\":41}]}");
+        return trip;
+    }
+}
@@ -0,0 +1,72 @@
+package com.cronya;
+
+import com.cronya.config.TripSearchConfig;
+import com.cronya.domain.Trip;
+import com.cronya.service.TripSearchIndex;
+import com.cronya.service.TripSearchIndex.SearchRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TripSearchIndexTest {
+
+    private static Trip trip(long id, String destination, int days, double total, String season, String segments) {
+        Trip trip = new Trip();
+        trip.setId(id);
+        trip.setUserId("u1");
+        trip.setTripName(destination + days + "日游");
+        trip.setDestination(destination);
+        trip.setDays(days);
+        trip.setEstimatedTotal(total);
+        trip.setTripDataJson("{\"tripIntent\":{\"destination\":\"" + destination + "\",\"season\":\"" + season + "\"},"
+                + "\"tripPlan\":[{\"day\":1,\"segments\":[" + segments + "]}]}");
+        return trip;
+    }
+
+    private static SearchRequest request(String text, String category, Double minCost, Double maxCost, double[] bbox) {
+        return new SearchRequest(text, null, category, null, null, minCost, maxCost, null, null, bbox, 20);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> ids(Map<String, Object> result) {
+        return ((List<Map<String, Object>>) result.get("items")).stream().map(item -> item.get("id")).toList();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTextFacetRangeAndGeoQueries() throws Exception {
+        TripSearchConfig config = new TripSearchConfig();
+        config.setIndexDir("");
+        TripSearchIndex index = new TripSearchIndex(config);
+        index.index(trip(1, "北京", 3, 1500, "秋季",
+                "{\"activity\":\"参观故宫博物院\",\"location\":\"故宫\",\"category\":\"景点\",\"latitude\":39.916,\"longitude\":116.397},"
+                        + "{\"activity\":\"吃烤鸭\",\"location\":\"全聚德\",\"category\":\"餐饮\",\"latitude\":39.899,\"longitude\":116.403}"));
+        index.index(trip(2, "杭州", 2, 900, "春季",
+                "{\"activity\":\"游览西湖\",\"location\":\"西湖\",\"category\":\"景点\",\"latitude\":30.243,\"longitude\":120.150}"));
+        index.index(trip(3, "北京", 1, 400, "冬季",
+                "{\"activity\":\"逛南锣鼓巷\",\"location\":\"南锣鼓巷\",\"category\":\"购物\",\"latitude\":39.937,\"longitude\":116.403}"));
+        index.commit();
+
+        assertEquals(List.of(1L), ids(index.search(request("故宫", null, null, null, null))));
+        assertEquals(List.of(2L), ids(index.search(request("西湖", "景点", null, null, null))));
+        assertEquals(List.of(3L, 2L), ids(index.search(request(null, null, null, 1000.0, null))));
+        // 北京市区范围
+        assertEquals(List.of(3L, 1L), ids(index.search(request(null, null, null, null, new double[]{39.8, 116.2, 40.0, 116.6}))));
+
+        Map<String, Object> all = index.search(request(null, null, null, null, null));
+        Map<String, Map<String, Number>> facets = (Map<String, Map<String, Number>>) all.get("facets");
+        assertEquals(2, facets.get("destination").get("北京").intValue());
+        assertEquals(2, facets.get("category").get("景点").intValue());
+
+        // 覆盖与删除
+        index.delete(3L);
+        index.index(trip(2, "杭州", 2, 900, "春季", "{\"activity\":\"灵隐寺\",\"category\":\"文化\"}"));
+        index.commit();
+        assertEquals(List.of(2L), ids(index.search(request("灵隐寺", null, null, null, null))));
+        assertEquals(List.of(2L, 1L), ids(index.search(request(null, null, null, null, null))));
+        index.destroy();
+    }
+}
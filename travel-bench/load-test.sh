@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# 本地压测：启动 DashScope / 百度地图替身 → 启动后端（外部接口指向替身）→ 运行压测驱动 → 清理。
+# 数据库沿用 DB_URL / DB_USERNAME / DB_PASSWORD；其余参数原样传给 LoadDriver，例如：
+#   mvn -q package -DskipTests && travel-bench/load-test.sh --rate=30 --duration=5m --mix=plan:1,route:6,trips:3
+# 替身的延迟 / 错误率通过 STUB_ARGS 传入，例如 STUB_ARGS="--model.latency.p50=5s --map.error-rate=0.02"
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BENCH_JAR="$ROOT/travel-bench/target/benchmarks.jar"
+APP_JAR="$ROOT/travel-api/target/travel-api-0.0.1-SNAPSHOT-exec.jar"
+APP_PORT="${APP_PORT:-8080}"
+MODEL_PORT="${MODEL_PORT:-18081}"
+MAP_PORT="${MAP_PORT:-18082}"
+
+for jar in "$BENCH_JAR" "$APP_JAR"; do
+  [ -f "$jar" ] || { echo "缺少 $jar，请先执行 mvn package -DskipTests" >&2; exit 1; }
+done
+
+pids=()
+cleanup() { for pid in "${pids[@]}"; do kill "$pid" 2>/dev/null || true; done; }
+trap cleanup EXIT
+
+java -cp "$BENCH_JAR" com.cronya.load.StubServers --model.port="$MODEL_PORT" --map.port="$MAP_PORT" ${STUB_ARGS:-} &
+pids+=($!)
+
+DASHSCOPE_ENDPOINT="http://localhost:$MODEL_PORT/api/v1" \
+BAIDU_DRIVING_URL="http://localhost:$MAP_PORT/directionlite/v1/driving" \
+ALIBABA_APIKEY="${ALIBABA_APIKEY:-stub}" BMAP_SERVER_AK="${BMAP_SERVER_AK:-stub}" \
+  java ${APP_JAVA_OPTS:-} -Dserver.port="$APP_PORT" -jar "$APP_JAR" > "$ROOT/travel-bench/target/load-app.log" 2>&1 &
+pids+=($!)
+
+echo "等待后端启动（日志：travel-bench/target/load-app.log）..."
+for _ in $(seq 1 90); do
+  curl -sf "http://localhost:$APP_PORT/actuator/health" > /dev/null && break
+  sleep 2
+done
+curl -sf "http://localhost:$APP_PORT/actuator/health" > /dev/null || { echo "后端未能启动" >&2; exit 1; }
+
+java -cp "$BENCH_JAR" com.cronya.load.LoadDriver --target="http://localhost:$APP_PORT" \
+  --report="$ROOT/travel-bench/target/load-report.json" "$@"
@@ -0,0 +1,145 @@
+package com.cronya.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * benchmarks.jar 的入口：运行基准（始终带 GC 剖析，输出 gc.alloc.rate.norm 等每次操作的分配字节数），
+ * 结果以 JMH JSON 格式写入 --result 指定的文件；给出 --baseline 时与之前保存的结果文件逐项对比，
+ * 耗时或分配超过阈值即视为回归，进程以退出码 1 结束（便于在 CI 中拦截）。
+ * <pre>
+ * java -jar travel-bench/target/benchmarks.jar [基准名正则...] [--quick]
+ *      [--result target/jmh-result.json] [--baseline 旧结果.json] [--threshold 10]
+ * </pre>
+ * 保存基线即保留一次运行的结果文件；同一台机器、同一 JDK 上的结果才有可比性。
+ */
+public final class BenchRunner {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+    /** 分配量的绝对容差（字节/次），避免极小的分配波动被判为回归 */
+    private static final double ALLOC_SLACK = 64;
+
+    private BenchRunner() {
+    }
+
+    record Score(String mode, double score, double error, String unit, double alloc) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // 1. 解析参数
+        List<String> includes = new ArrayList<>();
+        String result = "target/jmh-result.json";
+        String baseline = null;
+        double threshold = 10;
+        boolean quick = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--result" -> result = args[++i];
+                case "--baseline" -> baseline = args[++i];
+                case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                case "--quick" -> quick = true;
+                default -> includes.add(args[i]);
+            }
+        }
+
+        // 2. 运行基准
+        File resultFile = new File(result);
+        if (resultFile.getParentFile() != null) {
+            resultFile.getParentFile().mkdirs();
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getPath());
+        if (includes.isEmpty()) {
+            options.include(BenchRunner.class.getPackageName() + "\\..*Benchmark");
+        }
+        includes.forEach(options::include);
+        if (quick) {
+            // 冒烟模式：只验证基准能跑通，数据不具备对比意义
+            options.warmupIterations(1).warmupTime(TimeValue.milliseconds(500))
+                    .measurementIterations(2).measurementTime(TimeValue.milliseconds(500));
+        }
+        new Runner(options.build()).run();
+
+        // 3. 与基线对比
+        if (baseline != null) {
+            int regressions = compare(read(new File(baseline)), read(resultFile), threshold / 100);
+            if (regressions > 0) {
+                System.err.println(regressions + " 项基准相对基线出现回归（阈值 " + threshold + "%）");
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * 读取 JMH JSON 结果，key 为 基准名 + 参数
+     */
+    static Map<String, Score> read(File file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            List<String> names = new ArrayList<>();
+            params.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            for (String name : names) {
+                key.append(' ').append(name).append('=').append(params.get(name).asText());
+            }
+            JsonNode primary = run.path("primaryMetric");
+            JsonNode alloc = run.path("secondaryMetrics").path(ALLOC).path("score");
+            // 迭代次数不足时 JMH 输出的 scoreError 为 "NaN"，按 0 处理
+            double error = primary.path("scoreError").asDouble(0);
+            scores.put(key.toString(), new Score(run.path("mode").asText(), primary.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error, primary.path("scoreUnit").asText(),
+                    alloc.isNumber() ? alloc.asDouble() : Double.NaN));
+        }
+        return scores;
+    }
+
+    /**
+     * 逐项对比并打印，返回回归项数。
+     * 耗时回归需同时满足：变化超过阈值，且超出两次结果误差区间之和（吞吐量模式方向相反）；
+     * 分配回归需超过阈值与 ALLOC_SLACK。
+     */
+    static int compare(Map<String, Score> baseline, Map<String, Score> current, double threshold) {
+        int regressions = 0;
+        System.out.printf("%n%-70s %14s %14s %8s %12s %12s  %s%n",
+                "Benchmark", "Baseline", "Current", "Delta", "Alloc(B/op)", "Baseline", "");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-70s %14s %14.3f %8s %12.0f %12s  NEW%n",
+                        entry.getKey(), "-", now.score(), "-", now.alloc(), "-");
+                continue;
+            }
+            boolean higherIsBetter = "thrpt".equals(now.mode());
+            double delta = (now.score() - base.score()) / base.score();
+            double worse = higherIsBetter ? -delta : delta;
+            boolean beyondError = Math.abs(now.score() - base.score()) > now.error() + base.error();
+            boolean slower = worse > threshold && beyondError;
+            boolean allocates = !Double.isNaN(now.alloc()) && !Double.isNaN(base.alloc())
+                    && now.alloc() > base.alloc() * (1 + threshold) + ALLOC_SLACK;
+            String verdict = slower && allocates ? "REGRESSION(time,alloc)"
+                    : slower ? "REGRESSION(time)" : allocates ? "REGRESSION(alloc)"
+                    : worse < -threshold && beyondError ? "IMPROVED" : "";
+            if (slower || allocates) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%% %12.0f %12.0f  %s%n",
+                    entry.getKey(), base.score(), now.score(), delta * 100, now.alloc(), base.alloc(), verdict);
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,37 @@
+package com.cronya.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基准测试用的真实模型输出：resources/fixtures 下的文件取自 sqlFile/trip.sql 中的样例行程（trip_data_json 列）
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param name 不含扩展名，如 trip-2
+     */
+    public static String load(String name) {
+        String path = "/fixtures/" + name + ".json";
+        try (InputStream in = Fixtures.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException("找不到样例文件: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 模型的原始回复：JSON 外面带 ```json 代码块标记
+     */
+    public static String fenced(String json) {
+        return "```json\n" + json + "\n```";
+    }
+}
@@ -0,0 +1,54 @@
+package com.cronya.bench;
+
+import com.cronya.service.ItineraryOptimizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行程顺序优化耗时：模拟市区内 n 个随机站点、首尾为住宿的一天
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItineraryOptimizerBenchmark {
+
+    @Param({"6", "12", "30", "50"})
+    private int stops;
+
+    private double[] lat;
+    private double[] lng;
+    private boolean[] anchored;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        lat = new double[stops];
+        lng = new double[stops];
+        anchored = new boolean[stops];
+        for (int i = 0; i < stops; i++) {
+            lat[i] = 39.85 + random.nextDouble() * 0.15;
+            lng[i] = 116.30 + random.nextDouble() * 0.15;
+        }
+        anchored[0] = true;
+        anchored[stops - 1] = true;
+    }
+
+    @Benchmark
+    public int[] optimize() {
+        return ItineraryOptimizer.order(lat, lng, anchored, 50);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItineraryOptimizerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
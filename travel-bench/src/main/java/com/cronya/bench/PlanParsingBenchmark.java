@@ -0,0 +1,83 @@
+package com.cronya.bench;
+
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.service.IncrementalPlanParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型输出解析：样例行程（带 ```json 代码块标记的原始回复）分别走
+ * ObjectMapper 反射绑定、TripPlanCodec 流式解析、以及流式接口的增量切分 + 分片解析。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlanParsingBenchmark {
+
+    /** 流式接口每个事件携带的字符数（与 DashScope 增量输出的量级相当） */
+    private static final int CHUNK = 32;
+
+    @Param({"trip-2", "trip-3"})
+    private String fixture;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private String raw;
+    private String json;
+    private String[] chunks;
+
+    @Setup
+    public void setUp() {
+        json = Fixtures.load(fixture);
+        raw = Fixtures.fenced(json);
+        int n = (raw.length() + CHUNK - 1) / CHUNK;
+        chunks = new String[n];
+        for (int i = 0; i < n; i++) {
+            chunks[i] = raw.substring(i * CHUNK, Math.min(raw.length(), (i + 1) * CHUNK));
+        }
+    }
+
+    @Benchmark
+    public TripPlan objectMapper() throws Exception {
+        return mapper.readValue(json, TripPlan.class);
+    }
+
+    @Benchmark
+    public TripPlan codec() throws Exception {
+        return TripPlanCodec.read(raw);
+    }
+
+    @Benchmark
+    public void incremental(Blackhole bh) {
+        IncrementalPlanParser parser = new IncrementalPlanParser(new IncrementalPlanParser.Handler() {
+            @Override
+            public void onField(String name, String part) {
+                bh.consume(readPart(name, part));
+            }
+
+            @Override
+            public void onDay(String part) {
+                bh.consume(readPart("day", part));
+            }
+        });
+        for (String chunk : chunks) {
+            parser.feed(chunk);
+        }
+    }
+
+    private static Object readPart(String name, String part) {
+        try {
+            return TripPlanCodec.readPart(name, part);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.cronya.bench;
+
+import com.cronya.config.PoiIndexConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import com.cronya.service.PoiIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 地点网格索引：全量构建耗时、半径查询与 k 近邻延迟。
+ * 点集模拟 20 个城市、每城 3000 个不同地点，按行程随机抽取（每行程 18 个点）；
+ * 每点内存占用在 setUp 时打印（stats().bytesPerPoint）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PoiIndexBenchmark {
+
+    private static final int SEGMENTS_PER_TRIP = 18;
+    private static final int CITIES = 20;
+    private static final int POIS_PER_CITY = 3000;
+
+    @Param({"100000", "1000000"})
+    private int points;
+
+    private final List<TripPlan> plans = new ArrayList<>();
+    private PoiIndex index;
+    private double[] queryLat;
+    private double[] queryLng;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double[] cityLat = new double[CITIES];
+        double[] cityLng = new double[CITIES];
+        for (int c = 0; c < CITIES; c++) {
+            cityLat[c] = 22 + random.nextDouble() * 18;
+            cityLng[c] = 104 + random.nextDouble() * 16;
+        }
+        String[] categories = {"住宿", "交通", "餐饮", "景点", "购物", "文化"};
+        for (int t = 0; t < points / SEGMENTS_PER_TRIP; t++) {
+            int city = random.nextInt(CITIES);
+            List<Segment> segments = new ArrayList<>();
+            for (int s = 0; s < SEGMENTS_PER_TRIP; s++) {
+                int poi = random.nextInt(POIS_PER_CITY);
+                Random poiRandom = new Random(city * 100_000L + poi);
+                Segment segment = new Segment();
+                segment.setLocation("城市" + city + "地点" + poi);
+                segment.setCategory(categories[poi % categories.length]);
+                segment.setLatitude(cityLat[city] + (poiRandom.nextDouble() - 0.5) * 0.3);
+                segment.setLongitude(cityLng[city] + (poiRandom.nextDouble() - 0.5) * 0.3);
+                segments.add(segment);
+            }
+            DayPlan day = new DayPlan();
+            day.setSegments(segments);
+            TripPlan plan = new TripPlan();
+            plan.setTripPlan(List.of(day));
+            plans.add(plan);
+        }
+        index = build();
+        System.out.println("\nstats: " + index.stats());
+
+        queryLat = new double[1024];
+        queryLng = new double[1024];
+        for (int i = 0; i < queryLat.length; i++) {
+            int city = random.nextInt(CITIES);
+            queryLat[i] = cityLat[city] + (random.nextDouble() - 0.5) * 0.2;
+            queryLng[i] = cityLng[city] + (random.nextDouble() - 0.5) * 0.2;
+        }
+    }
+
+    private PoiIndex build() {
+        PoiIndex poiIndex = new PoiIndex(new PoiIndexConfig());
+        PoiIndex.Builder builder = poiIndex.newBuilder();
+        for (int t = 0; t < plans.size(); t++) {
+            builder.add(t + 1, plans.get(t));
+        }
+        poiIndex.replace(builder);
+        return poiIndex;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public PoiIndex buildIndex() {
+        return build();
+    }
+
+    @Benchmark
+    public List<PoiIndex.Poi> nearby1km() {
+        int i = cursor++ & 1023;
+        return index.nearby(queryLat[i], queryLng[i], 1000, null, 50);
+    }
+
+    @Benchmark
+    public List<PoiIndex.Poi> nearest10() {
+        int i = cursor++ & 1023;
+        return index.nearest(queryLat[i], queryLng[i], 10, "景点");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PoiIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.cronya.bench;
+
+import com.cronya.config.RouteCacheConfig;
+import com.cronya.model.DayPlan;
+import com.cronya.model.Segment;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.service.BaiduMapService;
+import com.cronya.service.RouteCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 百度地图请求参数构建：样例行程中每天的 segment 坐标依次作为起点 / 途经点 / 终点，
+ * 计算路线缓存 key（坐标量化），并为每一段拼接带 URL 编码的请求地址。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouteParamBenchmark {
+
+    private static final String API_URL = "https://api.map.baidu.com/directionlite/v1/driving";
+    private static final String AK = "benchmarkAk0123456789abcdef";
+
+    @Param({"trip-2", "trip-3"})
+    private String fixture;
+
+    private final List<String[]> days = new ArrayList<>();
+    private RouteCache routeCache;
+
+    @Setup
+    public void setUp() throws Exception {
+        TripPlan plan = TripPlanCodec.read(Fixtures.load(fixture));
+        for (DayPlan day : plan.getTripPlan()) {
+            List<String> points = new ArrayList<>();
+            for (Segment segment : day.getSegments()) {
+                points.add(segment.getLatitude() + "," + segment.getLongitude());
+            }
+            days.add(points.toArray(new String[0]));
+        }
+        // key 只依赖量化网格配置，不访问持久层
+        routeCache = new RouteCache(new RouteCacheConfig(), null, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void cacheKey(Blackhole bh) {
+        for (String[] points : days) {
+            String waypoints = String.join("|", List.of(points).subList(1, points.length - 1));
+            bh.consume(routeCache.key(points[0], points[points.length - 1], waypoints));
+        }
+    }
+
+    @Benchmark
+    public void legUrls(Blackhole bh) {
+        for (String[] points : days) {
+            for (int i = 0; i + 1 < points.length; i++) {
+                Map<String, String> apiParams = new LinkedHashMap<>();
+                apiParams.put("ak", AK);
+                apiParams.put("origin", points[i]);
+                apiParams.put("destination", points[i + 1]);
+                bh.consume(BaiduMapService.buildUrl(API_URL, apiParams));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cronya.bench;
+
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次规划结果「解析 + 序列化」的堆分配：通用 Map 树 vs 类型化模型。
+ * 关注 GC 剖析输出中的 gc.alloc.rate.norm（每次操作分配的字节数）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripPlanCodecBenchmark {
+
+    @Param({"3", "7"})
+    private int days;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String json;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"userProfile\":{\"companions\":\"家庭\",\"preferences\":[\"美食\",\"文化\"]},")
+                .append("\"tripIntent\":{\"destination\":\"北京\",\"days\":").append(days)
+                .append(",\"budget\":6000,\"transportMode\":\"火车\",\"season\":\"秋季\"},\"tripPlan\":[");
+        String[] categories = {"住宿", "交通", "餐饮", "景点", "购物", "文化"};
+        for (int d = 1; d <= days; d++) {
+            sb.append(d > 1 ? "," : "").append("{\"day\":").append(d).append(",\"segments\":[");
+            for (int s = 0; s < 6; s++) {
+                sb.append(s > 0 ? "," : "")
+                        .append("{\"time\":\"下午\",\"activity\":\"参观第").append(s).append("站\",\"location\":\"地点")
+                        .append(d).append('-').append(s).append("\",\"latitude\":39.9").append(s).append("1234,")
+                        .append("\"longitude\":116.3").append(d).append("5678,\"cost\":").append(50 + s).append(".50,")
+                        .append("\"category\":\"").append(categories[s]).append("\"}");
+            }
+            sb.append("],\"dailyTotalCost\":318.00}");
+        }
+        sb.append("],\"budgetAnalysis\":{\"estimatedTotal\":1000.00,\"categories\":{\"交通\":10.00,\"住宿\":20.00},")
+                .append("\"currency\":\"CNY\"},\"debug\":\"ok\"}");
+        json = sb.toString();
+    }
+
+    @Benchmark
+    public String mapTree() throws Exception {
+        Map<?, ?> plan = mapper.readValue(json, Map.class);
+        return mapper.writeValueAsString(plan);
+    }
+
+    @Benchmark
+    public String typed() throws Exception {
+        TripPlan plan = TripPlanCodec.read(json);
+        return TripPlanCodec.toJson(plan);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TripPlanCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
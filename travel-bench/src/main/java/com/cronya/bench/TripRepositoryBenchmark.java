@@ -0,0 +1,106 @@
+package com.cronya.bench;
+
+import com.cronya.domain.Trip;
+import com.cronya.repository.TripRepository;
+import com.cronya.service.TripDocumentStore;
+import com.cronya.service.TripService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行程持久化：在 H2 内存库上启动只含 JPA 与 TripService 的 Spring 上下文（配置见 resources/bench.yml），
+ * 测量保存（trip + 压缩后的 trip_document）、按 id 读取、分页列表与按用户全量查询。
+ * 写入使用单独的用户，读取的数据量在整个测量过程中保持不变。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripRepositoryBenchmark {
+
+    private static final String READ_USER = "bench-reader";
+    private static final String WRITE_USER = "bench-writer";
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan("com.cronya.domain")
+    @EnableJpaRepositories("com.cronya.repository")
+    @Import({TripService.class, TripDocumentStore.class})
+    static class PersistenceContext {
+    }
+
+    @Param({"1000"})
+    private int trips;
+
+    private ConfigurableApplicationContext context;
+    private TripService tripService;
+    private TripRepository tripRepository;
+    private String json;
+    private long[] ids;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PersistenceContext.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.config.name=bench");
+        tripService = context.getBean(TripService.class);
+        tripRepository = context.getBean(TripRepository.class);
+        json = Fixtures.load("trip-2");
+        ids = new long[trips];
+        for (int i = 0; i < trips; i++) {
+            ids[i] = tripService.createTrip(newTrip(READ_USER)).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Trip save() {
+        return tripService.createTrip(newTrip(WRITE_USER));
+    }
+
+    @Benchmark
+    public Trip findById() {
+        return tripService.getTripById(nextId());
+    }
+
+    @Benchmark
+    public Map<String, Object> listFirstPage() {
+        return tripService.listTrips(READ_USER, null, 20, null);
+    }
+
+    @Benchmark
+    public List<Trip> findAllByUserId() {
+        return tripRepository.findAllByUserId(READ_USER);
+    }
+
+    private long nextId() {
+        cursor = (cursor + 7919) % ids.length;
+        return ids[cursor];
+    }
+
+    private Trip newTrip(String userId) {
+        Trip trip = new Trip();
+        trip.setTripName("北京");
+        trip.setUserId(userId);
+        trip.setTripDataJson(json);
+        return trip;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cronya.bench;
+
+import com.cronya.domain.Trip;
+import com.cronya.model.TripPlan;
+import com.cronya.model.TripPlanCodec;
+import com.cronya.service.TripDocumentCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行程序列化：接口响应（Trip 实体 ↔ JSON，ObjectMapper 配置与 Spring MVC 默认一致）、
+ * 规划结果写出（TripPlanCodec）以及 trip_document 的压缩编解码。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripSerializationBenchmark {
+
+    @Param({"trip-2", "trip-3"})
+    private String fixture;
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private Trip trip;
+    private String tripJson;
+    private TripPlan plan;
+    private byte[] raw;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        String json = Fixtures.load(fixture);
+        trip = new Trip();
+        trip.setId(2L);
+        trip.setTripName("北京");
+        trip.setUserId("1983378338806239232");
+        trip.setTripDataJson(json);
+        trip.setDestination("北京");
+        trip.setDays(3);
+        trip.setBudget(1500.0);
+        trip.setEstimatedTotal(1460.0);
+        trip.setVersion(0L);
+        trip.setCreatedTime(LocalDateTime.of(2025, 10, 30, 12, 0));
+        trip.setUpdatedTime(trip.getCreatedTime());
+        tripJson = mapper.writeValueAsString(trip);
+        plan = TripPlanCodec.read(json);
+        raw = json.getBytes(StandardCharsets.UTF_8);
+        encoded = TripDocumentCodec.encode(raw);
+    }
+
+    @Benchmark
+    public String tripToJson() throws Exception {
+        return mapper.writeValueAsString(trip);
+    }
+
+    @Benchmark
+    public Trip tripFromJson() throws Exception {
+        return mapper.readValue(tripJson, Trip.class);
+    }
+
+    @Benchmark
+    public String planToJson() throws Exception {
+        return TripPlanCodec.toJson(plan);
+    }
+
+    @Benchmark
+    public byte[] documentEncode() {
+        return TripDocumentCodec.encode(raw);
+    }
+
+    @Benchmark
+    public String documentDecode() {
+        return TripDocumentCodec.decode(encoded, raw.length);
+    }
+}
@@ -0,0 +1,55 @@
+package com.cronya.load;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 命令行参数：--key=value 形式，未给出的取默认值。时长支持 ms / s / m 后缀（如 800ms、2s、5m）。
+ */
+final class Args {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    static Args parse(String[] args) {
+        Args parsed = new Args();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            parsed.values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return parsed;
+    }
+
+    String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    Duration getDuration(String key, String defaultValue) {
+        return duration(get(key, defaultValue));
+    }
+
+    static Duration duration(String text) {
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("无效的时长: " + text);
+        };
+    }
+}
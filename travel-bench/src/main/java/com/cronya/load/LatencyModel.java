@@ -0,0 +1,31 @@
+package com.cronya.load;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * 对数正态延迟分布：由中位数与 p99 确定（外部接口的延迟通常右偏，长尾明显）。
+ * sigma = ln(p99 / p50) / z(0.99)，样本 = p50 · exp(sigma · N(0,1))。
+ */
+record LatencyModel(Duration median, Duration p99) {
+
+    private static final double Z_99 = 2.3263;
+
+    long sampleMillis(Random random) {
+        double medianMs = Math.max(0, median.toMillis());
+        if (medianMs == 0) {
+            return 0;
+        }
+        double sigma = Math.log(Math.max(p99.toMillis(), medianMs) / medianMs) / Z_99;
+        return Math.round(medianMs * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    static LatencyModel of(Args args, String prefix, String median, String p99) {
+        return new LatencyModel(args.getDuration(prefix + ".p50", median), args.getDuration(prefix + ".p99", p99));
+    }
+
+    @Override
+    public String toString() {
+        return "p50=" + median.toMillis() + "ms p99=" + p99.toMillis() + "ms";
+    }
+}
@@ -0,0 +1,365 @@
+package com.cronya.load;
+
+import com.cronya.bench.Fixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测驱动：开放模型（按泊松到达率发起场景，不因后端变慢而降低发送速率），混合行程规划、流式规划、
+ * 路线规划与行程增删查场景，输出每个步骤的吞吐量与 p50 / p99 / p999。
+ * 首个步骤的延迟从计划发起时刻算起，排队等待也计入（避免 coordinated omission）。
+ * <pre>
+ * java -cp travel-bench/target/benchmarks.jar com.cronya.load.LoadDriver \
+ *      [--target=http://localhost:8080] [--rate=20] [--warmup=30s] [--duration=2m] [--timeout=120s]
+ *      [--mix=plan:1,planStream:1,route:4,trips:4] [--report=target/load-report.json]
+ * </pre>
+ * 有错误的步骤照常记录延迟，另计错误数；报告以 JSON 写入 --report，便于不同版本之间对比。
+ */
+public final class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long MAX_LATENCY_US = TimeUnit.MINUTES.toMicros(10);
+
+    private record City(String name, double lat, double lng) {
+    }
+
+    private static final List<City> CITIES = List.of(
+            new City("北京", 39.9042, 116.4074), new City("上海", 31.2304, 121.4737),
+            new City("成都", 30.5728, 104.0668), new City("杭州", 30.2741, 120.1551),
+            new City("西安", 34.3416, 108.9398), new City("广州", 23.1291, 113.2644),
+            new City("厦门", 24.4798, 118.0894), new City("重庆", 29.5630, 106.5516));
+    private static final List<String> COMPANIONS = List.of("独自", "情侣", "家人", "朋友");
+    private static final List<String> PREFERENCES = List.of("美食", "文化", "自然风光", "购物", "博物馆", "亲子");
+
+    /** 单个步骤的延迟直方图（微秒）与错误计数 */
+    private static final class Metric {
+        final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_US, 3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    private interface Scenario {
+        void run(long intendedStart) throws Exception;
+    }
+
+    private final String target;
+    private final Duration timeout;
+    private final HttpClient client;
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "load-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+    private final String tripDataJson = Fixtures.load("trip-2");
+    private final AtomicLong inFlight = new AtomicLong();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private volatile long recordFrom;
+
+    LoadDriver(String target, Duration timeout) {
+        this.target = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(workers)
+                .build();
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = Args.parse(argv);
+        LoadDriver driver = new LoadDriver(args.get("target", "http://localhost:8080"),
+                args.getDuration("timeout", "120s"));
+        double rate = args.getDouble("rate", 20);
+        Duration warmup = args.getDuration("warmup", "30s");
+        Duration duration = args.getDuration("duration", "2m");
+        String mix = args.get("mix", "plan:1,planStream:1,route:4,trips:4");
+
+        System.out.printf("目标 %s，到达率 %.1f 场景/秒，预热 %ds，测量 %ds，场景比例 %s%n",
+                driver.target, rate, warmup.toSeconds(), duration.toSeconds(), mix);
+        driver.run(driver.parseMix(mix), rate, warmup, duration);
+
+        ObjectNode report = driver.report(duration);
+        report.putObject("config")
+                .put("target", driver.target).put("rate", rate).put("mix", mix)
+                .put("warmupSeconds", warmup.toSeconds()).put("durationSeconds", duration.toSeconds());
+        File file = new File(args.get("report", "target/load-report.json"));
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        System.out.println("报告已写入 " + file.getPath());
+        System.exit(0);
+    }
+
+    private NavigableMap<Double, Scenario> parseMix(String mix) {
+        Map<String, Scenario> scenarios = Map.of(
+                "plan", this::plan,
+                "planStream", this::planStream,
+                "route", this::route,
+                "trips", this::trips);
+        NavigableMap<Double, Scenario> weighted = new TreeMap<>();
+        double total = 0;
+        for (String item : mix.split(",")) {
+            String[] parts = item.trim().split(":");
+            Scenario scenario = scenarios.get(parts[0]);
+            if (scenario == null) {
+                throw new IllegalArgumentException("未知场景: " + parts[0] + "，可选 " + scenarios.keySet());
+            }
+            double weight = parts.length > 1 ? Double.parseDouble(parts[1]) : 1;
+            if (weight > 0) {
+                total += weight;
+                weighted.put(total, scenario);
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("场景比例为空: " + mix);
+        }
+        return weighted;
+    }
+
+    /**
+     * 按泊松过程发起场景；测量结束后等待进行中的请求完成（最多 timeout）
+     */
+    private void run(NavigableMap<Double, Scenario> mix, double rate, Duration warmup, Duration duration) throws Exception {
+        Random random = new Random();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long begin = System.nanoTime();
+        recordFrom = begin + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+        long nextProgress = begin + TimeUnit.SECONDS.toNanos(10);
+
+        long next = begin;
+        while (next < end) {
+            long now;
+            while ((now = System.nanoTime()) < next) {
+                LockSupport.parkNanos(next - now);
+            }
+            if (now >= nextProgress) {
+                System.out.printf("[%3ds] 已发起 %d，已完成 %d，进行中 %d%n", TimeUnit.NANOSECONDS.toSeconds(now - begin),
+                        started.sum(), completed.sum(), inFlight.get());
+                nextProgress += TimeUnit.SECONDS.toNanos(10);
+            }
+            Scenario scenario = mix.higherEntry(random.nextDouble() * mix.lastKey()).getValue();
+            long intended = next;
+            started.increment();
+            inFlight.incrementAndGet();
+            workers.execute(() -> {
+                try {
+                    scenario.run(intended);
+                } catch (Exception e) {
+                    // 单个步骤的失败已计入对应指标
+                } finally {
+                    inFlight.decrementAndGet();
+                    completed.increment();
+                }
+            });
+            next += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    // ---------------- 场景 ----------------
+
+    private void plan(long intendedStart) throws Exception {
+        String body = json(Map.of("rawText", prompt()));
+        HttpResponse<String> response = send("POST", "/api/planTrip", body, intendedStart, "plan");
+        if (response != null && response.body().contains("\"error\":\"")) {
+            error("plan", intendedStart);
+        }
+    }
+
+    /**
+     * 流式规划：分别记录首个事件与完整结果（done）的延迟，收到 error 事件记为失败
+     */
+    private void planStream(long intendedStart) throws Exception {
+        HttpRequest request = request("POST", "/api/planTrip/stream", json(Map.of("rawText", prompt())))
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (Exception e) {
+            failed("planStream", intendedStart);
+            return;
+        }
+        boolean first = true;
+        boolean failed = response.statusCode() >= 400;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith("event:")) {
+                    continue;
+                }
+                if (first) {
+                    first = false;
+                    record("planStream.firstEvent", intendedStart, false);
+                }
+                if (line.substring(6).trim().equals("error")) {
+                    failed = true;
+                }
+            }
+        } catch (Exception e) {
+            failed = true;
+        }
+        record("planStream", intendedStart, failed || first);
+    }
+
+    /**
+     * 路线：城市内随机起终点，三成请求带两个途经点（多段并发 + 拼接）
+     */
+    private void route(long intendedStart) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        City city = CITIES.get(random.nextInt(CITIES.size()));
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("origin", point(city, random));
+        params.put("destination", point(city, random));
+        if (random.nextDouble() < 0.3) {
+            params.put("waypoints", point(city, random) + "|" + point(city, random));
+        }
+        HttpResponse<String> response = send("POST", "/api/route", json(params), intendedStart, "route");
+        if (response != null && !response.body().contains("\"status\":0")) {
+            error("route", intendedStart);
+        }
+    }
+
+    /**
+     * 行程增删查：创建 → 读取 → 分页列表 → 删除，各步骤单独计时（后续步骤从自身发起时刻算起）
+     */
+    private void trips(long intendedStart) throws Exception {
+        String userId = "load-" + ThreadLocalRandom.current().nextInt(200);
+        ObjectNode trip = MAPPER.createObjectNode()
+                .put("tripName", CITIES.get(ThreadLocalRandom.current().nextInt(CITIES.size())).name())
+                .put("userId", userId)
+                .put("tripDataJson", tripDataJson);
+        HttpResponse<String> created = send("POST", "/api/trips", MAPPER.writeValueAsString(trip), intendedStart, "trip.create");
+        if (created == null) {
+            return;
+        }
+        JsonNode id = MAPPER.readTree(created.body()).get("id");
+        if (id == null) {
+            return;
+        }
+        send("GET", "/api/trips/" + id.asLong(), null, System.nanoTime(), "trip.get");
+        send("GET", "/api/trips/user/" + userId + "/page?limit=20", null, System.nanoTime(), "trip.page");
+        send("DELETE", "/api/trips/" + id.asLong(), null, System.nanoTime(), "trip.delete");
+    }
+
+    // ---------------- 请求与记录 ----------------
+
+    /**
+     * 发送请求并记录延迟；HTTP 4xx/5xx 与网络异常计为错误，异常时返回 null
+     */
+    private HttpResponse<String> send(String method, String path, String body, long start, String name) {
+        try {
+            HttpResponse<String> response = client.send(request(method, path, body).build(),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            boolean failed = response.statusCode() >= 400;
+            record(name, start, failed);
+            return failed ? null : response;
+        } catch (Exception e) {
+            failed(name, start);
+            return null;
+        }
+    }
+
+    private HttpRequest.Builder request(String method, String path, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target + path)).timeout(timeout);
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+    }
+
+    private void record(String name, long start, boolean failed) {
+        if (start < recordFrom) {
+            return; // 预热阶段不计入
+        }
+        Metric metric = metrics.computeIfAbsent(name, k -> new Metric());
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        metric.histogram.recordValue(Math.min(Math.max(micros, 1), MAX_LATENCY_US));
+        if (failed) {
+            metric.errors.increment();
+        }
+    }
+
+    private void failed(String name, long start) {
+        record(name, start, true);
+    }
+
+    /**
+     * 请求本身成功但业务结果失败（已记录过延迟，只追加错误计数）
+     */
+    private void error(String name, long start) {
+        if (start >= recordFrom) {
+            metrics.computeIfAbsent(name, k -> new Metric()).errors.increment();
+        }
+    }
+
+    // ---------------- 报告 ----------------
+
+    private ObjectNode report(Duration duration) {
+        ObjectNode report = MAPPER.createObjectNode();
+        ObjectNode steps = report.putObject("steps");
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf("%n%-22s %8s %7s %9s %9s %9s %9s %9s%n",
+                "步骤", "次数", "错误", "吞吐/秒", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        metrics.forEach((name, metric) -> {
+            Histogram h = metric.histogram;
+            long count = h.getTotalCount();
+            double throughput = count / seconds;
+            double p50 = h.getValueAtPercentile(50) / 1000.0;
+            double p99 = h.getValueAtPercentile(99) / 1000.0;
+            double p999 = h.getValueAtPercentile(99.9) / 1000.0;
+            double max = h.getMaxValue() / 1000.0;
+            System.out.printf("%-22s %8d %7d %9.2f %9.1f %9.1f %9.1f %9.1f%n",
+                    name, count, metric.errors.sum(), throughput, p50, p99, p999, max);
+            steps.putObject(name)
+                    .put("count", count).put("errors", metric.errors.sum()).put("throughput", throughput)
+                    .put("p50Ms", p50).put("p90Ms", h.getValueAtPercentile(90) / 1000.0)
+                    .put("p99Ms", p99).put("p999Ms", p999).put("maxMs", max);
+        });
+        return report;
+    }
+
+    private static String prompt() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return "我想和" + COMPANIONS.get(random.nextInt(COMPANIONS.size()))
+                + "去" + CITIES.get(random.nextInt(CITIES.size())).name()
+                + "玩" + (2 + random.nextInt(6)) + "天，预算" + (1000 + 500 * random.nextInt(20)) + "元，喜欢"
+                + PREFERENCES.get(random.nextInt(PREFERENCES.size()));
+    }
+
+    private static String point(City city, Random random) {
+        return String.format("%.6f,%.6f", city.lat() + (random.nextDouble() - 0.5) * 0.2,
+                city.lng() + (random.nextDouble() - 0.5) * 0.2);
+    }
+
+    private static String json(Object value) throws Exception {
+        return MAPPER.writeValueAsString(value);
+    }
+}
@@ -0,0 +1,129 @@
+package com.cronya.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 启动耗时基准：重复冷启动后端进程，测量从启动进程到 GET /api/trips 第一次成功（2xx）的耗时，
+ * 同时从日志中取 Spring 自己报告的 "Started ... in N seconds"。
+ * <pre>
+ * java -cp travel-bench/target/benchmarks.jar com.cronya.load.StartupBench \
+ *      --command="java -jar travel-api/target/travel-api-0.0.1-SNAPSHOT-exec.jar" \
+ *      [--runs=5] [--port=18090] [--path=/api/trips] [--timeout=120s] [--label=baseline] [--report=target/startup-report.json]
+ * </pre>
+ * 端口通过 SERVER_PORT 环境变量传给后端，其余环境变量（DB_URL 等）原样继承；每次启动的日志写在报告旁边。
+ */
+public final class StartupBench {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+
+    private record Run(long firstResponseMs, Double reportedMs) {
+    }
+
+    public static void main(String[] argv) throws Exception {
+        Args args = Args.parse(argv);
+        String command = args.get("command", null);
+        if (command == null || command.isBlank()) {
+            throw new IllegalArgumentException("缺少 --command，例如 --command=\"java -jar app.jar\"");
+        }
+        int runs = args.getInt("runs", 5);
+        int port = args.getInt("port", 18090);
+        String label = args.get("label", "startup");
+        Duration timeout = args.getDuration("timeout", "120s");
+        URI target = URI.create("http://localhost:" + port + args.get("path", "/api/trips"));
+        File report = new File(args.get("report", "target/startup-report.json"));
+        File logDir = report.getAbsoluteFile().getParentFile();
+        logDir.mkdirs();
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(500)).build();
+        List<Run> results = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            File log = new File(logDir, label + "-" + i + ".log");
+            Run run = startOnce(command, port, target, timeout, client, log);
+            results.add(run);
+            System.out.printf("[%s] 第 %d 次：首个成功响应 %d ms，Spring 报告启动 %s%n", label, i + 1,
+                    run.firstResponseMs(), run.reportedMs() == null ? "-" : String.format("%.0f ms", run.reportedMs()));
+        }
+
+        long[] firstResponse = results.stream().mapToLong(Run::firstResponseMs).sorted().toArray();
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("label", label);
+        root.put("command", command);
+        root.put("target", target.toString());
+        ArrayNode runNodes = root.putArray("runs");
+        for (Run run : results) {
+            ObjectNode node = runNodes.addObject();
+            node.put("firstResponseMs", run.firstResponseMs());
+            if (run.reportedMs() != null) {
+                node.put("reportedStartupMs", Math.round(run.reportedMs()));
+            }
+        }
+        root.put("minMs", firstResponse[0]);
+        root.put("medianMs", firstResponse[firstResponse.length / 2]);
+        root.put("maxMs", firstResponse[firstResponse.length - 1]);
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(report, root);
+        System.out.printf("[%s] 首个成功响应：min %d ms / median %d ms / max %d ms，报告：%s%n", label,
+                firstResponse[0], firstResponse[firstResponse.length / 2], firstResponse[firstResponse.length - 1], report);
+    }
+
+    private static Run startOnce(String command, int port, URI target, Duration timeout, HttpClient client, File log)
+            throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(Arrays.asList(command.trim().split("\\s+")))
+                .redirectErrorStream(true)
+                .redirectOutput(log);
+        builder.environment().put("SERVER_PORT", String.valueOf(port));
+        HttpRequest request = HttpRequest.newBuilder(target).timeout(Duration.ofSeconds(5)).GET().build();
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("后端进程已退出（exit " + process.exitValue() + "），日志：" + log);
+                }
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() / 100 == 2) {
+                        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        return new Run(elapsed, reportedStartup(log.toPath()));
+                    }
+                } catch (IOException e) {
+                    // 端口尚未监听
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("超过 " + timeout + " 仍未得到成功响应，日志：" + log);
+        } finally {
+            // 正常停机（SIGTERM），避免下一次启动时端口或数据库连接仍被占用
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static Double reportedStartup(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(new String(Files.readAllBytes(log), StandardCharsets.UTF_8));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) * 1000 : null;
+    }
+}
@@ -0,0 +1,225 @@
+package com.cronya.load;
+
+import com.cronya.bench.Fixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 本地替身服务：回放录制的 DashScope（文本生成，含 SSE 流式）与百度地图驾车路线响应，
+ * 延迟按对数正态分布抽样，可配置错误率与流式分片节奏，用于离线压测 /api/planTrip 与 /api/route。
+ * <pre>
+ * java -cp travel-bench/target/benchmarks.jar com.cronya.load.StubServers \
+ *      [--model.port=18081] [--model.latency.p50=8s] [--model.latency.p99=20s] [--model.error-rate=0.01]
+ *      [--model.first-chunk.p50=800ms] [--model.first-chunk.p99=3s] [--model.chunk-chars=24] [--model.chunk-interval=40ms]
+ *      [--map.port=18082] [--map.latency.p50=80ms] [--map.latency.p99=400ms] [--map.error-rate=0.005]
+ * </pre>
+ * 后端启动时指向替身：DASHSCOPE_ENDPOINT=http://localhost:18081/api/v1、
+ * BAIDU_DRIVING_URL=http://localhost:18082/directionlite/v1/driving（AK 任意非空值）。
+ */
+public final class StubServers {
+
+    static final String GENERATION_PATH = "/api/v1/services/aigc/text-generation/generation";
+    static final String DRIVING_PATH = "/directionlite/v1/driving";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> PLAN_FIXTURES = List.of("trip-2", "trip-3");
+
+    private final Args args;
+    private final List<String> replies = new ArrayList<>();
+    private final ObjectNode route;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    // 大模型：非流式的整体延迟；流式的首个分片延迟与分片间隔
+    private final LatencyModel modelLatency;
+    private final LatencyModel firstChunkLatency;
+    private final double modelErrorRate;
+    private final int chunkChars;
+    private final Duration chunkInterval;
+    // 百度地图
+    private final LatencyModel mapLatency;
+    private final double mapErrorRate;
+
+    StubServers(Args args) throws IOException {
+        this.args = args;
+        for (String fixture : PLAN_FIXTURES) {
+            replies.add(Fixtures.fenced(Fixtures.load(fixture)));
+        }
+        this.route = (ObjectNode) MAPPER.readTree(Fixtures.load("baidu-driving"));
+        this.modelLatency = LatencyModel.of(args, "model.latency", "8s", "20s");
+        this.firstChunkLatency = LatencyModel.of(args, "model.first-chunk", "800ms", "3s");
+        this.modelErrorRate = args.getDouble("model.error-rate", 0.01);
+        this.chunkChars = Math.max(1, args.getInt("model.chunk-chars", 24));
+        this.chunkInterval = args.getDuration("model.chunk-interval", "40ms");
+        this.mapLatency = LatencyModel.of(args, "map.latency", "80ms", "400ms");
+        this.mapErrorRate = args.getDouble("map.error-rate", 0.005);
+    }
+
+    public static void main(String[] argv) throws IOException {
+        StubServers stubs = new StubServers(Args.parse(argv));
+        stubs.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stubs::stop));
+    }
+
+    void start() throws IOException {
+        int modelPort = args.getInt("model.port", 18081);
+        int mapPort = args.getInt("map.port", 18082);
+        servers.add(listen(modelPort, GENERATION_PATH, this::handleGeneration));
+        servers.add(listen(mapPort, DRIVING_PATH, this::handleDriving));
+        System.out.printf("DashScope 替身: http://localhost:%d/api/v1  (%s, 首分片 %s, 每 %s 输出 %d 字, 错误率 %.3f)%n",
+                modelPort, modelLatency, firstChunkLatency, chunkInterval.toMillis() + "ms", chunkChars, modelErrorRate);
+        System.out.printf("百度地图替身: http://localhost:%d%s  (%s, 错误率 %.3f)%n",
+                mapPort, DRIVING_PATH, mapLatency, mapErrorRate);
+    }
+
+    void stop() {
+        servers.forEach(server -> server.stop(0));
+        executor.shutdownNow();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    private HttpServer listen(int port, String path, Handler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext(path, exchange -> {
+            try (exchange) {
+                handler.handle(exchange);
+            } catch (Exception e) {
+                // 客户端提前断开等情况，丢弃本次响应
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        return server;
+    }
+
+    /**
+     * 文本生成：请求头 X-DashScope-SSE: enable（或 Accept: text/event-stream）时按 SSE 分片回放，否则整体返回
+     */
+    private void handleGeneration(HttpExchange exchange) throws Exception {
+        exchange.getRequestBody().readAllBytes();
+        Random random = ThreadLocalRandom.current();
+        String requestId = UUID.randomUUID().toString();
+        String reply = replies.get(random.nextInt(replies.size()));
+        boolean stream = "enable".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("X-DashScope-SSE"))
+                || String.valueOf(exchange.getRequestHeaders().getFirst("Accept")).contains("text/event-stream");
+
+        if (random.nextDouble() < modelErrorRate) {
+            Thread.sleep(firstChunkLatency.sampleMillis(random));
+            ObjectNode error = MAPPER.createObjectNode()
+                    .put("code", "Throttling.RateQuota")
+                    .put("message", "Requests rate limit exceeded, please try again later.")
+                    .put("request_id", requestId);
+            send(exchange, 429, "application/json", MAPPER.writeValueAsBytes(error));
+            return;
+        }
+
+        if (!stream) {
+            Thread.sleep(modelLatency.sampleMillis(random));
+            send(exchange, 200, "application/json", MAPPER.writeValueAsBytes(generation(requestId, reply, reply.length(), "stop")));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream;charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        Thread.sleep(firstChunkLatency.sampleMillis(random));
+        int id = 0;
+        for (int start = 0; start < reply.length(); start += chunkChars) {
+            if (start > 0) {
+                Thread.sleep(chunkInterval.toMillis());
+            }
+            int end = Math.min(reply.length(), start + chunkChars);
+            ObjectNode event = generation(requestId, reply.substring(start, end), end, end == reply.length() ? "stop" : "null");
+            String frame = "id:" + (++id) + "\nevent:result\n:HTTP_STATUS/200\ndata:" + MAPPER.writeValueAsString(event) + "\n\n";
+            out.write(frame.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+    }
+
+    /**
+     * result_format=message 的响应体；usage 为累计值，按字符数粗略折算 token
+     */
+    private static ObjectNode generation(String requestId, String content, int outputChars, String finishReason) {
+        ObjectNode body = MAPPER.createObjectNode();
+        ObjectNode choice = body.putObject("output").putArray("choices").addObject();
+        choice.put("finish_reason", finishReason);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        int outputTokens = Math.max(1, outputChars / 2);
+        body.putObject("usage")
+                .put("input_tokens", 900)
+                .put("output_tokens", outputTokens)
+                .put("total_tokens", 900 + outputTokens);
+        body.put("request_id", requestId);
+        return body;
+    }
+
+    /**
+     * 驾车路线：回放录制的响应，起终点替换为请求参数；百度的业务错误同样以 HTTP 200 返回
+     */
+    private void handleDriving(HttpExchange exchange) throws Exception {
+        Map<String, String> query = query(exchange.getRequestURI());
+        Random random = ThreadLocalRandom.current();
+        Thread.sleep(mapLatency.sampleMillis(random));
+
+        ObjectNode body;
+        if (query.get("ak") == null || query.get("ak").isBlank()) {
+            body = MAPPER.createObjectNode().put("status", 240).put("message", "APP 服务被禁用");
+        } else if (random.nextDouble() < mapErrorRate) {
+            body = MAPPER.createObjectNode().put("status", 401).put("message", "当前并发量已经超过约定并发配额，限制访问");
+        } else {
+            body = route.deepCopy();
+            ObjectNode result = (ObjectNode) body.get("result");
+            point(result, "origin", query.get("origin"));
+            point(result, "destination", query.get("destination"));
+        }
+        send(exchange, 200, "application/json", MAPPER.writeValueAsBytes(body));
+    }
+
+    private static void point(ObjectNode result, String field, String latLng) {
+        if (latLng == null || latLng.indexOf(',') < 0) {
+            return;
+        }
+        String[] parts = latLng.split(",");
+        result.putObject(field)
+                .put("lng", Double.parseDouble(parts[1].trim()))
+                .put("lat", Double.parseDouble(parts[0].trim()));
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType + ";charset=UTF-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+}
@@ -0,0 +1,32 @@
+#!/usr/bin/env bash
+# 启动耗时对比：普通 jar 与 AOT + AppCDS（与 Dockerfile.backend 相同的启动方式）各冷启动 RUNS 次，
+# 测量到 GET /api/trips 第一次成功的耗时。数据库沿用 DB_URL / DB_USERNAME / DB_PASSWORD（需已有表结构，prod profile 只校验）。
+#   mvn -q package -DskipTests -Pfast-startup && travel-bench/startup-test.sh
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BENCH_JAR="$ROOT/travel-bench/target/benchmarks.jar"
+APP_JAR="$ROOT/travel-api/target/travel-api-0.0.1-SNAPSHOT-exec.jar"
+WORK="$ROOT/travel-bench/target/startup"
+RUNS="${RUNS:-5}"
+
+for jar in "$BENCH_JAR" "$APP_JAR"; do
+  [ -f "$jar" ] || { echo "缺少 $jar，请先执行 mvn package -DskipTests -Pfast-startup" >&2; exit 1; }
+done
+
+export SPRING_PROFILES_ACTIVE=prod
+export ALIBABA_APIKEY="${ALIBABA_APIKEY:-stub}" BMAP_SERVER_AK="${BMAP_SERVER_AK:-stub}"
+
+# 解包并训练 CDS 归档（参数与 Dockerfile.backend 一致）
+rm -rf "$WORK" && mkdir -p "$WORK"
+java -Djarmode=tools -jar "$APP_JAR" extract --destination "$WORK/application" > /dev/null
+EXTRACTED="$WORK/application/$(basename "$APP_JAR")"
+java -XX:ArchiveClassesAtExit="$WORK/application.jsa" -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+  -Dspring.jpa.hibernate.ddl-auto=none -Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false \
+  -Dtrip.search.index-dir= -jar "$EXTRACTED" > "$WORK/cds-training.log" 2>&1
+
+java -cp "$BENCH_JAR" com.cronya.load.StartupBench --label=baseline --runs="$RUNS" \
+  --command="java -jar $APP_JAR" --report="$WORK/baseline.json" "$@"
+java -cp "$BENCH_JAR" com.cronya.load.StartupBench --label=aot-cds --runs="$RUNS" \
+  --command="java -XX:SharedArchiveFile=$WORK/application.jsa -Dspring.aot.enabled=true -jar $EXTRACTED" \
+  --report="$WORK/aot-cds.json" "$@"